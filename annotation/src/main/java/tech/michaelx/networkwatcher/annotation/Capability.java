@@ -0,0 +1,24 @@
+package tech.michaelx.networkwatcher.annotation;
+
+import android.support.annotation.IntDef;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+import static tech.michaelx.networkwatcher.annotation.constant.CapabilityEnum.CAPABILITY_DATA_SAVER;
+import static tech.michaelx.networkwatcher.annotation.constant.CapabilityEnum.CAPABILITY_METERED;
+import static tech.michaelx.networkwatcher.annotation.constant.CapabilityEnum.CAPABILITY_ROAMING;
+import static tech.michaelx.networkwatcher.annotation.constant.CapabilityEnum.CAPABILITY_VALIDATED;
+import static tech.michaelx.networkwatcher.annotation.constant.CapabilityEnum.CAPABILITY_VPN;
+
+/**
+ * @since 2026-10-17
+ */
+@IntDef(flag = true, value = {CAPABILITY_METERED, CAPABILITY_ROAMING, CAPABILITY_VPN, CAPABILITY_VALIDATED,
+        CAPABILITY_DATA_SAVER})
+@Retention(RetentionPolicy.SOURCE)
+@Target({ElementType.METHOD, ElementType.PARAMETER})
+public @interface Capability {
+}
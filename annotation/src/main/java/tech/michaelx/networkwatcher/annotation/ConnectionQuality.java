@@ -0,0 +1,23 @@
+package tech.michaelx.networkwatcher.annotation;
+
+import android.support.annotation.IntDef;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+import static tech.michaelx.networkwatcher.annotation.constant.ConnectionQualityEnum.QUALITY_EXCELLENT;
+import static tech.michaelx.networkwatcher.annotation.constant.ConnectionQualityEnum.QUALITY_GOOD;
+import static tech.michaelx.networkwatcher.annotation.constant.ConnectionQualityEnum.QUALITY_MODERATE;
+import static tech.michaelx.networkwatcher.annotation.constant.ConnectionQualityEnum.QUALITY_POOR;
+import static tech.michaelx.networkwatcher.annotation.constant.ConnectionQualityEnum.QUALITY_UNKNOWN;
+
+/**
+ * @since 2026-10-17
+ */
+@IntDef({QUALITY_UNKNOWN, QUALITY_POOR, QUALITY_MODERATE, QUALITY_GOOD, QUALITY_EXCELLENT})
+@Retention(RetentionPolicy.SOURCE)
+@Target({ElementType.METHOD, ElementType.PARAMETER})
+public @interface ConnectionQuality {
+}
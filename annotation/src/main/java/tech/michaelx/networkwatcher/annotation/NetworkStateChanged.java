@@ -11,6 +11,9 @@ import java.lang.annotation.Target;
 @Target(ElementType.METHOD)
 @Retention(RetentionPolicy.RUNTIME)
 public @interface NetworkStateChanged {
-    // app刚启动后的第一个监听器是否需要提醒网络
+    // 注册观察者时是否立即收到当前网络状态(粘性通知)，false则等到下一次网络变化
     boolean notifyOnAppStart() default true;
+
+    // 方法的执行线程
+    ThreadMode threadMode() default ThreadMode.POSTING;
 }
@@ -12,13 +12,16 @@ import static tech.michaelx.networkwatcher.annotation.constant.NetworkTypeEnum.N
 import static tech.michaelx.networkwatcher.annotation.constant.NetworkTypeEnum.NETWORK_2G;
 import static tech.michaelx.networkwatcher.annotation.constant.NetworkTypeEnum.NETWORK_3G;
 import static tech.michaelx.networkwatcher.annotation.constant.NetworkTypeEnum.NETWORK_4G;
+import static tech.michaelx.networkwatcher.annotation.constant.NetworkTypeEnum.NETWORK_5G;
+import static tech.michaelx.networkwatcher.annotation.constant.NetworkTypeEnum.NETWORK_ANY;
 import static tech.michaelx.networkwatcher.annotation.constant.NetworkTypeEnum.NETWORK_MOBILE;
 import static tech.michaelx.networkwatcher.annotation.constant.NetworkTypeEnum.NETWORK_UNKNOWN;
 
 /**
  * @since 2019-10-16
  */
-@IntDef({NETWORK_NO, NETWORK_WIFI, NETWORK_2G, NETWORK_3G, NETWORK_4G, NETWORK_MOBILE, NETWORK_UNKNOWN})
+@IntDef({NETWORK_NO, NETWORK_WIFI, NETWORK_2G, NETWORK_3G, NETWORK_4G, NETWORK_5G, NETWORK_MOBILE, NETWORK_UNKNOWN,
+        NETWORK_ANY})
 @Retention(RetentionPolicy.SOURCE)
 @Target({ElementType.METHOD, ElementType.PARAMETER})
 public @interface NetworkType {
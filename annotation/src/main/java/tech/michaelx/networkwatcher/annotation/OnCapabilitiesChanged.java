@@ -0,0 +1,26 @@
+package tech.michaelx.networkwatcher.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 网络能力变化且满足条件时通知，方法需有一个int参数接收当前的能力位({@link Capability})
+ * <p>条件为required中的能力全部具备且forbidden中的能力全部不具备，如只在不计费、非漫游时上传：
+ * {@code @OnCapabilitiesChanged(forbidden = CAPABILITY_METERED | CAPABILITY_ROAMING)}。
+ * 能力不变时不通知；不再满足条件时也不通知，需要时用另一个方法声明相反的条件</p>
+ *
+ * @since 2026-10-17
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface OnCapabilitiesChanged {
+    @Capability
+    int required() default 0;
+    @Capability
+    int forbidden() default 0;
+    // 注册观察者时满足条件是否立即收到当前能力(粘性通知)，false则等到下一次能力变化
+    boolean notifyOnAppStart() default true;
+    ThreadMode threadMode() default ThreadMode.POSTING;
+}
@@ -0,0 +1,18 @@
+package tech.michaelx.networkwatcher.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 连接质量等级变化，方法需有一个int参数接收{@link ConnectionQuality}
+ *
+ * @since 2026-10-17
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface OnConnectionQualityChanged {
+    // 方法的执行线程
+    ThreadMode threadMode() default ThreadMode.POSTING;
+}
@@ -0,0 +1,25 @@
+package tech.michaelx.networkwatcher.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+import tech.michaelx.networkwatcher.annotation.constant.NetworkTypeEnum;
+
+/**
+ * 网络类型从from切换到to时通知，方法需有(int from, int to, long dwellMillis)三个参数，
+ * 分别接收之前的网络类型、新的网络类型及之前的网络类型持续了多少毫秒
+ * <p>from/to可用NETWORK_MOBILE匹配所有移动网络，NETWORK_ANY匹配任意网络；网络类型不变时不通知</p>
+ *
+ * @since 2026-10-17
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface OnNetworkTransition {
+    @NetworkType
+    int from() default NetworkTypeEnum.NETWORK_ANY;
+    @NetworkType
+    int to() default NetworkTypeEnum.NETWORK_ANY;
+    ThreadMode threadMode() default ThreadMode.POSTING;
+}
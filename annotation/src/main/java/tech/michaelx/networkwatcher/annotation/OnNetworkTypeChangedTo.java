@@ -13,5 +13,7 @@ import java.lang.annotation.Target;
 public @interface OnNetworkTypeChangedTo {
     @NetworkType
     int type();
+    // 注册观察者时是否立即收到当前网络状态(粘性通知)，false则等到下一次网络变化
     boolean notifyOnAppStart() default true;
+    ThreadMode threadMode() default ThreadMode.POSTING;
 }
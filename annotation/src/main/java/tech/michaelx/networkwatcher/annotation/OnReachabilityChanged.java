@@ -0,0 +1,19 @@
+package tech.michaelx.networkwatcher.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 当前网络的可达性变化，方法需有一个int参数接收{@link Reachability}
+ * <p>REACHABILITY_VALIDATED表示探测请求成功，网络确实可用；需开启主动探测，见ReachabilityProber</p>
+ *
+ * @since 2026-10-17
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface OnReachabilityChanged {
+    // 方法的执行线程
+    ThreadMode threadMode() default ThreadMode.POSTING;
+}
@@ -0,0 +1,25 @@
+package tech.michaelx.networkwatcher.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+import tech.michaelx.networkwatcher.annotation.constant.NetworkTypeEnum;
+
+/**
+ * 应用在某种网络上的累计流量每跨过一次bytes的整数倍时通知，方法需有一个long参数接收累计字节数
+ * <p>需开启流量采样，见TrafficSampler</p>
+ *
+ * @since 2026-10-17
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface OnTrafficThreshold {
+    // 统计的网络类型，NETWORK_MOBILE统计所有移动网络，NETWORK_ANY统计全部
+    @NetworkType
+    int type() default NetworkTypeEnum.NETWORK_MOBILE;
+    // 流量阈值，字节(上行+下行)
+    long bytes();
+    ThreadMode threadMode() default ThreadMode.POSTING;
+}
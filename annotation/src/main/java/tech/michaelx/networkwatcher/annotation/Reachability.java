@@ -0,0 +1,22 @@
+package tech.michaelx.networkwatcher.annotation;
+
+import android.support.annotation.IntDef;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+import static tech.michaelx.networkwatcher.annotation.constant.ReachabilityEnum.REACHABILITY_CAPTIVE_PORTAL;
+import static tech.michaelx.networkwatcher.annotation.constant.ReachabilityEnum.REACHABILITY_UNKNOWN;
+import static tech.michaelx.networkwatcher.annotation.constant.ReachabilityEnum.REACHABILITY_UNREACHABLE;
+import static tech.michaelx.networkwatcher.annotation.constant.ReachabilityEnum.REACHABILITY_VALIDATED;
+
+/**
+ * @since 2026-10-17
+ */
+@IntDef({REACHABILITY_UNKNOWN, REACHABILITY_VALIDATED, REACHABILITY_CAPTIVE_PORTAL, REACHABILITY_UNREACHABLE})
+@Retention(RetentionPolicy.SOURCE)
+@Target({ElementType.METHOD, ElementType.PARAMETER})
+public @interface Reachability {
+}
@@ -0,0 +1,25 @@
+package tech.michaelx.networkwatcher.annotation;
+
+/**
+ * 网络监听方法的执行线程
+ *
+ * @since 2026-10-17
+ */
+public enum ThreadMode {
+    /**
+     * 在分发网络变化的线程直接调用，没有线程切换开销
+     */
+    POSTING,
+    /**
+     * 在主线程调用
+     */
+    MAIN,
+    /**
+     * 在唯一的后台线程调用，分发线程已是后台线程时直接调用
+     */
+    BACKGROUND,
+    /**
+     * 在线程池中调用，同一观察者的调用按顺序执行
+     */
+    ASYNC
+}
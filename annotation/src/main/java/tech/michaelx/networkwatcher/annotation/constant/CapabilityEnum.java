@@ -0,0 +1,14 @@
+package tech.michaelx.networkwatcher.annotation.constant;
+
+/**
+ * 网络能力位，可按位组合
+ *
+ * @since 2026-10-17
+ */
+public class CapabilityEnum {
+    public static final int CAPABILITY_METERED = 1;    // traffic is billed, e.g. mobile data or a metered hotspot
+    public static final int CAPABILITY_ROAMING = 1 << 1;    // mobile network is roaming
+    public static final int CAPABILITY_VPN = 1 << 2;    // default network goes through a VPN
+    public static final int CAPABILITY_VALIDATED = 1 << 3;    // system has validated internet access (API 23+)
+    public static final int CAPABILITY_DATA_SAVER = 1 << 4;    // Data Saver restricts this app in background (API 24+)
+}
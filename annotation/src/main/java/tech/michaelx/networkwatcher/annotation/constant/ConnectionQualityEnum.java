@@ -0,0 +1,12 @@
+package tech.michaelx.networkwatcher.annotation.constant;
+
+/**
+ * @since 2026-10-17
+ */
+public class ConnectionQualityEnum {
+    public static final int QUALITY_UNKNOWN = 0;    // no estimate yet
+    public static final int QUALITY_POOR = 1;    // < 150 kbps
+    public static final int QUALITY_MODERATE = 2;    // 150 - 550 kbps
+    public static final int QUALITY_GOOD = 3;    // 550 - 2000 kbps
+    public static final int QUALITY_EXCELLENT = 4;    // > 2000 kbps
+}
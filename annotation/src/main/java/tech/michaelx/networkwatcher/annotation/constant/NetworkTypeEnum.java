@@ -9,6 +9,8 @@ public class NetworkTypeEnum {
     public static final int NETWORK_2G = 2;    // "2G" networks
     public static final int NETWORK_3G = 3;    // "3G" networks
     public static final int NETWORK_4G = 4;    // "4G" networks
-    public static final int NETWORK_MOBILE = 5; // 2G/3G/4G networks
+    public static final int NETWORK_MOBILE = 5; // 2G/3G/4G/5G networks
     public static final int NETWORK_UNKNOWN = 6;    // unknown network
+    public static final int NETWORK_5G = 7;    // "5G" networks
+    public static final int NETWORK_ANY = 0;    // any network, only used in filters
 }
@@ -0,0 +1,11 @@
+package tech.michaelx.networkwatcher.annotation.constant;
+
+/**
+ * @since 2026-10-17
+ */
+public class ReachabilityEnum {
+    public static final int REACHABILITY_UNKNOWN = 0;    // not probed yet
+    public static final int REACHABILITY_VALIDATED = 1;    // internet actually works
+    public static final int REACHABILITY_CAPTIVE_PORTAL = 2;    // probe was answered by someone else, e.g. a login page
+    public static final int REACHABILITY_UNREACHABLE = 3;    // probe failed or timed out
+}
@@ -0,0 +1,81 @@
+package tech.michaelx.networkwatcher.lib;
+
+import tech.michaelx.networkwatcher.annotation.NetworkStateChanged;
+import tech.michaelx.networkwatcher.annotation.OnNetworkTypeChangedTo;
+import tech.michaelx.networkwatcher.annotation.constant.NetworkTypeEnum;
+
+/**
+ * 典型页面的观察者：5个监听方法加若干普通方法
+ * <p>分发器按观察者的实际类查找：{@link IndexedObserver}有生成的分发器，{@link ReflectiveObserver}走反射分发，
+ * 两者的监听方法完全相同</p>
+ *
+ * @since 2026-10-17
+ */
+public class BaseObserver {
+    int calls;
+
+    @NetworkStateChanged
+    void onNetworkStateChanged(int type) {
+        calls += type;
+    }
+
+    @OnNetworkTypeChangedTo(type = NetworkTypeEnum.NETWORK_WIFI)
+    void onWifi() {
+        calls++;
+    }
+
+    @OnNetworkTypeChangedTo(type = NetworkTypeEnum.NETWORK_MOBILE)
+    void onMobile() {
+        calls++;
+    }
+
+    @OnNetworkTypeChangedTo(type = NetworkTypeEnum.NETWORK_NO)
+    void onNoNetwork() {
+        calls++;
+    }
+
+    @OnNetworkTypeChangedTo(type = NetworkTypeEnum.NETWORK_4G)
+    void on4G() {
+        calls++;
+    }
+
+    void onCreate() {
+        calls++;
+    }
+
+    void onStart() {
+        calls++;
+    }
+
+    void onResume() {
+        calls++;
+    }
+
+    void onPause() {
+        calls++;
+    }
+
+    void onStop() {
+        calls++;
+    }
+
+    void onDestroy() {
+        calls++;
+    }
+
+    void render(int position) {
+        calls += position;
+    }
+
+    void bind(Object data) {
+        calls += data.hashCode();
+    }
+
+    String title() {
+        return "title";
+    }
+
+    boolean isEmpty() {
+        return calls == 0;
+    }
+}
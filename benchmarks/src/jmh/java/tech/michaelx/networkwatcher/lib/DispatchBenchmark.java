@@ -0,0 +1,67 @@
+package tech.michaelx.networkwatcher.lib;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 一次网络变化分发给N个观察者的开销，对比生成分发器与反射分发，以及开启耗时统计的开销
+ *
+ * @since 2026-10-17
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class DispatchBenchmark {
+    @Param({"1", "10", "100"})
+    public int observers;
+
+    @Param({"generated", "reflective"})
+    public String dispatcher;
+
+    @Param({"off", "on"})
+    public String metrics;
+
+    private NetworkStateWatcher mWatcher;
+    private BaseObserver[] mObservers;
+    private boolean mFlip;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        mWatcher = NetworkStateWatcher.getDefault();
+        mWatcher.init(new FakeContext());
+        mWatcher.setNetworkSource(new Fakes.NoopSource());
+        mWatcher.setClock(Fakes.CLOCK);
+        mWatcher.setMetrics("on".equals(metrics) ? new DispatchMetrics() : null);
+        mObservers = new BaseObserver[observers];
+        for (int i = 0; i < observers; i++) {
+            mObservers[i] = "generated".equals(dispatcher) ? new IndexedObserver() : new ReflectiveObserver();
+            mWatcher.registerObserver(mObservers[i], false);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        mWatcher.stopWatch();
+        mWatcher.setMetrics(null);
+        Dispatchers.clear();
+    }
+
+    /**
+     * 相同的网络状态不会重复分发，因此在WIFI与4G之间交替
+     */
+    @Benchmark
+    public void post() {
+        mFlip = !mFlip;
+        mWatcher.post(mFlip ? Fakes.WIFI : Fakes.LTE);
+    }
+}
@@ -0,0 +1,28 @@
+package tech.michaelx.networkwatcher.lib;
+
+import android.content.Context;
+import android.content.ContextWrapper;
+
+/**
+ * JVM上的Context替身，不提供任何系统服务
+ * <p>android-all中ConnectivityManager的静态初始化依赖native方法，无法在JVM上创建，
+ * 网络状态由基准测试直接构造{@link NetworkSnapshot}或NetworkInfo提供</p>
+ *
+ * @since 2026-10-17
+ */
+final class FakeContext extends ContextWrapper {
+
+    FakeContext() {
+        super(null);
+    }
+
+    @Override
+    public Context getApplicationContext() {
+        return this;
+    }
+
+    @Override
+    public Object getSystemService(String name) {
+        return null;
+    }
+}
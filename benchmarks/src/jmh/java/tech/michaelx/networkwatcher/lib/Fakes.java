@@ -0,0 +1,39 @@
+package tech.michaelx.networkwatcher.lib;
+
+import android.content.Context;
+
+/**
+ * 基准测试共用的替身对象
+ *
+ * @since 2026-10-17
+ */
+final class Fakes {
+    static final NetworkSnapshot WIFI = new NetworkSnapshot(1, 0, true, true, 0);
+    static final NetworkSnapshot LTE = new NetworkSnapshot(4, 13, true, true, 1);
+
+    /**
+     * JVM上没有{@link android.os.SystemClock}，用System.nanoTime()代替
+     */
+    static final Clock CLOCK = new Clock() {
+        @Override
+        long elapsedRealtime() {
+            return System.nanoTime() / 1000000;
+        }
+    };
+
+    private Fakes() {
+    }
+
+    /**
+     * 什么也不监听的网络变化来源，由基准测试直接调用post()
+     */
+    static final class NoopSource implements NetworkSource {
+        @Override
+        public void start(Context context, Callback callback) {
+        }
+
+        @Override
+        public void stop(Context context) {
+        }
+    }
+}
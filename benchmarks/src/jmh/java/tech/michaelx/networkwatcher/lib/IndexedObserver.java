@@ -0,0 +1,19 @@
+package tech.michaelx.networkwatcher.lib;
+
+import tech.michaelx.networkwatcher.annotation.OnNetworkTypeChangedTo;
+import tech.michaelx.networkwatcher.annotation.constant.NetworkTypeEnum;
+
+/**
+ * 有生成分发器的观察者
+ * <p>注解处理器只为声明了监听方法的类生成分发器，因此原样覆写一个父类的监听方法，监听方法与{@link ReflectiveObserver}相同</p>
+ *
+ * @since 2026-10-17
+ */
+public class IndexedObserver extends BaseObserver {
+
+    @Override
+    @OnNetworkTypeChangedTo(type = NetworkTypeEnum.NETWORK_4G)
+    void on4G() {
+        calls++;
+    }
+}
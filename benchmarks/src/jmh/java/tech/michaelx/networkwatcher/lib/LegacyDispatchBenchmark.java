@@ -0,0 +1,60 @@
+package tech.michaelx.networkwatcher.lib;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.concurrent.TimeUnit;
+
+import tech.michaelx.networkwatcher.annotation.NetworkStateChanged;
+import tech.michaelx.networkwatcher.annotation.OnNetworkTypeChangedTo;
+
+/**
+ * 最初每次分发都getDeclaredMethods扫描观察者的做法，作为{@link DispatchBenchmark}的对照
+ *
+ * @since 2026-10-17
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class LegacyDispatchBenchmark {
+    @Param({"1", "10", "100"})
+    public int observers;
+
+    private BaseObserver[] mObservers;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        mObservers = new BaseObserver[observers];
+        for (int i = 0; i < observers; i++) {
+            mObservers[i] = new BaseObserver();
+        }
+    }
+
+    @Benchmark
+    public void scanPerEvent() throws InvocationTargetException, IllegalAccessException {
+        int networkType = Fakes.WIFI.getType();
+        for (BaseObserver observer : mObservers) {
+            for (Method method : observer.getClass().getDeclaredMethods()) {
+                method.setAccessible(true);
+                OnNetworkTypeChangedTo typeChangedTo = method.getAnnotation(OnNetworkTypeChangedTo.class);
+                if (typeChangedTo != null && method.getParameterTypes().length == 0
+                        && typeChangedTo.type() == networkType) {
+                    method.invoke(observer);
+                }
+                NetworkStateChanged stateChanged = method.getAnnotation(NetworkStateChanged.class);
+                if (stateChanged != null && method.getParameterTypes().length == 1) {
+                    method.invoke(observer, networkType);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package tech.michaelx.networkwatcher.lib;
+
+import android.net.ConnectivityManager;
+import android.telephony.TelephonyManager;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 连接类型与制式到网络类型的换算开销
+ *
+ * @since 2026-10-17
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class NetworkTypeBenchmark {
+    private static final int[] TYPES = {
+            ConnectivityManager.TYPE_WIFI,
+            ConnectivityManager.TYPE_MOBILE,
+            ConnectivityManager.TYPE_MOBILE,
+            ConnectivityManager.TYPE_MOBILE,
+            ConnectivityManager.TYPE_MOBILE,
+            ConnectivityManager.TYPE_MOBILE,
+    };
+    private static final int[] SUBTYPES = {
+            0,
+            TelephonyManager.NETWORK_TYPE_LTE,
+            TelephonyManager.NETWORK_TYPE_HSPAP,
+            TelephonyManager.NETWORK_TYPE_EDGE,
+            // NR(20)
+            20,
+            // 厂商自定义的制式未识别，会走subtypeName字符串比较
+            30,
+    };
+    private static final String[] SUBTYPE_NAMES = {"", "LTE", "HSPA+", "EDGE", "NR", "TD-SCDMA"};
+
+    private int mIndex;
+
+    @Benchmark
+    public int getNetworkType() {
+        mIndex = (mIndex + 1) % TYPES.length;
+        return NetworkUtils.getNetworkType(TYPES[mIndex], SUBTYPES[mIndex], SUBTYPE_NAMES[mIndex]);
+    }
+}
@@ -0,0 +1,9 @@
+package tech.michaelx.networkwatcher.lib;
+
+/**
+ * 没有生成分发器的观察者，继承的监听方法通过反射调用
+ *
+ * @since 2026-10-17
+ */
+public class ReflectiveObserver extends BaseObserver {
+}
@@ -0,0 +1,54 @@
+package tech.michaelx.networkwatcher.lib;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 页面反复onStart/onStop时注册、注销观察者的开销
+ *
+ * @since 2026-10-17
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class RegistrationBenchmark {
+    @Param({"0", "100", "1000"})
+    public int registered;
+
+    private NetworkStateWatcher mWatcher;
+    private BaseObserver[] mRegistered;
+    private final IndexedObserver mObserver = new IndexedObserver();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        mWatcher = NetworkStateWatcher.getDefault();
+        mWatcher.init(new FakeContext());
+        mWatcher.setNetworkSource(new Fakes.NoopSource());
+        mRegistered = new BaseObserver[registered];
+        for (int i = 0; i < registered; i++) {
+            mRegistered[i] = new IndexedObserver();
+            mWatcher.registerObserver(mRegistered[i], false);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        mWatcher.stopWatch();
+    }
+
+    @Benchmark
+    public void registerAndUnregister() {
+        mWatcher.registerObserver(mObserver, false);
+        mWatcher.unRegisterObserver(mObserver);
+    }
+}
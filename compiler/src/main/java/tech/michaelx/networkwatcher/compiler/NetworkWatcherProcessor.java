@@ -0,0 +1,403 @@
+package tech.michaelx.networkwatcher.compiler;
+
+import com.squareup.javapoet.ArrayTypeName;
+import com.squareup.javapoet.ClassName;
+import com.squareup.javapoet.CodeBlock;
+import com.squareup.javapoet.FieldSpec;
+import com.squareup.javapoet.JavaFile;
+import com.squareup.javapoet.MethodSpec;
+import com.squareup.javapoet.ParameterizedTypeName;
+import com.squareup.javapoet.TypeName;
+import com.squareup.javapoet.TypeSpec;
+import com.squareup.javapoet.WildcardTypeName;
+
+import java.io.IOException;
+import java.lang.annotation.Annotation;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.Filer;
+import javax.annotation.processing.Messager;
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.annotation.processing.RoundEnvironment;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.lang.model.util.Elements;
+import javax.tools.Diagnostic;
+
+import tech.michaelx.networkwatcher.annotation.NetworkStateChanged;
+import tech.michaelx.networkwatcher.annotation.OnCapabilitiesChanged;
+import tech.michaelx.networkwatcher.annotation.OnConnectionQualityChanged;
+import tech.michaelx.networkwatcher.annotation.OnNetworkTransition;
+import tech.michaelx.networkwatcher.annotation.OnNetworkTypeChangedTo;
+import tech.michaelx.networkwatcher.annotation.OnReachabilityChanged;
+import tech.michaelx.networkwatcher.annotation.OnTrafficThreshold;
+import tech.michaelx.networkwatcher.annotation.ThreadMode;
+
+/**
+ * 为每个包含网络监听方法的类生成{@code Xxx_NetworkDispatcher}，运行时直接调用被注解的方法，避免反射
+ * <p>父类中可访问的监听方法一并生成。有private或不可访问的监听方法的类不生成，运行时退回反射调用，编译时给出警告</p>
+ *
+ * @since 2026-10-17
+ */
+public class NetworkWatcherProcessor extends AbstractProcessor {
+    private static final String LIB_PACKAGE = "tech.michaelx.networkwatcher.lib";
+    private static final String SUFFIX = "_NetworkDispatcher";
+    private static final ClassName OBSERVER_DISPATCHER = ClassName.get(LIB_PACKAGE, "ObserverDispatcher");
+    private static final ClassName SUBSCRIBER_METHOD = ClassName.get(LIB_PACKAGE, "SubscriberMethod");
+    private static final ClassName NETWORK_EVENT = ClassName.get(LIB_PACKAGE, "NetworkEvent");
+    private static final ClassName THREAD_MODE = ClassName.get(ThreadMode.class);
+
+    private static final List<Class<? extends Annotation>> ANNOTATIONS = Arrays.asList(
+            NetworkStateChanged.class, OnNetworkTypeChangedTo.class, OnConnectionQualityChanged.class,
+            OnTrafficThreshold.class, OnNetworkTransition.class, OnReachabilityChanged.class,
+            OnCapabilitiesChanged.class);
+
+    private Elements mElementUtils;
+    private Filer mFiler;
+    private Messager mMessager;
+
+    @Override
+    public synchronized void init(ProcessingEnvironment processingEnv) {
+        super.init(processingEnv);
+        mElementUtils = processingEnv.getElementUtils();
+        mFiler = processingEnv.getFiler();
+        mMessager = processingEnv.getMessager();
+    }
+
+    @Override
+    public Set<String> getSupportedAnnotationTypes() {
+        Set<String> types = new LinkedHashSet<>();
+        for (Class<? extends Annotation> annotation : ANNOTATIONS) {
+            types.add(annotation.getCanonicalName());
+        }
+        return types;
+    }
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        Set<TypeElement> observers = new LinkedHashSet<>();
+        boolean valid = true;
+        for (Class<? extends Annotation> annotation : ANNOTATIONS) {
+            for (Element element : roundEnv.getElementsAnnotatedWith(annotation)) {
+                ExecutableElement method = (ExecutableElement) element;
+                valid &= isValid(method);
+                observers.add((TypeElement) method.getEnclosingElement());
+            }
+        }
+        if (!valid) {
+            return false;
+        }
+
+        for (TypeElement observer : observers) {
+            if (observer.getModifiers().contains(Modifier.PRIVATE)) {
+                warning(observer, "%s is private, it will be dispatched by reflection.",
+                        observer.getQualifiedName());
+                continue;
+            }
+            List<Handler> handlers = collectHandlers(observer);
+            if (handlers == null) {
+                continue;
+            }
+            try {
+                brewJava(observer, handlers).writeTo(mFiler);
+            } catch (IOException e) {
+                error(observer, "Unable to write dispatcher for %s: %s", observer, e.getMessage());
+            }
+        }
+        return false;
+    }
+
+    private boolean isValid(ExecutableElement method) {
+        if (method.getModifiers().contains(Modifier.STATIC)) {
+            error(method, "Network watcher method must not be static.");
+            return false;
+        }
+        Element enclosing = method.getEnclosingElement();
+        if (enclosing.getKind() != ElementKind.CLASS) {
+            error(method, "Network watcher method must be declared in a class.");
+            return false;
+        }
+        List<? extends VariableElement> parameters = method.getParameters();
+        if (method.getAnnotation(NetworkStateChanged.class) != null
+                && (parameters.size() != 1 || parameters.get(0).asType().getKind() != TypeKind.INT)) {
+            error(method, "@NetworkStateChanged method must have exactly one int parameter.");
+            return false;
+        }
+        if (method.getAnnotation(OnNetworkTypeChangedTo.class) != null && !parameters.isEmpty()) {
+            error(method, "@OnNetworkTypeChangedTo method must have no parameters.");
+            return false;
+        }
+        if (method.getAnnotation(OnConnectionQualityChanged.class) != null
+                && (parameters.size() != 1 || parameters.get(0).asType().getKind() != TypeKind.INT)) {
+            error(method, "@OnConnectionQualityChanged method must have exactly one int parameter.");
+            return false;
+        }
+        OnTrafficThreshold trafficThreshold = method.getAnnotation(OnTrafficThreshold.class);
+        if (trafficThreshold != null) {
+            if (parameters.size() != 1 || parameters.get(0).asType().getKind() != TypeKind.LONG) {
+                error(method, "@OnTrafficThreshold method must have exactly one long parameter.");
+                return false;
+            }
+            if (trafficThreshold.bytes() <= 0) {
+                error(method, "@OnTrafficThreshold bytes must be positive.");
+                return false;
+            }
+        }
+        if (method.getAnnotation(OnReachabilityChanged.class) != null
+                && (parameters.size() != 1 || parameters.get(0).asType().getKind() != TypeKind.INT)) {
+            error(method, "@OnReachabilityChanged method must have exactly one int parameter.");
+            return false;
+        }
+        OnCapabilitiesChanged capabilitiesChanged = method.getAnnotation(OnCapabilitiesChanged.class);
+        if (capabilitiesChanged != null) {
+            if (parameters.size() != 1 || parameters.get(0).asType().getKind() != TypeKind.INT) {
+                error(method, "@OnCapabilitiesChanged method must have exactly one int parameter.");
+                return false;
+            }
+            if ((capabilitiesChanged.required() & capabilitiesChanged.forbidden()) != 0) {
+                error(method, "@OnCapabilitiesChanged required and forbidden must not overlap.");
+                return false;
+            }
+        }
+        if (method.getAnnotation(OnNetworkTransition.class) != null
+                && (parameters.size() != 3 || parameters.get(0).asType().getKind() != TypeKind.INT
+                || parameters.get(1).asType().getKind() != TypeKind.INT
+                || parameters.get(2).asType().getKind() != TypeKind.LONG)) {
+            error(method, "@OnNetworkTransition method must have (int from, int to, long dwellMillis) parameters.");
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * 收集类及其父类中被注解的方法，子类覆写的方法只保留一次
+     *
+     * @return 监听方法，有生成的分发器无法调用的方法时返回null
+     */
+    private List<Handler> collectHandlers(TypeElement observer) {
+        List<Handler> handlers = new ArrayList<>();
+        Set<String> signatures = new HashSet<>();
+        String packageName = mElementUtils.getPackageOf(observer).getQualifiedName().toString();
+        for (TypeElement type = observer; type != null && !isSystemType(type); type = superclassOf(type)) {
+            for (ExecutableElement method : ElementFilter.methodsIn(type.getEnclosedElements())) {
+                NetworkStateChanged stateChanged = method.getAnnotation(NetworkStateChanged.class);
+                OnNetworkTypeChangedTo typeChangedTo = method.getAnnotation(OnNetworkTypeChangedTo.class);
+                OnConnectionQualityChanged qualityChanged = method.getAnnotation(OnConnectionQualityChanged.class);
+                OnTrafficThreshold trafficThreshold = method.getAnnotation(OnTrafficThreshold.class);
+                OnNetworkTransition transition = method.getAnnotation(OnNetworkTransition.class);
+                OnReachabilityChanged reachabilityChanged = method.getAnnotation(OnReachabilityChanged.class);
+                OnCapabilitiesChanged capabilitiesChanged = method.getAnnotation(OnCapabilitiesChanged.class);
+                if (stateChanged == null && typeChangedTo == null && qualityChanged == null
+                        && trafficThreshold == null && transition == null && reachabilityChanged == null
+                        && capabilitiesChanged == null) {
+                    continue;
+                }
+                if (!signatures.add(signatureOf(method))) {
+                    continue;
+                }
+                if (!isAccessible(method, packageName)) {
+                    warning(observer, "Network watcher method %s.%s is not accessible from generated code, "
+                                    + "%s will be dispatched by reflection.",
+                            type.getQualifiedName(), method.getSimpleName(), observer.getQualifiedName());
+                    return null;
+                }
+                // 一个方法上的每个注解各生成一个监听方法，顺序与反射分发一致
+                if (stateChanged != null) {
+                    handlers.add(new Handler(method, "KIND_STATE_CHANGED", 0, stateChanged.notifyOnAppStart(),
+                            stateChanged.threadMode(), 0, "event.getType()"));
+                }
+                if (typeChangedTo != null) {
+                    handlers.add(new Handler(method, "KIND_TYPE_CHANGED_TO", typeChangedTo.type(),
+                            typeChangedTo.notifyOnAppStart(), typeChangedTo.threadMode(), 0, ""));
+                }
+                if (qualityChanged != null) {
+                    handlers.add(new Handler(method, "KIND_QUALITY_CHANGED", 0, false,
+                            qualityChanged.threadMode(), 0, "event.getQuality()"));
+                }
+                if (trafficThreshold != null) {
+                    handlers.add(new Handler(method, "KIND_TRAFFIC_THRESHOLD", trafficThreshold.type(), false,
+                            trafficThreshold.threadMode(), trafficThreshold.bytes(), "event.getTrafficBytes()"));
+                }
+                if (transition != null) {
+                    Handler handler = new Handler(method, "KIND_TRANSITION", transition.to(), false,
+                            transition.threadMode(), 0,
+                            "event.getPreviousType(), event.getType(), event.getDwellMillis()");
+                    handler.fromType = transition.from();
+                    handlers.add(handler);
+                }
+                if (reachabilityChanged != null) {
+                    handlers.add(new Handler(method, "KIND_REACHABILITY_CHANGED", 0, false,
+                            reachabilityChanged.threadMode(), 0, "event.getReachability()"));
+                }
+                if (capabilitiesChanged != null) {
+                    Handler handler = new Handler(method, "KIND_CAPABILITIES_CHANGED", 0,
+                            capabilitiesChanged.notifyOnAppStart(), capabilitiesChanged.threadMode(), 0,
+                            "event.getCapabilities()");
+                    handler.required = capabilitiesChanged.required();
+                    handler.forbidden = capabilitiesChanged.forbidden();
+                    handlers.add(handler);
+                }
+            }
+        }
+        return handlers;
+    }
+
+    private boolean isAccessible(ExecutableElement method, String packageName) {
+        Set<Modifier> modifiers = method.getModifiers();
+        if (modifiers.contains(Modifier.PRIVATE) || modifiers.contains(Modifier.STATIC)) {
+            return false;
+        }
+        if (modifiers.contains(Modifier.PUBLIC)) {
+            return true;
+        }
+        // 生成的分发器不是观察者的子类，protected方法与包私有方法一样只能在同一个包中调用
+        return mElementUtils.getPackageOf(method).getQualifiedName().contentEquals(packageName);
+    }
+
+    private static String signatureOf(ExecutableElement method) {
+        StringBuilder builder = new StringBuilder(method.getSimpleName()).append('(');
+        for (VariableElement parameter : method.getParameters()) {
+            builder.append(parameter.asType()).append(',');
+        }
+        return builder.append(')').toString();
+    }
+
+    private static TypeElement superclassOf(TypeElement type) {
+        TypeMirror superclass = type.getSuperclass();
+        if (superclass.getKind() != TypeKind.DECLARED) {
+            return null;
+        }
+        return (TypeElement) ((DeclaredType) superclass).asElement();
+    }
+
+    private static boolean isSystemType(TypeElement type) {
+        String name = type.getQualifiedName().toString();
+        return name.startsWith("java.") || name.startsWith("javax.")
+                || name.startsWith("android.") || name.startsWith("androidx.");
+    }
+
+    private JavaFile brewJava(TypeElement observer, List<Handler> handlers) {
+        String packageName = mElementUtils.getPackageOf(observer).getQualifiedName().toString();
+        String binaryName = mElementUtils.getBinaryName(observer).toString();
+        String className = binaryName.substring(packageName.isEmpty() ? 0 : packageName.length() + 1) + SUFFIX;
+        TypeName observerType = ClassName.get(observer);
+        if (!observer.getTypeParameters().isEmpty()) {
+            // 泛型观察者使用通配符，避免生成的代码中出现原始类型
+            TypeName[] arguments = new TypeName[observer.getTypeParameters().size()];
+            Arrays.fill(arguments, WildcardTypeName.subtypeOf(Object.class));
+            observerType = ParameterizedTypeName.get((ClassName) observerType, arguments);
+        }
+
+        CodeBlock.Builder methods = CodeBlock.builder().add("{\n").indent();
+        for (Handler handler : handlers) {
+            if ("KIND_TRANSITION".equals(handler.kind)) {
+                methods.add("$T.transition($L, $L, $T.$L),\n", SUBSCRIBER_METHOD, handler.fromType, handler.type,
+                        THREAD_MODE, handler.threadMode);
+            } else if ("KIND_CAPABILITIES_CHANGED".equals(handler.kind)) {
+                methods.add("$T.capabilities($L, $L, $L, $T.$L),\n", SUBSCRIBER_METHOD, handler.required,
+                        handler.forbidden, handler.notifyOnAppStart, THREAD_MODE, handler.threadMode);
+            } else if (handler.threshold > 0) {
+                methods.add("new $T($T.$L, $L, $L, $T.$L, $LL),\n", SUBSCRIBER_METHOD, SUBSCRIBER_METHOD,
+                        handler.kind, handler.type, handler.notifyOnAppStart, THREAD_MODE, handler.threadMode,
+                        handler.threshold);
+            } else {
+                methods.add("new $T($T.$L, $L, $L, $T.$L),\n", SUBSCRIBER_METHOD, SUBSCRIBER_METHOD,
+                        handler.kind, handler.type, handler.notifyOnAppStart, THREAD_MODE, handler.threadMode);
+            }
+        }
+        methods.unindent().add("}");
+        FieldSpec methodsField = FieldSpec.builder(ArrayTypeName.of(SUBSCRIBER_METHOD), "METHODS",
+                Modifier.PRIVATE, Modifier.STATIC, Modifier.FINAL)
+                .initializer(methods.build())
+                .build();
+
+        MethodSpec getSubscriberMethods = MethodSpec.methodBuilder("getSubscriberMethods")
+                .addAnnotation(Override.class)
+                .addModifiers(Modifier.PUBLIC)
+                .returns(ArrayTypeName.of(SUBSCRIBER_METHOD))
+                .addStatement("return METHODS")
+                .build();
+
+        MethodSpec.Builder dispatch = MethodSpec.methodBuilder("dispatch")
+                .addAnnotation(Override.class)
+                .addModifiers(Modifier.PUBLIC)
+                .addParameter(observerType, "observer")
+                .addParameter(TypeName.INT, "index")
+                .addParameter(NETWORK_EVENT, "event")
+                .beginControlFlow("switch (index)");
+        for (int i = 0; i < handlers.size(); i++) {
+            Handler handler = handlers.get(i);
+            String name = handler.method.getSimpleName().toString();
+            dispatch.addStatement("case $L: observer.$N($L); break", i, name, handler.arguments);
+        }
+        dispatch.endControlFlow();
+
+        TypeSpec dispatcher = TypeSpec.classBuilder(className)
+                .addModifiers(Modifier.PUBLIC, Modifier.FINAL)
+                .addSuperinterface(ParameterizedTypeName.get(OBSERVER_DISPATCHER, observerType))
+                .addField(methodsField)
+                .addMethod(getSubscriberMethods)
+                .addMethod(dispatch.build())
+                .build();
+        return JavaFile.builder(packageName, dispatcher)
+                .addFileComment("Generated code from NetworkWatcher. Do not modify!")
+                .build();
+    }
+
+    private void error(Element element, String message, Object... args) {
+        mMessager.printMessage(Diagnostic.Kind.ERROR, String.format(message, args), element);
+    }
+
+    private void warning(Element element, String message, Object... args) {
+        mMessager.printMessage(Diagnostic.Kind.WARNING, String.format(message, args), element);
+    }
+
+    private static final class Handler {
+        final ExecutableElement method;
+        final String kind;
+        final int type;
+        final boolean notifyOnAppStart;
+        final ThreadMode threadMode;
+        final long threshold;
+        // 仅网络切换方法有效
+        int fromType;
+        // 仅能力变化方法有效
+        int required;
+        int forbidden;
+        /**
+         * 调用监听方法时传入的实参表达式
+         */
+        final String arguments;
+
+        Handler(ExecutableElement method, String kind, int type, boolean notifyOnAppStart, ThreadMode threadMode,
+                long threshold, String arguments) {
+            this.method = method;
+            this.kind = kind;
+            this.type = type;
+            this.notifyOnAppStart = notifyOnAppStart;
+            this.threadMode = threadMode;
+            this.threshold = threshold;
+            this.arguments = arguments;
+        }
+    }
+}
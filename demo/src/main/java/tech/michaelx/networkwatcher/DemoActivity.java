@@ -21,27 +21,8 @@ public class DemoActivity extends AppCompatActivity {
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
         setContentView(R.layout.activity_main);
-    }
-
-    @Override
-    protected void onStart() {
-        super.onStart();
-        // 注册网络监听
-        NetworkStateWatcher.getDefault().registerObserver(DemoActivity.this);
-    }
-
-    @Override
-    protected void onStop() {
-        super.onStop();
-        // 注销网络监听
-        NetworkStateWatcher.getDefault().unRegisterObserver(this);
-    }
-
-    @Override
-    protected void onDestroy() {
-        super.onDestroy();
-        // 在app主界面/栈中最后一个Activity停止网络监听
-        NetworkStateWatcher.getDefault().stopWatch();
+        // onStart时注册、onStop时注销网络监听，最后一个观察者注销后自动停止网络监听
+        NetworkStateWatcher.getDefault().watch(this, this);
     }
 
     /**
@@ -16,19 +16,7 @@ public class OtherActivity extends AppCompatActivity {
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
         setContentView(R.layout.activity_main);
-
-    }
-
-    @Override
-    protected void onStart() {
-        super.onStart();
-        NetworkStateWatcher.getDefault().registerObserver(OtherActivity.this);
-    }
-
-    @Override
-    protected void onStop() {
-        super.onStop();
-        NetworkStateWatcher.getDefault().unRegisterObserver(this);
+        NetworkStateWatcher.getDefault().watch(this, this);
     }
 
     @OnNetworkTypeChangedTo(type = NETWORK_WIFI)
@@ -19,3 +19,20 @@
 # If you keep the line number information, uncomment this to
 # hide the original source file name.
 #-renamesourcefileattribute SourceFile
+
+# 注解处理器生成的分发器通过类名查找
+-keep class * implements tech.michaelx.networkwatcher.lib.ObserverDispatcher { <init>(); }
+# 分发器的类名由观察者类名加后缀得到，观察者类名不能混淆
+-keepclasseswithmembernames class * {
+    @tech.michaelx.networkwatcher.annotation.* <methods>;
+}
+# 未生成分发器的类通过反射调用被注解的方法
+-keepclassmembers class * {
+    @tech.michaelx.networkwatcher.annotation.NetworkStateChanged <methods>;
+    @tech.michaelx.networkwatcher.annotation.OnNetworkTypeChangedTo <methods>;
+    @tech.michaelx.networkwatcher.annotation.OnConnectionQualityChanged <methods>;
+    @tech.michaelx.networkwatcher.annotation.OnTrafficThreshold <methods>;
+    @tech.michaelx.networkwatcher.annotation.OnNetworkTransition <methods>;
+    @tech.michaelx.networkwatcher.annotation.OnReachabilityChanged <methods>;
+    @tech.michaelx.networkwatcher.annotation.OnCapabilitiesChanged <methods>;
+}
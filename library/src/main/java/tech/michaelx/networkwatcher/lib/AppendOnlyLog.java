@@ -0,0 +1,193 @@
+package tech.michaelx.networkwatcher.lib;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * 只追加写入的持久化日志，记录请求的入队(ADD)与完成(ACK)
+ * <p>每条记录为 op(1) | id(8) | length(4) | payload | crc32(4)。进程在写入中途被杀时，
+ * 加载时丢弃并截断末尾不完整的记录；完成的记录多于一定比例时重写文件压缩</p>
+ *
+ * @since 2026-10-17
+ */
+final class AppendOnlyLog implements Closeable {
+    private static final byte OP_ADD = 1;
+    private static final byte OP_ACK = 2;
+    private static final int MIN_RECORDS_TO_COMPACT = 64;
+
+    private final File mFile;
+    private FileOutputStream mFileOut;
+    private DataOutputStream mOut;
+    private int mRecords;
+
+    AppendOnlyLog(File file) {
+        mFile = file;
+    }
+
+    /**
+     * 回放日志
+     *
+     * @return 还未完成的记录，按入队顺序
+     */
+    synchronized LinkedHashMap<Long, byte[]> load() throws IOException {
+        LinkedHashMap<Long, byte[]> live = new LinkedHashMap<>();
+        mRecords = 0;
+        if (mFile.exists()) {
+            long valid = 0;
+            DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(mFile)));
+            try {
+                CRC32 crc = new CRC32();
+                for (; ; ) {
+                    byte op = in.readByte();
+                    long id = in.readLong();
+                    int length = in.readInt();
+                    if ((op != OP_ADD && op != OP_ACK) || length < 0 || length > mFile.length()) {
+                        break;
+                    }
+                    byte[] payload = new byte[length];
+                    in.readFully(payload);
+                    if (in.readInt() != checksum(crc, op, id, payload)) {
+                        break;
+                    }
+                    if (op == OP_ADD) {
+                        live.put(id, payload);
+                    } else {
+                        live.remove(id);
+                    }
+                    mRecords++;
+                    valid += 1 + 8 + 4 + length + 4;
+                }
+            } catch (EOFException e) {
+                // 末尾的记录不完整
+            } finally {
+                in.close();
+            }
+            if (valid < mFile.length()) {
+                truncate(valid);
+            }
+        }
+        openForAppend();
+        return live;
+    }
+
+    synchronized void add(long id, byte[] payload) throws IOException {
+        write(OP_ADD, id, payload);
+        // 入队的请求需要落盘，完成记录丢失只会导致重复执行
+        mFileOut.getFD().sync();
+    }
+
+    /**
+     * 写入完成记录，已关闭时忽略，下次加载后请求会再次执行
+     */
+    synchronized void ack(long id) throws IOException {
+        if (mOut == null) {
+            return;
+        }
+        write(OP_ACK, id, new byte[0]);
+    }
+
+    /**
+     * 完成的记录较多时只保留还未完成的记录重写日志，已关闭时不压缩
+     *
+     * @param live 还未完成的记录
+     */
+    synchronized void compactIfNeeded(Map<Long, byte[]> live) throws IOException {
+        if (mOut == null || mRecords < MIN_RECORDS_TO_COMPACT || mRecords < live.size() * 2) {
+            return;
+        }
+        File tmp = new File(mFile.getPath() + ".tmp");
+        FileOutputStream fileOut = new FileOutputStream(tmp);
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(fileOut));
+        try {
+            CRC32 crc = new CRC32();
+            for (Map.Entry<Long, byte[]> entry : live.entrySet()) {
+                writeRecord(out, crc, OP_ADD, entry.getKey(), entry.getValue());
+            }
+            out.flush();
+            fileOut.getFD().sync();
+        } finally {
+            out.close();
+        }
+        close();
+        if (!tmp.renameTo(mFile)) {
+            // 原文件未被替换，继续追加到原文件
+            tmp.delete();
+            openForAppend();
+            throw new IOException("Unable to replace " + mFile);
+        }
+        mRecords = live.size();
+        openForAppend();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (mOut != null) {
+            mOut.close();
+            mOut = null;
+            mFileOut = null;
+        }
+    }
+
+    private void write(byte op, long id, byte[] payload) throws IOException {
+        if (mOut == null) {
+            throw new IOException("Log is not loaded or already closed.");
+        }
+        writeRecord(mOut, new CRC32(), op, id, payload);
+        mOut.flush();
+        mRecords++;
+    }
+
+    private static void writeRecord(DataOutputStream out, CRC32 crc, byte op, long id, byte[] payload)
+            throws IOException {
+        // 先拼成一整块再写入，减少写到一半的情况
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(1 + 8 + 4 + payload.length + 4);
+        DataOutputStream record = new DataOutputStream(buffer);
+        record.writeByte(op);
+        record.writeLong(id);
+        record.writeInt(payload.length);
+        record.write(payload);
+        record.writeInt(checksum(crc, op, id, payload));
+        buffer.writeTo(out);
+    }
+
+    private static int checksum(CRC32 crc, byte op, long id, byte[] payload) {
+        crc.reset();
+        crc.update(op);
+        for (int shift = 56; shift >= 0; shift -= 8) {
+            crc.update((int) (id >>> shift));
+        }
+        crc.update(payload, 0, payload.length);
+        return (int) crc.getValue();
+    }
+
+    private void truncate(long length) throws IOException {
+        RandomAccessFile file = new RandomAccessFile(mFile, "rw");
+        try {
+            file.setLength(length);
+        } finally {
+            file.close();
+        }
+    }
+
+    private void openForAppend() throws IOException {
+        File parent = mFile.getParentFile();
+        if (parent != null && !parent.exists() && !parent.mkdirs()) {
+            throw new IOException("Unable to create " + parent);
+        }
+        mFileOut = new FileOutputStream(mFile, true);
+        mOut = new DataOutputStream(new BufferedOutputStream(mFileOut));
+    }
+}
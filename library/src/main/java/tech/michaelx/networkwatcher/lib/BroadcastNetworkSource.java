@@ -0,0 +1,45 @@
+package tech.michaelx.networkwatcher.lib;
+
+import android.content.Context;
+import android.content.IntentFilter;
+import android.net.ConnectivityManager;
+import android.os.Build;
+
+/**
+ * 基于{@link ConnectivityManager#CONNECTIVITY_ACTION}广播的网络变化来源，用于API 24以下
+ * <p>在API 24及以上使用时同时监听流量节省程序的开关</p>
+ *
+ * @since 2026-10-17
+ */
+public final class BroadcastNetworkSource implements NetworkSource {
+    private NetworkStateReceiver mReceiver;
+    private RestrictBackgroundReceiver mRestrictBackgroundReceiver;
+
+    @Override
+    public void start(Context context, Callback callback) {
+        if (mReceiver != null) {
+            return;
+        }
+        mReceiver = new NetworkStateReceiver(callback);
+        IntentFilter filter = new IntentFilter();
+        filter.addAction(ConnectivityManager.CONNECTIVITY_ACTION);
+        context.registerReceiver(mReceiver, filter);
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.N) {
+            mRestrictBackgroundReceiver = new RestrictBackgroundReceiver(callback);
+            mRestrictBackgroundReceiver.register(context);
+        }
+    }
+
+    @Override
+    public void stop(Context context) {
+        if (mReceiver == null) {
+            return;
+        }
+        context.unregisterReceiver(mReceiver);
+        mReceiver = null;
+        if (mRestrictBackgroundReceiver != null) {
+            mRestrictBackgroundReceiver.unregister(context);
+            mRestrictBackgroundReceiver = null;
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package tech.michaelx.networkwatcher.lib;
+
+import android.annotation.TargetApi;
+import android.content.Context;
+import android.net.ConnectivityManager;
+import android.net.Network;
+import android.net.NetworkCapabilities;
+import android.net.NetworkInfo;
+import android.os.Build;
+import android.os.Handler;
+import android.os.Looper;
+
+import static tech.michaelx.networkwatcher.annotation.constant.NetworkTypeEnum.NETWORK_UNKNOWN;
+import static tech.michaelx.networkwatcher.annotation.constant.NetworkTypeEnum.NETWORK_WIFI;
+
+/**
+ * 基于{@link ConnectivityManager.NetworkCallback}的网络变化来源，用于API 24及以上
+ * <p>直接使用回调携带的{@link NetworkCapabilities}换算网络类型，只有蜂窝网络需要再查一次制式</p>
+ *
+ * @since 2026-10-17
+ */
+@TargetApi(Build.VERSION_CODES.N)
+public final class CallbackNetworkSource implements NetworkSource {
+    private final Handler mMainHandler = new Handler(Looper.getMainLooper());
+    private ConnectivityManager mConnectivityManager;
+    private ConnectivityManager.NetworkCallback mNetworkCallback;
+    private RestrictBackgroundReceiver mRestrictBackgroundReceiver;
+    private Callback mCallback;
+    private Context mContext;
+    private NetworkSnapshot mLastSnapshot;
+    private Network mLastNetwork;
+
+    @Override
+    public void start(Context context, Callback callback) {
+        if (mNetworkCallback != null) {
+            return;
+        }
+        mConnectivityManager = (ConnectivityManager) context.getSystemService(Context.CONNECTIVITY_SERVICE);
+        if (mConnectivityManager == null) {
+            return;
+        }
+        mContext = context;
+        mCallback = callback;
+        mNetworkCallback = new ConnectivityManager.NetworkCallback() {
+            @Override
+            public void onAvailable(Network network) {
+                // API 26起切换默认网络后一定会回调onCapabilitiesChanged，之前不保证，主动查询一次
+                if (Build.VERSION.SDK_INT < Build.VERSION_CODES.O) {
+                    NetworkCapabilities capabilities = mConnectivityManager.getNetworkCapabilities(network);
+                    if (capabilities != null) {
+                        onCapabilitiesChanged(network, capabilities);
+                    }
+                }
+            }
+
+            @Override
+            public void onCapabilitiesChanged(Network network, NetworkCapabilities capabilities) {
+                if (!network.equals(mLastNetwork)) {
+                    // 切换到新网络时重新查询一次流量节省程序，同一网络的能力变化只用回调携带的能力
+                    mLastNetwork = network;
+                    NetworkUtils.refreshDataSaverCapabilityIfCached(mConnectivityManager);
+                }
+                ConnectionQualityEstimator.getDefault().onLinkBandwidthChanged(
+                        capabilities.getLinkDownstreamBandwidthKbps(), capabilities.getLinkUpstreamBandwidthKbps());
+                post(toSnapshot(network, capabilities));
+            }
+
+            @Override
+            public void onLost(Network network) {
+                // 已切换到新网络后迟到的旧网络断开不影响当前网络
+                if (!network.equals(mLastNetwork)) {
+                    return;
+                }
+                mLastNetwork = null;
+                int dataSaver = NetworkUtils.getDataSaverCapability(mConnectivityManager);
+                post(NetworkSnapshot.NONE.withCapabilities(dataSaver));
+            }
+        };
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
+            mConnectivityManager.registerDefaultNetworkCallback(mNetworkCallback, mMainHandler);
+        } else {
+            mConnectivityManager.registerDefaultNetworkCallback(mNetworkCallback);
+        }
+        // 流量节省程序的开关不会引起网络变化，单独监听
+        mRestrictBackgroundReceiver = new RestrictBackgroundReceiver(new Callback() {
+            @Override
+            public void onNetworkChanged(NetworkSnapshot snapshot) {
+                post(snapshot);
+            }
+        });
+        mRestrictBackgroundReceiver.register(context);
+    }
+
+    @Override
+    public void stop(Context context) {
+        if (mNetworkCallback == null) {
+            return;
+        }
+        mConnectivityManager.unregisterNetworkCallback(mNetworkCallback);
+        mRestrictBackgroundReceiver.unregister(context);
+        mRestrictBackgroundReceiver = null;
+        mNetworkCallback = null;
+        mCallback = null;
+        mLastSnapshot = null;
+        mLastNetwork = null;
+    }
+
+    private void post(final NetworkSnapshot snapshot) {
+        if (Looper.myLooper() == Looper.getMainLooper()) {
+            dispatch(snapshot);
+            return;
+        }
+        mMainHandler.post(new Runnable() {
+            @Override
+            public void run() {
+                dispatch(snapshot);
+            }
+        });
+    }
+
+    private void dispatch(NetworkSnapshot snapshot) {
+        Callback callback = mCallback;
+        // 同一网络的能力变化(如信号强度)不重复通知
+        if (callback == null || snapshot.equals(mLastSnapshot)) {
+            return;
+        }
+        mLastSnapshot = snapshot;
+        callback.onNetworkChanged(snapshot);
+    }
+
+    private NetworkSnapshot toSnapshot(Network network, NetworkCapabilities capabilities) {
+        boolean connected = capabilities.hasCapability(NetworkCapabilities.NET_CAPABILITY_INTERNET);
+        OperatorResolver.Subscription data = OperatorResolver.getDefault().getDataSubscription(mContext);
+        int operator = data == null ? OperatorResolver.OPERATOR_UNKNOWN : data.getOperator();
+        int plmn = data == null ? 0 : data.getPlmn();
+        if (capabilities.hasTransport(NetworkCapabilities.TRANSPORT_WIFI)) {
+            return new NetworkSnapshot(NETWORK_WIFI, 0, connected, true, operator, plmn,
+                    NetworkUtils.getCapabilities(capabilities, null));
+        }
+        if (capabilities.hasTransport(NetworkCapabilities.TRANSPORT_CELLULAR)) {
+            // 能力信息里没有蜂窝制式，需查询一次以区分2G/3G/4G
+            NetworkInfo info = mConnectivityManager.getNetworkInfo(network);
+            if (info != null) {
+                return new NetworkSnapshot(NetworkUtils.getNetworkType(info), info.getSubtype(), connected,
+                        info.isAvailable(), operator, plmn,
+                        NetworkUtils.getCapabilities(capabilities, info));
+            }
+        }
+        return new NetworkSnapshot(NETWORK_UNKNOWN, 0, connected, true, operator, plmn,
+                NetworkUtils.getCapabilities(capabilities, null));
+    }
+}
@@ -0,0 +1,22 @@
+package tech.michaelx.networkwatcher.lib;
+
+import android.os.SystemClock;
+
+/**
+ * 分发时使用的时钟，便于在JVM上用替身替换{@link SystemClock}
+ *
+ * @since 2026-10-17
+ */
+abstract class Clock {
+    static final Clock SYSTEM = new Clock() {
+        @Override
+        long elapsedRealtime() {
+            return SystemClock.elapsedRealtime();
+        }
+    };
+
+    /**
+     * @return 开机以来的毫秒数，含休眠时间
+     */
+    abstract long elapsedRealtime();
+}
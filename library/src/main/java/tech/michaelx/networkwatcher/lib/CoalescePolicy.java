@@ -0,0 +1,31 @@
+package tech.michaelx.networkwatcher.lib;
+
+/**
+ * 网络变化合并策略，网络抖动时短时间内的多次变化只分发一次
+ *
+ * @since 2026-10-17
+ */
+public final class CoalescePolicy {
+    /**
+     * 不合并，每次变化立即分发
+     */
+    public static final CoalescePolicy NONE = new CoalescePolicy(0, 0, false);
+
+    final long quietPeriodMillis;
+    final long maxLatencyMillis;
+    final boolean dropDuplicateType;
+
+    /**
+     * @param quietPeriodMillis 静默窗口，最后一次变化后这么久没有新变化才分发，0表示不等待
+     * @param maxLatencyMillis  第一次变化到分发的最长等待时间，持续抖动时也保证按时分发，0表示不限制
+     * @param dropDuplicateType 网络及能力位都与上次分发的相同时不再分发，只有能力变化时仍然分发
+     */
+    public CoalescePolicy(long quietPeriodMillis, long maxLatencyMillis, boolean dropDuplicateType) {
+        if (quietPeriodMillis < 0 || maxLatencyMillis < 0) {
+            throw new IllegalArgumentException("quietPeriodMillis and maxLatencyMillis must not be negative!");
+        }
+        this.quietPeriodMillis = quietPeriodMillis;
+        this.maxLatencyMillis = maxLatencyMillis;
+        this.dropDuplicateType = dropDuplicateType;
+    }
+}
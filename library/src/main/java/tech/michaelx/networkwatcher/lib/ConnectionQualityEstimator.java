@@ -0,0 +1,216 @@
+package tech.michaelx.networkwatcher.lib;
+
+import static tech.michaelx.networkwatcher.annotation.constant.ConnectionQualityEnum.QUALITY_EXCELLENT;
+import static tech.michaelx.networkwatcher.annotation.constant.ConnectionQualityEnum.QUALITY_GOOD;
+import static tech.michaelx.networkwatcher.annotation.constant.ConnectionQualityEnum.QUALITY_MODERATE;
+import static tech.michaelx.networkwatcher.annotation.constant.ConnectionQualityEnum.QUALITY_POOR;
+import static tech.michaelx.networkwatcher.annotation.constant.ConnectionQualityEnum.QUALITY_UNKNOWN;
+import static tech.michaelx.networkwatcher.annotation.constant.NetworkTypeEnum.NETWORK_2G;
+import static tech.michaelx.networkwatcher.annotation.constant.NetworkTypeEnum.NETWORK_3G;
+
+/**
+ * 连接质量估算
+ * <p>综合系统上报的链路带宽({@link android.net.NetworkCapabilities}，API 24及以上)与业务请求被动采样的吞吐量、RTT，
+ * 样本用EWMA平滑；被动样本足够时以实测为准。网络切换后清空被动样本重新估算，链路带宽以系统最近一次上报为准</p>
+ * <p>等级变化按发生的顺序通知，并发上报样本时不会先通知新等级再通知旧等级</p>
+ * <p>网络库在每次请求完成后调用{@link #addThroughputSample(long, long)}和{@link #addRttSample(long)}即可</p>
+ *
+ * @since 2026-10-17
+ */
+public final class ConnectionQualityEstimator {
+    /**
+     * 至少这么多个吞吐量样本才以实测为准
+     */
+    static final int MIN_SAMPLES = 3;
+    private static final double ALPHA = 0.3;
+    /**
+     * 小于这么多字节的请求主要耗在握手上，不计入吞吐量
+     */
+    private static final long MIN_SAMPLE_BYTES = 10 * 1024;
+
+    private static final ConnectionQualityEstimator sEstimator = new ConnectionQualityEstimator();
+
+    private final EwmaAverage mThroughput = new EwmaAverage(ALPHA);
+    private final EwmaAverage mRtt = new EwmaAverage(ALPHA);
+    // 串行通知监听器，持有期间不持有this，查询不受通知阻塞
+    private final Object mNotifyLock = new Object();
+    private int mLinkDownstreamKbps;
+    private int mLinkUpstreamKbps;
+    private int mNetworkType;
+    private int mQuality = QUALITY_UNKNOWN;
+    // 等级每变化一次加一，已通知过更新的等级时丢弃旧的通知
+    private long mGeneration;
+    private long mNotifiedGeneration;
+    private Listener mListener;
+
+    private ConnectionQualityEstimator() {
+    }
+
+    public static ConnectionQualityEstimator getDefault() {
+        return sEstimator;
+    }
+
+    /**
+     * 记录一次请求的下行吞吐量
+     *
+     * @param bytes          接收的字节数
+     * @param durationMillis 接收耗时，毫秒
+     */
+    public void addThroughputSample(long bytes, long durationMillis) {
+        if (bytes < MIN_SAMPLE_BYTES || durationMillis <= 0) {
+            return;
+        }
+        synchronized (this) {
+            // bytes * 8 / 1000 / (durationMillis / 1000)
+            mThroughput.add(bytes * 8.0 / durationMillis);
+        }
+        update();
+    }
+
+    /**
+     * 记录一次请求的往返时延，如TTFB
+     *
+     * @param rttMillis 往返时延，毫秒
+     */
+    public void addRttSample(long rttMillis) {
+        if (rttMillis <= 0) {
+            return;
+        }
+        synchronized (this) {
+            mRtt.add(rttMillis);
+        }
+        update();
+    }
+
+    /**
+     * 系统上报的链路带宽，0表示未知
+     */
+    void onLinkBandwidthChanged(int downstreamKbps, int upstreamKbps) {
+        synchronized (this) {
+            mLinkDownstreamKbps = Math.max(0, downstreamKbps);
+            mLinkUpstreamKbps = Math.max(0, upstreamKbps);
+        }
+        update();
+    }
+
+    /**
+     * 网络类型变化，旧网络的被动样本作废。链路带宽由系统按新网络重新上报，可能早于本方法到达，因此保留
+     */
+    void onNetworkChanged(int networkType) {
+        synchronized (this) {
+            if (networkType == mNetworkType) {
+                return;
+            }
+            mNetworkType = networkType;
+            mThroughput.clear();
+            mRtt.clear();
+        }
+        update();
+    }
+
+    /**
+     * @return 下行带宽估算值，kbps，0表示未知
+     */
+    public synchronized int getDownstreamKbps() {
+        if (mThroughput.count() >= MIN_SAMPLES) {
+            return (int) mThroughput.average();
+        }
+        return mLinkDownstreamKbps;
+    }
+
+    /**
+     * @return 系统上报的上行带宽，kbps，0表示未知
+     */
+    public synchronized int getUpstreamKbps() {
+        return mLinkUpstreamKbps;
+    }
+
+    /**
+     * @return 往返时延估算值，毫秒，0表示未知
+     */
+    public synchronized long getRttMillis() {
+        return (long) mRtt.average();
+    }
+
+    /**
+     * @return 连接质量等级，见{@link tech.michaelx.networkwatcher.annotation.constant.ConnectionQualityEnum}
+     */
+    public synchronized int getQuality() {
+        return mQuality;
+    }
+
+    synchronized void setListener(Listener listener) {
+        mListener = listener;
+    }
+
+    private void update() {
+        Listener listener;
+        int quality;
+        long generation;
+        synchronized (this) {
+            quality = estimate();
+            if (quality == mQuality) {
+                return;
+            }
+            mQuality = quality;
+            generation = ++mGeneration;
+            listener = mListener;
+        }
+        if (listener == null) {
+            return;
+        }
+        synchronized (mNotifyLock) {
+            // 其他线程已通知了之后的等级，这次的等级已过时
+            if (generation < mNotifiedGeneration) {
+                return;
+            }
+            mNotifiedGeneration = generation;
+            listener.onQualityChanged(quality);
+        }
+    }
+
+    private int estimate() {
+        int quality = classifyBandwidth(getDownstreamKbps());
+        if (quality == QUALITY_UNKNOWN) {
+            // 没有带宽数据时按制式粗略估计
+            if (mNetworkType == NETWORK_2G) {
+                quality = QUALITY_POOR;
+            } else if (mNetworkType == NETWORK_3G) {
+                quality = QUALITY_MODERATE;
+            }
+        }
+        if (mRtt.count() > 0) {
+            int rttQuality = classifyRtt((long) mRtt.average());
+            quality = quality == QUALITY_UNKNOWN ? rttQuality : Math.min(quality, rttQuality);
+        }
+        return quality;
+    }
+
+    static int classifyBandwidth(int kbps) {
+        if (kbps <= 0) {
+            return QUALITY_UNKNOWN;
+        } else if (kbps < 150) {
+            return QUALITY_POOR;
+        } else if (kbps < 550) {
+            return QUALITY_MODERATE;
+        } else if (kbps < 2000) {
+            return QUALITY_GOOD;
+        }
+        return QUALITY_EXCELLENT;
+    }
+
+    static int classifyRtt(long rttMillis) {
+        if (rttMillis > 1000) {
+            return QUALITY_POOR;
+        } else if (rttMillis > 400) {
+            return QUALITY_MODERATE;
+        } else if (rttMillis > 150) {
+            return QUALITY_GOOD;
+        }
+        return QUALITY_EXCELLENT;
+    }
+
+    interface Listener {
+        void onQualityChanged(int quality);
+    }
+}
@@ -0,0 +1,217 @@
+package tech.michaelx.networkwatcher.lib;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import tech.michaelx.networkwatcher.annotation.NetworkType;
+
+import static tech.michaelx.networkwatcher.annotation.constant.NetworkTypeEnum.NETWORK_2G;
+import static tech.michaelx.networkwatcher.annotation.constant.NetworkTypeEnum.NETWORK_3G;
+import static tech.michaelx.networkwatcher.annotation.constant.NetworkTypeEnum.NETWORK_4G;
+import static tech.michaelx.networkwatcher.annotation.constant.NetworkTypeEnum.NETWORK_5G;
+import static tech.michaelx.networkwatcher.annotation.constant.NetworkTypeEnum.NETWORK_NO;
+import static tech.michaelx.networkwatcher.annotation.constant.NetworkTypeEnum.NETWORK_WIFI;
+
+/**
+ * 网络变化轨迹，由{@link TraceNetworkSource}回放
+ * <p>每一步为与上一步的间隔及变化后的网络状态。可以用{@link Builder}构造、使用内置的典型场景，
+ * 或从{@link NetworkHistory}中取出线上记录的一段</p>
+ *
+ * @since 2026-10-17
+ */
+public final class ConnectivityTrace {
+    final long[] mDelays;
+    final NetworkSnapshot[] mSnapshots;
+
+    private ConnectivityTrace(long[] delays, NetworkSnapshot[] snapshots) {
+        mDelays = delays;
+        mSnapshots = snapshots;
+    }
+
+    /**
+     * @return 步数
+     */
+    public int size() {
+        return mSnapshots.length;
+    }
+
+    /**
+     * @return 按原速回放的总时长，毫秒
+     */
+    public long getDurationMillis() {
+        long total = 0;
+        for (long delay : mDelays) {
+            total += delay;
+        }
+        return total;
+    }
+
+    /**
+     * 网络状态真正变化的步数，相同状态连续出现时观察者只收到一次
+     *
+     * @return 观察者应收到的网络变化次数
+     */
+    public int getChangeCount() {
+        int count = 0;
+        for (int i = 0; i < mSnapshots.length; i++) {
+            if (i == 0 || !mSnapshots[i].equals(mSnapshots[i - 1])) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * @param index 第几步
+     * @return 该步之后的网络类型
+     */
+    public int getType(int index) {
+        return mSnapshots[index].getType();
+    }
+
+    /**
+     * 电梯：4G信号逐级变差，关门后断网，出电梯后恢复
+     */
+    public static ConnectivityTrace elevator() {
+        return new Builder()
+                .then(0, NETWORK_4G)
+                .then(3000, NETWORK_3G)
+                .then(1500, NETWORK_2G)
+                .then(800, NETWORK_NO)
+                .then(20000, NETWORK_2G)
+                .then(1200, NETWORK_4G)
+                .build();
+    }
+
+    /**
+     * 地铁：进站有信号，区间断网，共10站，站内偶尔在4G与3G间抖动
+     */
+    public static ConnectivityTrace subway() {
+        Builder builder = new Builder();
+        for (int station = 0; station < 10; station++) {
+            builder.then(station == 0 ? 0 : 90000, NETWORK_4G)
+                    .then(400, NETWORK_3G)
+                    .then(300, NETWORK_4G)
+                    .then(30000, NETWORK_NO);
+        }
+        return builder.build();
+    }
+
+    /**
+     * WiFi切换：离家时WiFi在弱信号下反复断开重连，随后切到5G，短暂断网后连上另一个WiFi
+     */
+    public static ConnectivityTrace wifiHandover() {
+        return new Builder()
+                .then(0, NETWORK_WIFI)
+                .then(5000, NETWORK_4G)
+                .then(600, NETWORK_WIFI)
+                .then(400, NETWORK_4G)
+                .then(700, NETWORK_WIFI)
+                .then(300, NETWORK_5G)
+                .then(60000, NETWORK_NO)
+                .then(1500, NETWORK_WIFI)
+                .build();
+    }
+
+    /**
+     * 随机抖动，用于压力测试
+     *
+     * @param seed           随机种子，相同种子得到相同轨迹
+     * @param steps          步数
+     * @param maxDelayMillis 每步的最大间隔
+     */
+    public static ConnectivityTrace random(long seed, int steps, long maxDelayMillis) {
+        int[] types = {NETWORK_NO, NETWORK_WIFI, NETWORK_2G, NETWORK_3G, NETWORK_4G, NETWORK_5G};
+        Random random = new Random(seed);
+        Builder builder = new Builder();
+        for (int i = 0; i < steps; i++) {
+            long delay = maxDelayMillis <= 0 ? 0 : (long) (random.nextDouble() * maxDelayMillis);
+            builder.then(i == 0 ? 0 : delay, types[random.nextInt(types.length)]);
+        }
+        return builder.build();
+    }
+
+    /**
+     * 取出线上记录的一段历史
+     *
+     * @param history    网络历史
+     * @param fromMillis 开始时间(含)
+     * @param toMillis   结束时间(不含)
+     */
+    public static ConnectivityTrace fromHistory(NetworkHistory history, long fromMillis, long toMillis) {
+        final Builder builder = new Builder();
+        history.query(fromMillis, toMillis, new NetworkHistory.Visitor() {
+            private long mLastStart = -1;
+
+            @Override
+            public void onRecord(long startMillis, long endMillis, int type, int subtype, int operator,
+                                 boolean connected) {
+                long delay = mLastStart < 0 ? 0 : Math.max(0, startMillis - mLastStart);
+                mLastStart = startMillis;
+                builder.add(delay, new NetworkSnapshot(type, subtype, connected, connected, operator));
+            }
+        });
+        return builder.build();
+    }
+
+    public static final class Builder {
+        private long[] mDelays = new long[16];
+        private NetworkSnapshot[] mSnapshots = new NetworkSnapshot[16];
+        private int mSize;
+
+        /**
+         * 间隔一段时间后变为某种网络
+         *
+         * @param delayMillis 与上一步的间隔，毫秒
+         * @param type        网络类型，NETWORK_NO表示断网
+         */
+        public Builder then(long delayMillis, @NetworkType int type) {
+            return then(delayMillis, type, 0);
+        }
+
+        /**
+         * @param delayMillis 与上一步的间隔，毫秒
+         * @param type        网络类型，NETWORK_NO表示断网
+         * @param subtype     子类型，见TelephonyManager.NETWORK_TYPE_*
+         */
+        public Builder then(long delayMillis, @NetworkType int type, int subtype) {
+            if (delayMillis < 0) {
+                throw new IllegalArgumentException("delayMillis must not be negative!");
+            }
+            if (type == NETWORK_NO) {
+                return add(delayMillis, NetworkSnapshot.NONE);
+            }
+            return add(delayMillis, new NetworkSnapshot(type, subtype, true, true, 0));
+        }
+
+        /**
+         * 把已有的步骤再重复若干次
+         *
+         * @param times 重复次数
+         */
+        public Builder repeat(int times) {
+            int size = mSize;
+            for (int t = 0; t < times; t++) {
+                for (int i = 0; i < size; i++) {
+                    add(mDelays[i], mSnapshots[i]);
+                }
+            }
+            return this;
+        }
+
+        public ConnectivityTrace build() {
+            return new ConnectivityTrace(Arrays.copyOf(mDelays, mSize), Arrays.copyOf(mSnapshots, mSize));
+        }
+
+        Builder add(long delayMillis, NetworkSnapshot snapshot) {
+            if (mSize == mSnapshots.length) {
+                mDelays = Arrays.copyOf(mDelays, mSize * 2);
+                mSnapshots = Arrays.copyOf(mSnapshots, mSize * 2);
+            }
+            mDelays[mSize] = delayMillis;
+            mSnapshots[mSize] = snapshot;
+            mSize++;
+            return this;
+        }
+    }
+}
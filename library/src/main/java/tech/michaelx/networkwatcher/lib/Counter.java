@@ -1,9 +0,0 @@
-package tech.michaelx.networkwatcher.lib;
-
-/**
- * @since 2019-10-17
- */
-final class Counter {
-    public static int notifyStateChangedCount = 0;
-    public static int notifyTypeChangedToCount = 0;
-}
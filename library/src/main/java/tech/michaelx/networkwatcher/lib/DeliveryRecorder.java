@@ -0,0 +1,162 @@
+package tech.michaelx.networkwatcher.lib;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 统计回放时观察者收到网络变化的次数、顺序和延迟，见{@link TraceNetworkSource#setRecorder(DeliveryRecorder)}
+ * <p>观察者在网络状态监听方法中调用{@link #onDelivered(int, int)}。回放开始时按轨迹算出观察者应收到的变化序列，
+ * 每次投递按收到的网络类型对应到该观察者尚未收到的下一次变化，因此顺序与延迟对所有线程模式都准确。
+ * 一个实例只统计一次回放</p>
+ *
+ * @since 2026-10-17
+ */
+public final class DeliveryRecorder {
+    private final AtomicLongArray mCounts;
+    // 每个观察者最近收到的变化在mChangeTypes中的下标，-1表示还没收到
+    private final AtomicIntegerArray mLastChange;
+    private final AtomicLong mOutOfOrder = new AtomicLong();
+    private final AtomicLong mDuplicates = new AtomicLong();
+    private final AtomicLong mMissed = new AtomicLong();
+    private final LatencyHistogram mLatency = new LatencyHistogram();
+    // 观察者应收到的每次变化的网络类型及对应的步，回放开始时写入
+    private volatile int[] mChangeTypes = new int[0];
+    private int[] mChangeSteps = new int[0];
+    private long[] mEmittedNanos = new long[0];
+    private volatile int mSequence;
+
+    /**
+     * @param observers 观察者数量，观察者编号为0~observers-1
+     */
+    public DeliveryRecorder(int observers) {
+        mCounts = new AtomicLongArray(observers);
+        mLastChange = new AtomicIntegerArray(observers);
+        for (int i = 0; i < observers; i++) {
+            mLastChange.set(i, -1);
+        }
+    }
+
+    /**
+     * 回放开始前调用，按轨迹算出应收到的变化序列。网络相同只有能力位不同的步不通知状态类方法，不算变化
+     */
+    void onStart(ConnectivityTrace trace) {
+        NetworkSnapshot[] snapshots = trace.mSnapshots;
+        int count = 0;
+        for (int i = 0; i < snapshots.length; i++) {
+            if (i == 0 || !snapshots[i].sameNetwork(snapshots[i - 1])) {
+                count++;
+            }
+        }
+        int[] types = new int[count];
+        int[] steps = new int[count];
+        count = 0;
+        for (int i = 0; i < snapshots.length; i++) {
+            if (i == 0 || !snapshots[i].sameNetwork(snapshots[i - 1])) {
+                types[count] = snapshots[i].getType();
+                steps[count] = i;
+                count++;
+            }
+        }
+        mChangeSteps = steps;
+        mEmittedNanos = new long[snapshots.length];
+        mSequence = 0;
+        // volatile写在最后，观察者读到新的mChangeTypes时能看到其余字段
+        mChangeTypes = types;
+    }
+
+    /**
+     * 回放一步之前调用，只有回放线程写。时间戳在回调之前写入，分发到其他线程的投递也能看到
+     *
+     * @param step 第几步，从0开始
+     */
+    void onEmitted(int step) {
+        mEmittedNanos[step] = System.nanoTime();
+        mSequence = step + 1;
+    }
+
+    /**
+     * 观察者收到网络变化
+     *
+     * @param observer 观察者编号
+     * @param type     监听方法收到的网络类型
+     */
+    public void onDelivered(int observer, int type) {
+        long nowNanos = System.nanoTime();
+        int[] types = mChangeTypes;
+        mCounts.incrementAndGet(observer);
+        int last = mLastChange.get(observer);
+        int change = last + 1;
+        while (change < types.length && types[change] != type) {
+            change++;
+        }
+        if (change == types.length) {
+            // 之后没有这个类型的变化:重复收到上一次变化，或收到了更早的变化
+            if (last >= 0 && types[last] == type) {
+                mDuplicates.incrementAndGet();
+            } else {
+                mOutOfOrder.incrementAndGet();
+            }
+            return;
+        }
+        if (change > last + 1) {
+            mMissed.addAndGet(change - last - 1);
+        }
+        mLastChange.set(observer, change);
+        mLatency.record(nowNanos - mEmittedNanos[mChangeSteps[change]]);
+    }
+
+    /**
+     * @return 已回放的步数
+     */
+    public long getEmittedCount() {
+        return mSequence;
+    }
+
+    /**
+     * @param observer 观察者编号
+     * @return 该观察者收到的次数
+     */
+    public long getDeliveredCount(int observer) {
+        return mCounts.get(observer);
+    }
+
+    /**
+     * @return 所有观察者收到的总次数
+     */
+    public long getTotalDeliveredCount() {
+        long total = 0;
+        for (int i = 0; i < mCounts.length(); i++) {
+            total += mCounts.get(i);
+        }
+        return total;
+    }
+
+    /**
+     * @return 收到的变化早于之前已收到的变化的次数，正确分发时为0
+     */
+    public long getOutOfOrderCount() {
+        return mOutOfOrder.get();
+    }
+
+    /**
+     * @return 同一次变化收到多次的次数，正确分发时为0
+     */
+    public long getDuplicateCount() {
+        return mDuplicates.get();
+    }
+
+    /**
+     * @return 收到之后的变化时跳过的变化次数，正确分发时为0
+     */
+    public long getMissedCount() {
+        return mMissed.get();
+    }
+
+    /**
+     * @return 从回放对应的一步到观察者收到的延迟
+     */
+    public LatencyHistogram getLatency() {
+        return mLatency;
+    }
+}
@@ -0,0 +1,91 @@
+package tech.michaelx.networkwatcher.lib;
+
+/**
+ * 分发耗时统计，见{@link NetworkStateWatcher#setMetrics(DispatchMetrics)}
+ * <p>记录每次分发从收到网络变化到开始分发的延迟、分发给所有观察者的耗时及每个监听方法的耗时，
+ * 非POSTING方法从在目标线程开始执行时计时。记录时不分配内存，未设置时分发只多一次volatile读</p>
+ *
+ * @since 2026-10-17
+ */
+public final class DispatchMetrics {
+    private final LatencyHistogram mReceiveToDispatch = new LatencyHistogram();
+    private final LatencyHistogram mDispatch = new LatencyHistogram();
+    private final LatencyHistogram mHandler = new LatencyHistogram();
+    private final Listener mListener;
+
+    public DispatchMetrics() {
+        this(null);
+    }
+
+    /**
+     * @param listener 每次分发结束后回调，在分发的线程执行，不要做耗时操作
+     */
+    public DispatchMetrics(Listener listener) {
+        mListener = listener;
+    }
+
+    /**
+     * @return 从收到网络变化(合并前的第一次)到开始分发的延迟，只统计网络状态事件
+     */
+    public LatencyHistogram getReceiveToDispatch() {
+        return mReceiveToDispatch;
+    }
+
+    /**
+     * @return 一次分发遍历所有观察者的耗时，包含POSTING方法的执行
+     */
+    public LatencyHistogram getDispatch() {
+        return mDispatch;
+    }
+
+    /**
+     * @return 单个监听方法的执行耗时
+     */
+    public LatencyHistogram getHandler() {
+        return mHandler;
+    }
+
+    /**
+     * 清空所有直方图
+     */
+    public void reset() {
+        mReceiveToDispatch.reset();
+        mDispatch.reset();
+        mHandler.reset();
+    }
+
+    void recordHandler(long nanos) {
+        mHandler.record(nanos);
+    }
+
+    /**
+     * @param receiveNanos 收到网络变化的时间，{@link System#nanoTime()}，未知时为0
+     */
+    void recordDispatch(int event, long receiveNanos, long startNanos, long endNanos, int observers,
+                        int handlers, int cleared) {
+        long receiveToDispatch = receiveNanos == 0 ? -1 : startNanos - receiveNanos;
+        if (receiveToDispatch >= 0) {
+            mReceiveToDispatch.record(receiveToDispatch);
+        }
+        mDispatch.record(endNanos - startNanos);
+        Listener listener = mListener;
+        if (listener != null) {
+            listener.onDispatched(event, receiveToDispatch, endNanos - startNanos, observers, handlers, cleared);
+        }
+    }
+
+    public interface Listener {
+        /**
+         * 一次分发结束，参数均为基本类型，便于不分配内存地转发给监控系统
+         *
+         * @param event                   事件类型，见{@link NetworkEvent}的EVENT_*
+         * @param receiveToDispatchNanos  从收到网络变化到开始分发的延迟，非网络状态事件为-1
+         * @param dispatchNanos           分发耗时
+         * @param observers               收到通知的观察者数
+         * @param handlers                调用的监听方法数，非POSTING方法为投递数
+         * @param clearedReferences       本次清理的已回收观察者数
+         */
+        void onDispatched(int event, long receiveToDispatchNanos, long dispatchNanos, int observers, int handlers,
+                          int clearedReferences);
+    }
+}
@@ -0,0 +1,76 @@
+package tech.michaelx.networkwatcher.lib;
+
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * 观察者类到{@link ObserverDispatcher}及{@link HandlerIndex}的缓存
+ * <p>每个类只解析一次，缓存的类数量有上限，超出后淘汰任意一项</p>
+ *
+ * @since 2026-10-17
+ */
+final class Dispatchers {
+    /**
+     * 最多缓存的观察者类数量
+     */
+    static final int MAX_CACHED_CLASSES = 128;
+
+    private static final ConcurrentMap<Class<?>, HandlerIndex> sIndexes = new ConcurrentHashMap<>();
+
+    private Dispatchers() {
+    }
+
+    /**
+     * 优先使用注解处理器生成的分发器，找不到时退回反射分发器
+     *
+     * @param clazz 观察者类
+     * @return 分发器
+     */
+    static ObserverDispatcher<Object> find(Class<?> clazz) {
+        return index(clazz).dispatcher;
+    }
+
+    /**
+     * @param clazz 观察者类
+     * @return 该类的监听方法分桶
+     */
+    static HandlerIndex index(Class<?> clazz) {
+        HandlerIndex index = sIndexes.get(clazz);
+        if (index != null) {
+            return index;
+        }
+        index = new HandlerIndex(create(clazz));
+        if (sIndexes.size() >= MAX_CACHED_CLASSES) {
+            Iterator<Class<?>> iterator = sIndexes.keySet().iterator();
+            if (iterator.hasNext()) {
+                iterator.next();
+                iterator.remove();
+            }
+        }
+        HandlerIndex previous = sIndexes.putIfAbsent(clazz, index);
+        return previous != null ? previous : index;
+    }
+
+    /**
+     * 清空缓存
+     */
+    static void clear() {
+        sIndexes.clear();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static ObserverDispatcher<Object> create(Class<?> clazz) {
+        try {
+            Class<?> dispatcherClass = Class.forName(clazz.getName() + ObserverDispatcher.SUFFIX,
+                    true, clazz.getClassLoader());
+            return (ObserverDispatcher<Object>) dispatcherClass.newInstance();
+        } catch (ClassNotFoundException e) {
+            return new ReflectiveDispatcher(clazz);
+        } catch (InstantiationException e) {
+            throw new RuntimeException("Unable to create dispatcher for " + clazz.getName(), e);
+        } catch (IllegalAccessException e) {
+            throw new RuntimeException("Unable to create dispatcher for " + clazz.getName(), e);
+        }
+    }
+}
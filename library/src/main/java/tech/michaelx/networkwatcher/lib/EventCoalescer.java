@@ -0,0 +1,116 @@
+package tech.michaelx.networkwatcher.lib;
+
+import android.os.Handler;
+import android.os.Looper;
+
+/**
+ * 按{@link CoalescePolicy}合并网络变化，只在主线程使用
+ *
+ * @since 2026-10-17
+ */
+final class EventCoalescer {
+    // 只有需要延迟分发时才创建
+    private Handler mHandler;
+    private final Callback mCallback;
+    private CoalescePolicy mPolicy = CoalescePolicy.NONE;
+    private Clock mClock = Clock.SYSTEM;
+
+    private NetworkSnapshot mPending;
+    private int mPendingCount;
+    private long mFirstPendingAt;
+    private NetworkSnapshot mLastDelivered;
+
+    private final Runnable mFlush = new Runnable() {
+        @Override
+        public void run() {
+            flush();
+        }
+    };
+
+    EventCoalescer(Callback callback) {
+        mCallback = callback;
+    }
+
+    void setPolicy(CoalescePolicy policy) {
+        mPolicy = policy == null ? CoalescePolicy.NONE : policy;
+    }
+
+    /**
+     * 计算等待时间用的时钟，与{@link NetworkStateWatcher}的相同
+     */
+    void setClock(Clock clock) {
+        mClock = clock;
+    }
+
+    /**
+     * 收到一次原始的网络变化
+     */
+    void offer(NetworkSnapshot snapshot) {
+        boolean first = mPending == null;
+        mPending = snapshot;
+        mPendingCount++;
+        CoalescePolicy policy = mPolicy;
+        if (policy.quietPeriodMillis == 0) {
+            flush();
+            return;
+        }
+
+        long now = mClock.elapsedRealtime();
+        if (first) {
+            mFirstPendingAt = now;
+        }
+        long delay = policy.quietPeriodMillis;
+        if (policy.maxLatencyMillis > 0) {
+            delay = Math.min(delay, mFirstPendingAt + policy.maxLatencyMillis - now);
+        }
+        if (mHandler != null) {
+            mHandler.removeCallbacks(mFlush);
+        }
+        if (delay <= 0) {
+            flush();
+        } else {
+            if (mHandler == null) {
+                mHandler = new Handler(Looper.getMainLooper());
+            }
+            mHandler.postDelayed(mFlush, delay);
+        }
+    }
+
+    /**
+     * 丢弃未分发的变化
+     */
+    void cancel() {
+        if (mHandler != null) {
+            mHandler.removeCallbacks(mFlush);
+        }
+        mPending = null;
+        mPendingCount = 0;
+        mLastDelivered = null;
+    }
+
+    private void flush() {
+        NetworkSnapshot snapshot = mPending;
+        if (snapshot == null) {
+            return;
+        }
+        mPending = null;
+        // 只比较网络类型会吞掉同一网络上的能力变化(如已验证、计费、流量节省程序)
+        if (mPolicy.dropDuplicateType && mLastDelivered != null && mLastDelivered.sameNetwork(snapshot)
+                && mLastDelivered.getCapabilities() == snapshot.getCapabilities()) {
+            // 被丢弃的变化计入下一次分发
+            return;
+        }
+        int absorbed = mPendingCount;
+        mPendingCount = 0;
+        mLastDelivered = snapshot;
+        mCallback.onCoalesced(snapshot, absorbed);
+    }
+
+    interface Callback {
+        /**
+         * @param snapshot      合并后的网络状态
+         * @param absorbedCount 本次分发合并的原始变化次数
+         */
+        void onCoalesced(NetworkSnapshot snapshot, int absorbedCount);
+    }
+}
@@ -0,0 +1,45 @@
+package tech.michaelx.networkwatcher.lib;
+
+/**
+ * 指数加权移动平均(EWMA)，只保存平均值和样本数，不做任何装箱或分配
+ *
+ * @since 2026-10-17
+ */
+final class EwmaAverage {
+    private final double mAlpha;
+    private int mCount;
+    private double mAverage;
+
+    /**
+     * @param alpha 新样本的权重，0~1，越大越灵敏
+     */
+    EwmaAverage(double alpha) {
+        mAlpha = alpha;
+    }
+
+    void add(double sample) {
+        if (mCount < Integer.MAX_VALUE) {
+            mCount++;
+        }
+        mAverage = mCount == 1 ? sample : mAlpha * sample + (1 - mAlpha) * mAverage;
+    }
+
+    /**
+     * @return 清空以来的样本数
+     */
+    int count() {
+        return mCount;
+    }
+
+    /**
+     * @return 指数加权移动平均，没有样本时为0
+     */
+    double average() {
+        return mAverage;
+    }
+
+    void clear() {
+        mCount = 0;
+        mAverage = 0;
+    }
+}
@@ -0,0 +1,162 @@
+package tech.michaelx.networkwatcher.lib;
+
+import java.util.Arrays;
+
+import static tech.michaelx.networkwatcher.annotation.constant.NetworkTypeEnum.NETWORK_5G;
+import static tech.michaelx.networkwatcher.annotation.constant.NetworkTypeEnum.NETWORK_ANY;
+import static tech.michaelx.networkwatcher.annotation.constant.NetworkTypeEnum.NETWORK_MOBILE;
+import static tech.michaelx.networkwatcher.annotation.constant.NetworkTypeEnum.NETWORK_NO;
+
+/**
+ * 观察者类的监听方法按事件及目标网络类型分好的桶，每个类建立一次
+ * <p>桶以网络类型为下标(type - NETWORK_NO)，存放监听方法在{@link ObserverDispatcher}中的下标。
+ * NETWORK_MOBILE在建立时展开到2G/3G/4G/5G，分发时只需按新的网络类型取一个桶，不再逐个比较；
+ * 网络切换方法按(切换前, 切换后)两级分桶；能力类方法的条件各不相同，只收集下标，分发时逐个按位比较</p>
+ *
+ * @since 2026-10-17
+ */
+final class HandlerIndex {
+    static final int[] EMPTY = new int[0];
+    // 网络类型NETWORK_NO~NETWORK_5G
+    private static final int TYPE_SLOTS = NETWORK_5G - NETWORK_NO + 1;
+
+    final ObserverDispatcher<Object> dispatcher;
+    private final int[][] mStateByType = new int[TYPE_SLOTS][];
+    private final int[][] mStickyByType = new int[TYPE_SLOTS][];
+    private final int[][] mTrafficByType = new int[TYPE_SLOTS][];
+    private final int[] mQuality;
+    private final int[] mReachability;
+    private final int[] mCapabilities;
+    // 没有网络切换方法时为null
+    private final int[][][] mTransitions;
+
+    HandlerIndex(ObserverDispatcher<Object> dispatcher) {
+        this.dispatcher = dispatcher;
+        SubscriberMethod[] methods = dispatcher.getSubscriberMethods();
+        int[] buffer = new int[methods.length];
+        for (int slot = 0; slot < TYPE_SLOTS; slot++) {
+            int type = slot + NETWORK_NO;
+            mStateByType[slot] = collect(methods, buffer, type, SubscriberMethod.KIND_STATE_CHANGED,
+                    SubscriberMethod.KIND_TYPE_CHANGED_TO, false);
+            mStickyByType[slot] = collect(methods, buffer, type, SubscriberMethod.KIND_STATE_CHANGED,
+                    SubscriberMethod.KIND_TYPE_CHANGED_TO, true);
+            mTrafficByType[slot] = collect(methods, buffer, type, 0, SubscriberMethod.KIND_TRAFFIC_THRESHOLD, false);
+        }
+        mQuality = collect(methods, buffer, NETWORK_NO, SubscriberMethod.KIND_QUALITY_CHANGED, 0, false);
+        mReachability = collect(methods, buffer, NETWORK_NO, SubscriberMethod.KIND_REACHABILITY_CHANGED, 0, false);
+        mCapabilities = collect(methods, buffer, NETWORK_NO, SubscriberMethod.KIND_CAPABILITIES_CHANGED, 0, false);
+        mTransitions = collectTransitions(methods, buffer);
+    }
+
+    private static int[][][] collectTransitions(SubscriberMethod[] methods, int[] buffer) {
+        boolean found = false;
+        for (SubscriberMethod method : methods) {
+            found |= method.kind == SubscriberMethod.KIND_TRANSITION;
+        }
+        if (!found) {
+            return null;
+        }
+        int[][][] transitions = new int[TYPE_SLOTS][TYPE_SLOTS][];
+        for (int from = 0; from < TYPE_SLOTS; from++) {
+            for (int to = 0; to < TYPE_SLOTS; to++) {
+                int count = 0;
+                for (int i = 0; i < methods.length; i++) {
+                    SubscriberMethod method = methods[i];
+                    if (method.kind == SubscriberMethod.KIND_TRANSITION && from != to
+                            && matches(method.fromType, from + NETWORK_NO) && matches(method.type, to + NETWORK_NO)) {
+                        buffer[count++] = i;
+                    }
+                }
+                transitions[from][to] = count == 0 ? EMPTY : Arrays.copyOf(buffer, count);
+            }
+        }
+        return transitions;
+    }
+
+    /**
+     * 按声明顺序收集anyTypeKind类的方法，以及目标类型与type匹配的typedKind类方法
+     */
+    private static int[] collect(SubscriberMethod[] methods, int[] buffer, int type, int anyTypeKind,
+                                 int typedKind, boolean stickyOnly) {
+        int count = 0;
+        for (int i = 0; i < methods.length; i++) {
+            SubscriberMethod method = methods[i];
+            if (stickyOnly && !method.notifyOnAppStart) {
+                continue;
+            }
+            if (method.kind == anyTypeKind || (method.kind == typedKind && matches(method.type, type))) {
+                buffer[count++] = i;
+            }
+        }
+        return count == 0 ? EMPTY : Arrays.copyOf(buffer, count);
+    }
+
+    private static boolean matches(int targetType, int type) {
+        if (targetType == NETWORK_ANY) {
+            return true;
+        }
+        return targetType == NETWORK_MOBILE ? NetworkSnapshot.isMobileType(type) : targetType == type;
+    }
+
+    private static int slot(int type) {
+        int slot = type - NETWORK_NO;
+        return slot >= 0 && slot < TYPE_SLOTS ? slot : -1;
+    }
+
+    /**
+     * @param type   新的网络类型
+     * @param sticky 是否是注册时的粘性通知，只取notifyOnAppStart为true的方法
+     * @return 需要通知的状态类监听方法下标
+     */
+    int[] state(int type, boolean sticky) {
+        int slot = slot(type);
+        if (slot < 0) {
+            return EMPTY;
+        }
+        return sticky ? mStickyByType[slot] : mStateByType[slot];
+    }
+
+    /**
+     * @param type 流量增量计入的网络类型
+     * @return 统计该类型流量的阈值监听方法下标
+     */
+    int[] traffic(int type) {
+        int slot = slot(type);
+        return slot < 0 ? EMPTY : mTrafficByType[slot];
+    }
+
+    /**
+     * @param fromType 切换前的网络类型
+     * @param toType   切换后的网络类型
+     * @return 需要通知的网络切换方法下标，类型相同时为空
+     */
+    int[] transition(int fromType, int toType) {
+        int from = slot(fromType);
+        int to = slot(toType);
+        if (mTransitions == null || from < 0 || to < 0) {
+            return EMPTY;
+        }
+        return mTransitions[from][to];
+    }
+
+    /**
+     * @return 连接质量监听方法下标
+     */
+    int[] quality() {
+        return mQuality;
+    }
+
+    /**
+     * @return 可达性监听方法下标
+     */
+    int[] reachability() {
+        return mReachability;
+    }
+
+    /**
+     * @return 能力变化监听方法下标，是否满足条件见{@link SubscriberMethod#matches(int)}
+     */
+    int[] capabilities() {
+        return mCapabilities;
+    }
+}
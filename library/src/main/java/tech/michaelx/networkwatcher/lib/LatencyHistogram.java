@@ -0,0 +1,129 @@
+package tech.michaelx.networkwatcher.lib;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 定长分桶的耗时直方图，单位纳秒
+ * <p>与HdrHistogram相同的对数-线性分桶：每个2的幂区间再等分为16个子桶，相对误差不超过1/16，
+ * 桶数组在创建时分配，记录时不分配内存，可在多个线程并发记录</p>
+ * <p>记录只递增一个桶计数，次数、最大值与平均值在读取时由桶计算，精度同样为桶宽；
+ * 读取与{@link #reset()}不与记录互斥，读到的是近似一致的结果</p>
+ *
+ * @since 2026-10-17
+ */
+public final class LatencyHistogram {
+    private static final int SUB_BUCKET_BITS = 5;
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+    private static final int SUB_BUCKET_HALF = SUB_BUCKET_COUNT >> 1;
+    // 最高位为第62位的值落在最后一个桶
+    private static final int BUCKET_COUNT = (62 - (SUB_BUCKET_BITS - 1) + 1) * SUB_BUCKET_HALF + SUB_BUCKET_HALF;
+
+    private final AtomicLongArray mCounts = new AtomicLongArray(BUCKET_COUNT);
+
+    LatencyHistogram() {
+    }
+
+    /**
+     * @param nanos 耗时，负数按0记录
+     */
+    void record(long nanos) {
+        mCounts.incrementAndGet(index(nanos < 0 ? 0 : nanos));
+    }
+
+    /**
+     * @return 记录的次数
+     */
+    public long getCount() {
+        long count = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            count += mCounts.get(i);
+        }
+        return count;
+    }
+
+    /**
+     * @return 最大耗时所在桶的上界，纳秒，没有记录时为0
+     */
+    public long getMax() {
+        for (int i = BUCKET_COUNT - 1; i >= 0; i--) {
+            if (mCounts.get(i) != 0) {
+                return highestEquivalentValue(i);
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * @return 按桶中值计算的平均耗时，纳秒，没有记录时为0
+     */
+    public long getMean() {
+        long count = 0;
+        double total = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            long bucketCount = mCounts.get(i);
+            if (bucketCount != 0) {
+                count += bucketCount;
+                total += (double) bucketCount * ((lowestEquivalentValue(i) + highestEquivalentValue(i)) / 2);
+            }
+        }
+        return count == 0 ? 0 : (long) (total / count);
+    }
+
+    /**
+     * 百分位耗时，返回所在桶的上界
+     *
+     * @param percentile 0~100，如99.9
+     * @return 耗时，纳秒，没有记录时为0
+     */
+    public long getValueAtPercentile(double percentile) {
+        long count = getCount();
+        if (count == 0) {
+            return 0;
+        }
+        double clamped = Math.min(Math.max(percentile, 0), 100);
+        long target = Math.max(1, (long) Math.ceil(clamped / 100 * count));
+        long cumulative = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            cumulative += mCounts.get(i);
+            if (cumulative >= target) {
+                return highestEquivalentValue(i);
+            }
+        }
+        // 读取期间有新的记录
+        return getMax();
+    }
+
+    /**
+     * 清空记录，便于按周期导出
+     */
+    public void reset() {
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            mCounts.set(i, 0);
+        }
+    }
+
+    static int index(long value) {
+        if (value < SUB_BUCKET_COUNT) {
+            return (int) value;
+        }
+        // 右移到只剩最高的5位，子桶下标落在[16, 32)
+        int shift = 63 - Long.numberOfLeadingZeros(value) - (SUB_BUCKET_BITS - 1);
+        return shift * SUB_BUCKET_HALF + (int) (value >>> shift);
+    }
+
+    static long lowestEquivalentValue(int index) {
+        if (index < SUB_BUCKET_COUNT) {
+            return index;
+        }
+        int shift = index / SUB_BUCKET_HALF - 1;
+        return (long) (index - shift * SUB_BUCKET_HALF) << shift;
+    }
+
+    static long highestEquivalentValue(int index) {
+        if (index < SUB_BUCKET_COUNT) {
+            return index;
+        }
+        int shift = index / SUB_BUCKET_HALF - 1;
+        return lowestEquivalentValue(index) + (1L << shift) - 1;
+    }
+}
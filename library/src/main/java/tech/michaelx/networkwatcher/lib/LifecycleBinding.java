@@ -0,0 +1,32 @@
+package tech.michaelx.networkwatcher.lib;
+
+import androidx.lifecycle.Lifecycle;
+import androidx.lifecycle.LifecycleObserver;
+import androidx.lifecycle.LifecycleOwner;
+import androidx.lifecycle.OnLifecycleEvent;
+
+/**
+ * 把观察者绑定到{@link LifecycleOwner}：onStart时注册，onStop时注销，onDestroy时解除绑定
+ *
+ * @since 2026-10-17
+ */
+final class LifecycleBinding implements LifecycleObserver {
+    private final NetworkStateWatcher mWatcher;
+    private final Object mObserver;
+
+    LifecycleBinding(NetworkStateWatcher watcher, Object observer) {
+        mWatcher = watcher;
+        mObserver = observer;
+    }
+
+    @OnLifecycleEvent(Lifecycle.Event.ON_ANY)
+    void onStateChanged(LifecycleOwner owner, Lifecycle.Event event) {
+        if (event == Lifecycle.Event.ON_START) {
+            mWatcher.registerObserver(mObserver);
+        } else if (event == Lifecycle.Event.ON_STOP) {
+            mWatcher.unRegisterObserver(mObserver);
+        } else if (event == Lifecycle.Event.ON_DESTROY) {
+            owner.getLifecycle().removeObserver(this);
+        }
+    }
+}
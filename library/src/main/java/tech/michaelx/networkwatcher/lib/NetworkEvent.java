@@ -0,0 +1,100 @@
+package tech.michaelx.networkwatcher.lib;
+
+/**
+ * 一次分发的事件，同一轮分发中的所有监听方法共用
+ *
+ * @since 2026-10-17
+ */
+public final class NetworkEvent {
+    /**
+     * 网络状态变化
+     */
+    public static final int EVENT_STATE = 1;
+    /**
+     * 连接质量等级变化
+     */
+    public static final int EVENT_QUALITY = 2;
+    /**
+     * 累计流量跨过阈值
+     */
+    public static final int EVENT_TRAFFIC = 3;
+    /**
+     * 可达性变化
+     */
+    public static final int EVENT_REACHABILITY = 4;
+
+    final int event;
+    private final NetworkSnapshot mSnapshot;
+    private final int mQuality;
+    private final int mReachability;
+    private final long mTrafficBytes;
+    private final int mPreviousType;
+    private final long mDwellMillis;
+
+    NetworkEvent(int event, NetworkSnapshot snapshot, int quality, int reachability, long trafficBytes,
+                 int previousType, long dwellMillis) {
+        this.event = event;
+        mSnapshot = snapshot;
+        mQuality = quality;
+        mReachability = reachability;
+        mTrafficBytes = trafficBytes;
+        mPreviousType = previousType;
+        mDwellMillis = dwellMillis;
+    }
+
+    /**
+     * @return 当前网络状态
+     */
+    public NetworkSnapshot getSnapshot() {
+        return mSnapshot;
+    }
+
+    /**
+     * @return 当前网络类型
+     */
+    public int getType() {
+        return mSnapshot.getType();
+    }
+
+    /**
+     * @return 当前网络的能力位，见{@link tech.michaelx.networkwatcher.annotation.constant.CapabilityEnum}
+     */
+    public int getCapabilities() {
+        return mSnapshot.getCapabilities();
+    }
+
+    /**
+     * @return 连接质量等级，见{@link tech.michaelx.networkwatcher.annotation.constant.ConnectionQualityEnum}
+     */
+    public int getQuality() {
+        return mQuality;
+    }
+
+    /**
+     * @return 当前网络的可达性，见{@link tech.michaelx.networkwatcher.annotation.constant.ReachabilityEnum}
+     */
+    public int getReachability() {
+        return mReachability;
+    }
+
+    /**
+     * @return 监听的网络类型上的累计流量，字节，仅流量事件有效
+     */
+    public long getTrafficBytes() {
+        return mTrafficBytes;
+    }
+
+    /**
+     * @return 切换前的网络类型，仅状态事件有效
+     */
+    public int getPreviousType() {
+        return mPreviousType;
+    }
+
+    /**
+     * @return 切换前的网络类型持续了多少毫秒，仅状态事件有效
+     */
+    public long getDwellMillis() {
+        return mDwellMillis;
+    }
+}
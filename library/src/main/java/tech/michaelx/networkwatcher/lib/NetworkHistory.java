@@ -0,0 +1,414 @@
+package tech.michaelx.networkwatcher.lib;
+
+import android.content.Context;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import tech.michaelx.networkwatcher.annotation.NetworkType;
+
+import static tech.michaelx.networkwatcher.annotation.constant.NetworkTypeEnum.NETWORK_ANY;
+import static tech.michaelx.networkwatcher.annotation.constant.NetworkTypeEnum.NETWORK_MOBILE;
+import static tech.michaelx.networkwatcher.annotation.constant.NetworkTypeEnum.NETWORK_NO;
+
+/**
+ * 网络状态历史
+ * <p>把每次分发的网络状态记为定长的二进制记录(时间、网络类型、子类型、运营商)，存放在映射到内存的环形文件中，
+ * 写满后覆盖最早的记录，文件大小固定。查询直接扫描文件中的记录，不反序列化成对象</p>
+ * <p>每条记录从它的时间持续到下一条记录的时间。记录期间最后一条持续到现在；{@link #stop()}时写入停止标记，
+ * 进程被杀时没有机会写入，下次打开时在文件头记录的最后活跃时间补上，因此停止或进程死亡后的空白时段不计入任何网络。
+ * 记录期间每分钟更新一次最后活跃时间，进程被杀时最后一条记录最多少算一分钟。
+ * 停止标记不会被查询到。只应在一个进程中开启</p>
+ *
+ * @since 2026-10-17
+ */
+public final class NetworkHistory {
+    /**
+     * 默认保留的记录数，约100KB
+     */
+    public static final int DEFAULT_CAPACITY = 4096;
+    private static final String FILE_NAME = "networkwatcher.history";
+    private static final int MAGIC = 0x4e574831;
+    private static final int HEADER_SIZE = 64;
+    private static final int OFFSET_MAGIC = 0;
+    private static final int OFFSET_CAPACITY = 4;
+    private static final int OFFSET_WRITE_COUNT = 8;
+    // 最后确认还在记录的时间，写入记录、停止、记录期间的定时心跳及查询时更新
+    private static final int OFFSET_LAST_SEEN = 16;
+    private static final int RECORD_SIZE = 24;
+    private static final int RECORD_TIME = 0;
+    private static final int RECORD_TYPE = 8;
+    private static final int RECORD_SUBTYPE = 12;
+    private static final int RECORD_OPERATOR = 16;
+    private static final int RECORD_FLAGS = 20;
+    private static final int FLAG_CONNECTED = 1;
+    private static final int FLAG_STOPPED = 2;
+    private static final int EXPORT_VERSION = 2;
+    private static final long HEARTBEAT_MILLIS = 60 * 1000L;
+
+    private static final NetworkHistory sHistory = new NetworkHistory();
+
+    private RandomAccessFile mFile;
+    private MappedByteBuffer mBuffer;
+    private int mCapacity;
+    private StateStream.Subscription mSubscription;
+    // 正在记录，最后一条记录持续到现在
+    private boolean mLive;
+    private ScheduledExecutorService mExecutor;
+    private ScheduledFuture<?> mHeartbeat;
+
+    private final StateStream.Subscriber mSubscriber = new StateStream.Subscriber() {
+        @Override
+        public void onNext(NetworkSnapshot snapshot) {
+            record(snapshot, System.currentTimeMillis());
+        }
+    };
+
+    private final Runnable mHeartbeatTask = new Runnable() {
+        @Override
+        public void run() {
+            touch();
+        }
+    };
+
+    NetworkHistory() {
+    }
+
+    public static NetworkHistory getDefault() {
+        return sHistory;
+    }
+
+    /**
+     * 以默认容量开始记录
+     *
+     * @param context 上下文
+     * @throws IOException 打开历史文件失败
+     */
+    public void start(Context context) throws IOException {
+        start(context, DEFAULT_CAPACITY);
+    }
+
+    /**
+     * 开始记录，需先{@link NetworkStateWatcher#init(Context)}；容量与已有文件不同时清空历史
+     *
+     * @param context  上下文
+     * @param capacity 保留的记录数
+     * @throws IOException 打开历史文件失败
+     */
+    public synchronized void start(Context context, int capacity) throws IOException {
+        if (context == null) {
+            throw new IllegalArgumentException("context must not be null!");
+        }
+        if (mSubscription != null) {
+            return;
+        }
+        open(new File(context.getFilesDir(), FILE_NAME), capacity);
+        mLive = true;
+        mSubscription = NetworkStateWatcher.getDefault().states().subscribe(mSubscriber);
+        if (mExecutor == null) {
+            mExecutor = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+                @Override
+                public Thread newThread(Runnable r) {
+                    Thread thread = new Thread(r, "NetworkWatcher-history");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+        }
+        mHeartbeat = mExecutor.scheduleWithFixedDelay(mHeartbeatTask, HEARTBEAT_MILLIS, HEARTBEAT_MILLIS,
+                TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 停止记录，已有的历史仍可查询，最后一条记录到此为止
+     */
+    public synchronized void stop() {
+        if (mSubscription != null) {
+            mSubscription.cancel();
+            mSubscription = null;
+        }
+        cancelHeartbeat();
+        if (mLive) {
+            mLive = false;
+            markStopped(System.currentTimeMillis());
+        }
+    }
+
+    synchronized void open(File file, int capacity) throws IOException {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be positive!");
+        }
+        close();
+        mFile = new RandomAccessFile(file, "rw");
+        long size = HEADER_SIZE + (long) capacity * RECORD_SIZE;
+        if (mFile.length() != size) {
+            mFile.setLength(0);
+        }
+        mBuffer = mFile.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, size);
+        mCapacity = capacity;
+        if (mBuffer.getInt(OFFSET_MAGIC) != MAGIC || mBuffer.getInt(OFFSET_CAPACITY) != capacity) {
+            mBuffer.putLong(OFFSET_WRITE_COUNT, 0);
+            mBuffer.putLong(OFFSET_LAST_SEEN, 0);
+            mBuffer.putInt(OFFSET_CAPACITY, capacity);
+            mBuffer.putInt(OFFSET_MAGIC, MAGIC);
+            return;
+        }
+        // 上次没有正常停止(进程被杀)，在最后活跃的时间补上停止标记
+        long writeCount = mBuffer.getLong(OFFSET_WRITE_COUNT);
+        if (writeCount > 0 && (mBuffer.getInt(offset(writeCount - 1) + RECORD_FLAGS) & FLAG_STOPPED) == 0) {
+            long lastStart = mBuffer.getLong(offset(writeCount - 1) + RECORD_TIME);
+            markStopped(Math.max(lastStart, mBuffer.getLong(OFFSET_LAST_SEEN)));
+        }
+    }
+
+    synchronized void close() throws IOException {
+        mLive = false;
+        cancelHeartbeat();
+        if (mFile != null) {
+            mFile.close();
+            mFile = null;
+            mBuffer = null;
+        }
+    }
+
+    /**
+     * 追加一条记录，先写记录再增加计数，进程中途被杀时最多丢失这一条
+     */
+    synchronized void record(NetworkSnapshot snapshot, long timeMillis) {
+        if (mBuffer == null) {
+            return;
+        }
+        long writeCount = mBuffer.getLong(OFFSET_WRITE_COUNT);
+        int offset = offset(writeCount);
+        mBuffer.putLong(offset + RECORD_TIME, timeMillis);
+        mBuffer.putInt(offset + RECORD_TYPE, snapshot.getType());
+        mBuffer.putInt(offset + RECORD_SUBTYPE, snapshot.getSubtype());
+        mBuffer.putInt(offset + RECORD_OPERATOR, snapshot.getOperator());
+        mBuffer.putInt(offset + RECORD_FLAGS, snapshot.isConnected() ? FLAG_CONNECTED : 0);
+        mBuffer.putLong(OFFSET_WRITE_COUNT, writeCount + 1);
+        mBuffer.putLong(OFFSET_LAST_SEEN, timeMillis);
+    }
+
+    /**
+     * 追加停止标记，之前的最后一条记录到此为止
+     */
+    private void markStopped(long timeMillis) {
+        if (mBuffer == null) {
+            return;
+        }
+        long writeCount = mBuffer.getLong(OFFSET_WRITE_COUNT);
+        int offset = offset(writeCount);
+        mBuffer.putLong(offset + RECORD_TIME, timeMillis);
+        mBuffer.putInt(offset + RECORD_TYPE, NETWORK_NO);
+        mBuffer.putInt(offset + RECORD_SUBTYPE, 0);
+        mBuffer.putInt(offset + RECORD_OPERATOR, 0);
+        mBuffer.putInt(offset + RECORD_FLAGS, FLAG_STOPPED);
+        mBuffer.putLong(OFFSET_WRITE_COUNT, writeCount + 1);
+        mBuffer.putLong(OFFSET_LAST_SEEN, timeMillis);
+    }
+
+    /**
+     * @return 第index条记录的结束时间：下一条记录的时间；最后一条在记录期间为现在，否则为最后活跃时间
+     */
+    private long endOf(long index, long writeCount, long start, long now) {
+        if (index + 1 < writeCount) {
+            return mBuffer.getLong(offset(index + 1) + RECORD_TIME);
+        }
+        return Math.max(start, mLive ? now : mBuffer.getLong(OFFSET_LAST_SEEN));
+    }
+
+    private boolean isStopMarker(int offset) {
+        return (mBuffer.getInt(offset + RECORD_FLAGS) & FLAG_STOPPED) != 0;
+    }
+
+    /**
+     * 记录期间的心跳及查询时更新最后活跃时间
+     */
+    private synchronized long touch() {
+        long now = System.currentTimeMillis();
+        if (mLive) {
+            heartbeat(now);
+        }
+        return now;
+    }
+
+    /**
+     * 更新最后活跃时间，进程被杀后最后一条记录至少算到这里
+     */
+    synchronized void heartbeat(long timeMillis) {
+        if (mBuffer != null && timeMillis > mBuffer.getLong(OFFSET_LAST_SEEN)) {
+            mBuffer.putLong(OFFSET_LAST_SEEN, timeMillis);
+        }
+    }
+
+    private void cancelHeartbeat() {
+        if (mHeartbeat != null) {
+            mHeartbeat.cancel(false);
+            mHeartbeat = null;
+        }
+    }
+
+    /**
+     * @return 保留的记录数
+     */
+    public synchronized int size() {
+        return mBuffer == null ? 0 : (int) Math.min(mBuffer.getLong(OFFSET_WRITE_COUNT), mCapacity);
+    }
+
+    /**
+     * 按时间顺序遍历与时间段有交集的记录
+     *
+     * @param fromMillis 开始时间(含)，{@link System#currentTimeMillis()}
+     * @param toMillis   结束时间(不含)
+     * @param visitor    逐条回调，持有锁，不要做耗时操作
+     * @return 回调的记录数
+     */
+    public synchronized int query(long fromMillis, long toMillis, Visitor visitor) {
+        if (mBuffer == null) {
+            return 0;
+        }
+        long writeCount = mBuffer.getLong(OFFSET_WRITE_COUNT);
+        long first = Math.max(0, writeCount - mCapacity);
+        long now = touch();
+        int visited = 0;
+        for (long i = first; i < writeCount; i++) {
+            int offset = offset(i);
+            if (isStopMarker(offset)) {
+                continue;
+            }
+            long start = mBuffer.getLong(offset + RECORD_TIME);
+            long end = endOf(i, writeCount, start, now);
+            if (end <= fromMillis && i + 1 < writeCount) {
+                continue;
+            }
+            if (start >= toMillis) {
+                break;
+            }
+            visitor.onRecord(start, end, mBuffer.getInt(offset + RECORD_TYPE),
+                    mBuffer.getInt(offset + RECORD_SUBTYPE), mBuffer.getInt(offset + RECORD_OPERATOR),
+                    (mBuffer.getInt(offset + RECORD_FLAGS) & FLAG_CONNECTED) != 0);
+            visited++;
+        }
+        return visited;
+    }
+
+    /**
+     * 某种网络在时间段内的停留时长
+     *
+     * @param type       网络类型，NETWORK_MOBILE表示2G/3G/4G/5G，NETWORK_ANY表示全部
+     * @param fromMillis 开始时间(含)，{@link System#currentTimeMillis()}
+     * @param toMillis   结束时间(不含)
+     * @return 停留时长，毫秒
+     */
+    public synchronized long getDwellMillis(@NetworkType int type, long fromMillis, long toMillis) {
+        if (mBuffer == null || toMillis <= fromMillis) {
+            return 0;
+        }
+        long writeCount = mBuffer.getLong(OFFSET_WRITE_COUNT);
+        long first = Math.max(0, writeCount - mCapacity);
+        long now = touch();
+        long total = 0;
+        for (long i = first; i < writeCount; i++) {
+            int offset = offset(i);
+            if (isStopMarker(offset) || !matches(type, mBuffer.getInt(offset + RECORD_TYPE))) {
+                continue;
+            }
+            long start = mBuffer.getLong(offset + RECORD_TIME);
+            long end = endOf(i, writeCount, start, now);
+            // 时钟被调整过时区间可能为负，按0计
+            total += Math.max(0, Math.min(end, toMillis) - Math.max(start, fromMillis));
+        }
+        return total;
+    }
+
+    /**
+     * 导出时间段内的记录，用于上传
+     * <p>格式：版本(1字节) | 记录数(varint)，之后每条记录为 与上一条的时间差(zigzag varint，第一条为毫秒时间) |
+     * 持续时长(zigzag varint) | 网络类型(zigzag varint) | 子类型(varint) | 运营商(varint) | 是否连接(1字节)。
+     * 停止或进程死亡后的空白时段不计入持续时长，一条记录的结束早于下一条的开始即表示中间没有记录</p>
+     *
+     * @param fromMillis 开始时间(含)
+     * @param toMillis   结束时间(不含)
+     * @param out        输出，不会被关闭
+     * @return 导出的记录数
+     * @throws IOException 写入失败
+     */
+    public int export(long fromMillis, long toMillis, OutputStream out) throws IOException {
+        final CompactWriter writer = new CompactWriter();
+        int count = query(fromMillis, toMillis, writer);
+        DataOutputStream data = new DataOutputStream(out);
+        data.writeByte(EXPORT_VERSION);
+        writeVarint(data, count);
+        writer.mBuffer.writeTo(data);
+        data.flush();
+        return count;
+    }
+
+    private int offset(long index) {
+        return HEADER_SIZE + (int) (index % mCapacity) * RECORD_SIZE;
+    }
+
+    private static boolean matches(int targetType, int type) {
+        if (targetType == NETWORK_ANY) {
+            return true;
+        }
+        return targetType == NETWORK_MOBILE ? NetworkSnapshot.isMobileType(type) : targetType == type;
+    }
+
+    private static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static void writeVarint(OutputStream out, long value) throws IOException {
+        while ((value & ~0x7fL) != 0) {
+            out.write((int) ((value & 0x7f) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    public interface Visitor {
+        /**
+         * @param startMillis 开始时间
+         * @param endMillis   结束时间，即下一条记录或停止的时间，记录期间最后一条为现在
+         * @param type        网络类型，见NetworkTypeEnum
+         * @param subtype     子类型
+         * @param operator    运营商
+         * @param connected   是否已连接
+         */
+        void onRecord(long startMillis, long endMillis, int type, int subtype, int operator, boolean connected);
+    }
+
+    private static final class CompactWriter implements Visitor {
+        final ByteArrayOutputStream mBuffer = new ByteArrayOutputStream();
+        private long mLastTime;
+
+        @Override
+        public void onRecord(long startMillis, long endMillis, int type, int subtype, int operator,
+                             boolean connected) {
+            try {
+                writeVarint(mBuffer, zigzag(startMillis - mLastTime));
+                writeVarint(mBuffer, zigzag(endMillis - startMillis));
+                writeVarint(mBuffer, zigzag(type));
+                writeVarint(mBuffer, subtype & 0xffffffffL);
+                writeVarint(mBuffer, operator & 0xffffffffL);
+                mBuffer.write(connected ? 1 : 0);
+            } catch (IOException e) {
+                // 写入内存不会失败
+                throw new IllegalStateException(e);
+            }
+            mLastTime = startMillis;
+        }
+    }
+}
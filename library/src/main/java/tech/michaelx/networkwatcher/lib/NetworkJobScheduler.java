@@ -0,0 +1,408 @@
+package tech.michaelx.networkwatcher.lib;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.ListIterator;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import tech.michaelx.networkwatcher.annotation.NetworkType;
+
+import static tech.michaelx.networkwatcher.annotation.constant.NetworkTypeEnum.NETWORK_5G;
+import static tech.michaelx.networkwatcher.annotation.constant.NetworkTypeEnum.NETWORK_ANY;
+import static tech.michaelx.networkwatcher.annotation.constant.NetworkTypeEnum.NETWORK_MOBILE;
+import static tech.michaelx.networkwatcher.annotation.constant.NetworkTypeEnum.NETWORK_NO;
+
+/**
+ * 按网络类型调度的后台任务
+ * <p>任务提交时声明允许运行的网络类型，如大文件上传只在WiFi、轻量同步在4G。每种网络类型有独立的有限线程池，
+ * 当前网络不在任务允许的类型中时任务等待；{@link NetworkStateWatcher}报告网络切换后自动开始等待中的任务，
+ * 正在运行但新网络不允许的任务被中断并按提交顺序放回队列，网络恢复后从头重新运行</p>
+ * <p>任务应响应中断({@link Thread#isInterrupted()})，并能安全地重新运行</p>
+ *
+ * @since 2026-10-17
+ */
+public final class NetworkJobScheduler {
+    /**
+     * 每种网络类型默认同时运行的任务数
+     */
+    public static final int DEFAULT_MAX_CONCURRENCY = 2;
+    // 网络类型NETWORK_NO~NETWORK_5G，下标为type - NETWORK_NO
+    private static final int TYPE_SLOTS = NETWORK_5G - NETWORK_NO + 1;
+    private static final long KEEP_ALIVE_SECONDS = 30;
+
+    private static final NetworkJobScheduler sScheduler =
+            new NetworkJobScheduler(NetworkStateWatcher.getDefault().states());
+
+    private final StateStream mStream;
+    // 保证订阅和取消订阅串行，先于this加锁
+    private final Object mSubscriptionLock = new Object();
+    private final ThreadPoolExecutor[] mPools = new ThreadPoolExecutor[TYPE_SLOTS];
+    private final int[] mMaxConcurrency = new int[TYPE_SLOTS];
+    private final int[] mRunningCount = new int[TYPE_SLOTS];
+    // 按提交顺序排列
+    private final LinkedList<Job> mPending = new LinkedList<>();
+    private final List<Job> mRunning = new ArrayList<>();
+    // 当前网络对应的下标，未知时为-1
+    private int mSlot = -1;
+    private long mNextSequence;
+    private StateStream.Subscription mSubscription;
+
+    private final StateStream.Subscriber mSubscriber = new StateStream.Subscriber() {
+        @Override
+        public void onNext(NetworkSnapshot snapshot) {
+            onNetworkChanged(snapshot);
+        }
+    };
+
+    /**
+     * @param stream 网络状态流，为null时只由{@link #onNetworkChanged(NetworkSnapshot)}驱动
+     */
+    NetworkJobScheduler(StateStream stream) {
+        mStream = stream;
+        for (int i = 0; i < TYPE_SLOTS; i++) {
+            mMaxConcurrency[i] = DEFAULT_MAX_CONCURRENCY;
+        }
+    }
+
+    public static NetworkJobScheduler getDefault() {
+        return sScheduler;
+    }
+
+    /**
+     * 设置某种网络下同时运行的任务数
+     *
+     * @param type  网络类型，NETWORK_MOBILE表示2G/3G/4G/5G，NETWORK_ANY表示全部
+     * @param limit 同时运行的任务数
+     */
+    public void setMaxConcurrency(@NetworkType int type, int limit) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("limit must be positive!");
+        }
+        synchronized (this) {
+            for (int slot = 0; slot < TYPE_SLOTS; slot++) {
+                if (matches(type, slot + NETWORK_NO)) {
+                    mMaxConcurrency[slot] = limit;
+                    ThreadPoolExecutor pool = mPools[slot];
+                    if (pool != null) {
+                        // 先调整较大的一侧，避免core大于max
+                        if (limit > pool.getMaximumPoolSize()) {
+                            pool.setMaximumPoolSize(limit);
+                            pool.setCorePoolSize(limit);
+                        } else {
+                            pool.setCorePoolSize(limit);
+                            pool.setMaximumPoolSize(limit);
+                        }
+                    }
+                }
+            }
+            dispatchLocked();
+        }
+    }
+
+    /**
+     * 提交任务
+     * <p>需先{@link NetworkStateWatcher#init(android.content.Context)}，有任务时才会监听网络变化</p>
+     *
+     * @param task         任务
+     * @param allowedTypes 允许运行的网络类型，NETWORK_MOBILE表示2G/3G/4G/5G，NETWORK_ANY表示任意已连接的网络
+     * @return 已提交的任务，可用于取消
+     */
+    public Job schedule(Runnable task, @NetworkType int... allowedTypes) {
+        if (task == null) {
+            throw new IllegalArgumentException("task must not be null!");
+        }
+        int mask = 0;
+        if (allowedTypes != null) {
+            for (int slot = 0; slot < TYPE_SLOTS; slot++) {
+                for (int type : allowedTypes) {
+                    if (matches(type, slot + NETWORK_NO)) {
+                        mask |= 1 << slot;
+                    }
+                }
+            }
+        }
+        if (mask == 0) {
+            throw new IllegalArgumentException("allowedTypes must contain a valid network type!");
+        }
+        Job job = new Job(this, task, mask);
+        synchronized (this) {
+            job.mSequence = mNextSequence++;
+            mPending.addLast(job);
+            dispatchLocked();
+        }
+        updateSubscription();
+        return job;
+    }
+
+    /**
+     * @return 等待中的任务数
+     */
+    public synchronized int getPendingCount() {
+        return mPending.size();
+    }
+
+    /**
+     * @return 正在运行的任务数
+     */
+    public synchronized int getRunningCount() {
+        return mRunning.size();
+    }
+
+    void onNetworkChanged(NetworkSnapshot snapshot) {
+        synchronized (this) {
+            int type = snapshot.isConnected() ? snapshot.getType() : NETWORK_NO;
+            int slot = type - NETWORK_NO;
+            mSlot = slot >= 0 && slot < TYPE_SLOTS ? slot : -1;
+            if (mSlot < 0) {
+                return;
+            }
+            // 新网络不允许的任务让出，按提交顺序回到队列；允许的任务改记到新网络的并发数上
+            for (int i = mRunning.size() - 1; i >= 0; i--) {
+                Job job = mRunning.get(i);
+                if (!job.allows(mSlot)) {
+                    job.preemptLocked();
+                } else if (job.mState == Job.STATE_RUNNING && job.mSlot != mSlot) {
+                    mRunningCount[job.mSlot]--;
+                    job.mSlot = mSlot;
+                    mRunningCount[mSlot]++;
+                }
+            }
+            // 继续运行的任务超过新网络的并发数时，让出最后启动的那些
+            int surplus = mRunningCount[mSlot] - mMaxConcurrency[mSlot];
+            for (int i = mRunning.size() - 1; i >= 0 && surplus > 0; i--) {
+                Job job = mRunning.get(i);
+                if (job.mState == Job.STATE_RUNNING) {
+                    job.preemptLocked();
+                    surplus--;
+                }
+            }
+            dispatchLocked();
+        }
+    }
+
+    /**
+     * 按提交顺序启动当前网络允许且未超过并发数的任务，靠前的任务不能运行时不阻塞后面的任务
+     */
+    private void dispatchLocked() {
+        int slot = mSlot;
+        if (slot < 0) {
+            return;
+        }
+        Iterator<Job> iterator = mPending.iterator();
+        while (iterator.hasNext() && mRunningCount[slot] < mMaxConcurrency[slot]) {
+            Job job = iterator.next();
+            if (!job.allows(slot)) {
+                continue;
+            }
+            iterator.remove();
+            job.mSlot = slot;
+            job.mState = Job.STATE_RUNNING;
+            mRunning.add(job);
+            mRunningCount[slot]++;
+            pool(slot).execute(job);
+        }
+    }
+
+    private ThreadPoolExecutor pool(final int slot) {
+        ThreadPoolExecutor pool = mPools[slot];
+        if (pool == null) {
+            pool = new ThreadPoolExecutor(mMaxConcurrency[slot], mMaxConcurrency[slot],
+                    KEEP_ALIVE_SECONDS, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(),
+                    new ThreadFactory() {
+                        @Override
+                        public Thread newThread(Runnable r) {
+                            Thread thread = new Thread(r, "NetworkWatcher-job-" + (slot + NETWORK_NO));
+                            thread.setDaemon(true);
+                            return thread;
+                        }
+                    });
+            pool.allowCoreThreadTimeOut(true);
+            mPools[slot] = pool;
+        }
+        return pool;
+    }
+
+    /**
+     * 任务结束(完成、失败或被中断)
+     */
+    private void onJobFinished(Job job) {
+        synchronized (this) {
+            mRunning.remove(job);
+            mRunningCount[job.mSlot]--;
+            if (job.mState == Job.STATE_PREEMPTED) {
+                job.mState = Job.STATE_PENDING;
+                requeueLocked(job);
+            } else if (job.mState == Job.STATE_RUNNING) {
+                job.mState = Job.STATE_DONE;
+            }
+            dispatchLocked();
+        }
+        updateSubscription();
+    }
+
+    /**
+     * 被中断的任务按提交顺序放回队列，优先于后提交的任务，且不受多个任务结束先后的影响
+     */
+    private void requeueLocked(Job job) {
+        ListIterator<Job> iterator = mPending.listIterator();
+        while (iterator.hasNext()) {
+            if (iterator.next().mSequence > job.mSequence) {
+                iterator.previous();
+                break;
+            }
+        }
+        iterator.add(job);
+    }
+
+    private synchronized boolean remove(Job job) {
+        if (job.mState == Job.STATE_PENDING) {
+            mPending.remove(job);
+            job.mState = Job.STATE_CANCELLED;
+            return true;
+        }
+        if (job.mState == Job.STATE_RUNNING || job.mState == Job.STATE_PREEMPTED) {
+            job.mState = Job.STATE_CANCELLED;
+            job.interruptLocked();
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * 有任务时订阅网络状态，任务全部结束后取消订阅，使网络监听可以停止
+     */
+    private void updateSubscription() {
+        if (mStream == null) {
+            return;
+        }
+        synchronized (mSubscriptionLock) {
+            boolean idle;
+            synchronized (this) {
+                idle = mPending.isEmpty() && mRunning.isEmpty();
+            }
+            if (idle && mSubscription != null) {
+                mSubscription.cancel();
+                mSubscription = null;
+                synchronized (this) {
+                    mSlot = -1;
+                }
+            } else if (!idle && mSubscription == null) {
+                // 订阅时立即收到当前网络
+                mSubscription = mStream.subscribe(mSubscriber);
+            }
+        }
+    }
+
+    private static boolean matches(int allowedType, int type) {
+        if (allowedType == NETWORK_ANY) {
+            return type != NETWORK_NO;
+        }
+        return allowedType == NETWORK_MOBILE ? NetworkSnapshot.isMobileType(type) : allowedType == type;
+    }
+
+    /**
+     * 已提交的任务
+     */
+    public static final class Job implements Runnable {
+        static final int STATE_PENDING = 0;
+        static final int STATE_RUNNING = 1;
+        static final int STATE_PREEMPTED = 2;
+        static final int STATE_DONE = 3;
+        static final int STATE_CANCELLED = 4;
+
+        private final NetworkJobScheduler mScheduler;
+        private final Runnable mTask;
+        // 允许运行的网络类型，按下标置位
+        private final int mAllowedMask;
+        // 以下由mScheduler加锁访问
+        private int mState = STATE_PENDING;
+        private int mSlot;
+        private int mPreemptions;
+        // 提交顺序
+        private long mSequence;
+        private Thread mThread;
+
+        Job(NetworkJobScheduler scheduler, Runnable task, int allowedMask) {
+            mScheduler = scheduler;
+            mTask = task;
+            mAllowedMask = allowedMask;
+        }
+
+        @Override
+        public void run() {
+            boolean started;
+            synchronized (mScheduler) {
+                // 还没开始就被中断或取消
+                started = mState == STATE_RUNNING;
+                if (started) {
+                    mThread = Thread.currentThread();
+                }
+            }
+            if (!started) {
+                mScheduler.onJobFinished(this);
+                return;
+            }
+            try {
+                mTask.run();
+            } finally {
+                synchronized (mScheduler) {
+                    mThread = null;
+                    // 清除中断标记，不影响线程池中的下一个任务
+                    Thread.interrupted();
+                }
+                mScheduler.onJobFinished(this);
+            }
+        }
+
+        /**
+         * 取消任务，正在运行的任务会被中断
+         *
+         * @return 是否取消成功，已结束的任务返回false
+         */
+        public boolean cancel() {
+            return mScheduler.remove(this);
+        }
+
+        /**
+         * @return 是否已完成或取消
+         */
+        public boolean isDone() {
+            synchronized (mScheduler) {
+                return mState == STATE_DONE || mState == STATE_CANCELLED;
+            }
+        }
+
+        /**
+         * @return 因网络切换被中断的次数
+         */
+        public int getPreemptions() {
+            synchronized (mScheduler) {
+                return mPreemptions;
+            }
+        }
+
+        boolean allows(int slot) {
+            return (mAllowedMask & (1 << slot)) != 0;
+        }
+
+        void preemptLocked() {
+            if (mState != STATE_RUNNING) {
+                return;
+            }
+            mState = STATE_PREEMPTED;
+            mPreemptions++;
+            interruptLocked();
+        }
+
+        void interruptLocked() {
+            if (mThread != null) {
+                mThread.interrupt();
+            }
+        }
+    }
+}
@@ -0,0 +1,181 @@
+package tech.michaelx.networkwatcher.lib;
+
+import android.content.Context;
+import android.net.ConnectivityManager;
+import android.net.NetworkInfo;
+
+import static tech.michaelx.networkwatcher.annotation.constant.NetworkTypeEnum.NETWORK_2G;
+import static tech.michaelx.networkwatcher.annotation.constant.NetworkTypeEnum.NETWORK_3G;
+import static tech.michaelx.networkwatcher.annotation.constant.NetworkTypeEnum.NETWORK_4G;
+import static tech.michaelx.networkwatcher.annotation.constant.NetworkTypeEnum.NETWORK_5G;
+import static tech.michaelx.networkwatcher.annotation.constant.NetworkTypeEnum.NETWORK_NO;
+
+/**
+ * 某一时刻的网络状态快照，不可变
+ * <p>每次网络变化只采集一次，同一轮分发中的所有观察者拿到的是同一个快照</p>
+ *
+ * @since 2026-10-17
+ */
+public final class NetworkSnapshot {
+    /**
+     * 无网络
+     */
+    public static final NetworkSnapshot NONE = new NetworkSnapshot(NETWORK_NO, 0, false, false, 0, 0, 0);
+
+    private final int mType;
+    private final int mSubtype;
+    private final boolean mConnected;
+    private final boolean mAvailable;
+    private final int mOperator;
+    private final int mPlmn;
+    private final int mCapabilities;
+
+    NetworkSnapshot(int type, int subtype, boolean connected, boolean available, int operator) {
+        this(type, subtype, connected, available, operator, 0);
+    }
+
+    NetworkSnapshot(int type, int subtype, boolean connected, boolean available, int operator, int plmn) {
+        this(type, subtype, connected, available, operator, plmn, 0);
+    }
+
+    NetworkSnapshot(int type, int subtype, boolean connected, boolean available, int operator, int plmn,
+                    int capabilities) {
+        mType = type;
+        mSubtype = subtype;
+        mConnected = connected;
+        mAvailable = available;
+        mOperator = operator;
+        mPlmn = plmn;
+        mCapabilities = capabilities;
+    }
+
+    /**
+     * 采集当前网络状态
+     * <p>需添加权限 {@code <uses-permission android:name="android.permission.ACCESS_NETWORK_STATE"/>}</p>
+     *
+     * @param context 上下文
+     * @return 网络状态快照
+     */
+    public static NetworkSnapshot capture(Context context) {
+        ConnectivityManager cm = (ConnectivityManager) context.getSystemService(Context.CONNECTIVITY_SERVICE);
+        NetworkInfo info = cm == null ? null : cm.getActiveNetworkInfo();
+        if (info == null) {
+            return NONE.withCapabilities(NetworkUtils.getDataSaverCapability(cm));
+        }
+        OperatorResolver.Subscription data = OperatorResolver.getDefault().getDataSubscription(context);
+        return new NetworkSnapshot(NetworkUtils.getNetworkType(info), info.getSubtype(), info.isConnected(),
+                info.isAvailable(), data == null ? OperatorResolver.OPERATOR_UNKNOWN : data.getOperator(),
+                data == null ? 0 : data.getPlmn(), NetworkUtils.getCapabilities(cm, info));
+    }
+
+    /**
+     * @return 网络类型，见{@link tech.michaelx.networkwatcher.annotation.constant.NetworkTypeEnum}
+     */
+    public int getType() {
+        return mType;
+    }
+
+    /**
+     * @return 移动网络子类型，见{@link android.telephony.TelephonyManager}的NETWORK_TYPE_*
+     */
+    public int getSubtype() {
+        return mSubtype;
+    }
+
+    public boolean isConnected() {
+        return mConnected;
+    }
+
+    public boolean isAvailable() {
+        return mAvailable;
+    }
+
+    /**
+     * @return 数据卡的运营商类型，见{@link OperatorResolver}的OPERATOR_*
+     */
+    public int getOperator() {
+        return mOperator;
+    }
+
+    /**
+     * @return 数据卡的MCC/MNC编码(见{@link OperatorResolver#plmn(int, int, boolean)})，未知时为0
+     */
+    public int getPlmn() {
+        return mPlmn;
+    }
+
+    /**
+     * @return 能力位，见{@link tech.michaelx.networkwatcher.annotation.constant.CapabilityEnum}
+     */
+    public int getCapabilities() {
+        return mCapabilities;
+    }
+
+    /**
+     * @param capabilities 能力位，可按位组合
+     * @return 是否全部具备
+     */
+    public boolean hasCapabilities(int capabilities) {
+        return (mCapabilities & capabilities) == capabilities;
+    }
+
+    /**
+     * @return 只有能力位不同的快照
+     */
+    NetworkSnapshot withCapabilities(int capabilities) {
+        if (capabilities == mCapabilities) {
+            return this;
+        }
+        return new NetworkSnapshot(mType, mSubtype, mConnected, mAvailable, mOperator, mPlmn, capabilities);
+    }
+
+    /**
+     * @return 除能力位外是否相同，即网络本身没有变化
+     */
+    boolean sameNetwork(NetworkSnapshot that) {
+        return mType == that.mType && mSubtype == that.mSubtype && mConnected == that.mConnected
+                && mAvailable == that.mAvailable && mOperator == that.mOperator && mPlmn == that.mPlmn;
+    }
+
+    /**
+     * @return 是否手机移动网络(2G/3G/4G/5G)
+     */
+    public boolean isMobile() {
+        return isMobileType(mType);
+    }
+
+    static boolean isMobileType(int type) {
+        return type == NETWORK_2G || type == NETWORK_3G || type == NETWORK_4G || type == NETWORK_5G;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof NetworkSnapshot)) {
+            return false;
+        }
+        NetworkSnapshot that = (NetworkSnapshot) o;
+        return sameNetwork(that) && mCapabilities == that.mCapabilities;
+    }
+
+    @Override
+    public int hashCode() {
+        int result = mType;
+        result = 31 * result + mSubtype;
+        result = 31 * result + (mConnected ? 1 : 0);
+        result = 31 * result + (mAvailable ? 1 : 0);
+        result = 31 * result + mOperator;
+        result = 31 * result + mPlmn;
+        result = 31 * result + mCapabilities;
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return "NetworkSnapshot{type=" + mType + ", subtype=" + mSubtype + ", connected=" + mConnected
+                + ", available=" + mAvailable + ", operator=" + mOperator + ", plmn=" + mPlmn
+                + ", capabilities=" + mCapabilities + '}';
+    }
+}
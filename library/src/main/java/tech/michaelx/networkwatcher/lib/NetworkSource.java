@@ -0,0 +1,37 @@
+package tech.michaelx.networkwatcher.lib;
+
+import android.content.Context;
+
+/**
+ * 网络变化来源，{@link NetworkStateWatcher}通过它获取网络状态变化
+ * <p>API 24及以上默认使用{@link CallbackNetworkSource}，以下使用{@link BroadcastNetworkSource}</p>
+ *
+ * @since 2026-10-17
+ */
+public interface NetworkSource {
+
+    /**
+     * 开始监听，回调需在主线程执行
+     *
+     * @param context  application上下文对象
+     * @param callback 网络变化回调
+     */
+    void start(Context context, Callback callback);
+
+    /**
+     * 停止监听
+     *
+     * @param context application上下文对象
+     */
+    void stop(Context context);
+
+    /**
+     * 网络变化回调
+     */
+    interface Callback {
+        /**
+         * @param snapshot 变化后的网络状态
+         */
+        void onNetworkChanged(NetworkSnapshot snapshot);
+    }
+}
@@ -0,0 +1,124 @@
+package tech.michaelx.networkwatcher.lib;
+
+import android.content.Context;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 网络状态缓存，{@link NetworkUtils}的查询方法都从这里读取
+ * <p>监听中时由{@link NetworkStateWatcher}在每次网络变化时刷新，查询只是一次volatile读，不走binder；
+ * 未监听时缓存最多保留{@link #getMaxStaleness()}毫秒，过期后重新查询ConnectivityManager</p>
+ *
+ * @since 2026-10-17
+ */
+public final class NetworkStateCache {
+    /**
+     * 未监听时缓存的默认有效期
+     */
+    public static final long DEFAULT_MAX_STALENESS_MS = 1000;
+
+    private static final NetworkStateCache sCache = new NetworkStateCache();
+
+    private volatile Entry mEntry;
+    private volatile boolean mWatching;
+    private volatile long mMaxStaleness = DEFAULT_MAX_STALENESS_MS;
+    private volatile Clock mClock = Clock.SYSTEM;
+    private final AtomicLong mHitCount = new AtomicLong();
+    private final AtomicLong mMissCount = new AtomicLong();
+
+    private NetworkStateCache() {
+    }
+
+    public static NetworkStateCache getDefault() {
+        return sCache;
+    }
+
+    /**
+     * 获取当前网络状态
+     *
+     * @param context 上下文
+     * @return 网络状态快照
+     */
+    public NetworkSnapshot get(Context context) {
+        Entry entry = mEntry;
+        if (entry != null && (mWatching
+                || mClock.elapsedRealtime() - entry.capturedAt <= mMaxStaleness)) {
+            mHitCount.incrementAndGet();
+            return entry.snapshot;
+        }
+        mMissCount.incrementAndGet();
+        NetworkSnapshot snapshot = NetworkSnapshot.capture(context);
+        mEntry = new Entry(snapshot, mClock.elapsedRealtime());
+        return snapshot;
+    }
+
+    /**
+     * 网络变化时由监听器写入最新状态
+     */
+    void update(NetworkSnapshot snapshot) {
+        mEntry = new Entry(snapshot, mClock.elapsedRealtime());
+    }
+
+    /**
+     * 替换时钟，用于在JVM上测试
+     */
+    void setClock(Clock clock) {
+        mClock = clock;
+    }
+
+    /**
+     * 丢弃缓存，下次查询重新获取
+     */
+    public void invalidate() {
+        mEntry = null;
+    }
+
+    /**
+     * 监听中缓存随网络变化刷新，不会过期；停止监听后按有效期过期
+     */
+    void setWatching(boolean watching) {
+        mWatching = watching;
+        if (!watching) {
+            invalidate();
+        }
+    }
+
+    /**
+     * 设置未监听时缓存的有效期，0表示每次都重新查询
+     *
+     * @param maxStalenessMillis 有效期，毫秒
+     */
+    public void setMaxStaleness(long maxStalenessMillis) {
+        if (maxStalenessMillis < 0) {
+            throw new IllegalArgumentException("maxStalenessMillis must not be negative!");
+        }
+        mMaxStaleness = maxStalenessMillis;
+    }
+
+    public long getMaxStaleness() {
+        return mMaxStaleness;
+    }
+
+    /**
+     * @return 命中缓存的查询次数
+     */
+    public long getHitCount() {
+        return mHitCount.get();
+    }
+
+    /**
+     * @return 未命中缓存、查询了ConnectivityManager的次数
+     */
+    public long getMissCount() {
+        return mMissCount.get();
+    }
+
+    private static final class Entry {
+        final NetworkSnapshot snapshot;
+        final long capturedAt;
+
+        Entry(NetworkSnapshot snapshot, long capturedAt) {
+            this.snapshot = snapshot;
+            this.capturedAt = capturedAt;
+        }
+    }
+}
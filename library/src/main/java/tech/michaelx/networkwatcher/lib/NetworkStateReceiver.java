@@ -5,12 +5,30 @@ import android.content.Context;
 import android.content.Intent;
 
 /**
- * 网络状态广播接收者
+ * 网络状态广播接收者，{@link BroadcastNetworkSource}使用
  */
 public class NetworkStateReceiver extends BroadcastReceiver {
+    private final NetworkSource.Callback mCallback;
+
+    /**
+     * 直接通知默认的{@link NetworkStateWatcher}
+     */
+    public NetworkStateReceiver() {
+        this(null);
+    }
+
+    NetworkStateReceiver(NetworkSource.Callback callback) {
+        mCallback = callback;
+    }
 
     @Override
     public void onReceive(Context context, Intent intent) {
-        NetworkStateWatcher.getDefault().post();
+        // 每次广播只采集一次网络状态，本轮分发的所有观察者共用
+        NetworkSnapshot snapshot = NetworkSnapshot.capture(context);
+        if (mCallback != null) {
+            mCallback.onNetworkChanged(snapshot);
+        } else {
+            NetworkStateWatcher.getDefault().receive(snapshot);
+        }
     }
 }
@@ -1,20 +1,17 @@
 package tech.michaelx.networkwatcher.lib;
 
-import android.content.BroadcastReceiver;
 import android.content.Context;
-import android.content.Intent;
-import android.content.IntentFilter;
-import android.net.ConnectivityManager;
+import android.os.Build;
 
-import java.lang.ref.WeakReference;
-import java.lang.reflect.InvocationTargetException;
-import java.lang.reflect.Method;
-import java.util.ArrayList;
-import java.util.List;
+import androidx.lifecycle.Lifecycle;
+import androidx.lifecycle.LifecycleOwner;
 
-import tech.michaelx.networkwatcher.annotation.NetworkStateChanged;
-import tech.michaelx.networkwatcher.annotation.OnNetworkTypeChangedTo;
-import tech.michaelx.networkwatcher.annotation.constant.NetworkTypeEnum;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import tech.michaelx.networkwatcher.annotation.ThreadMode;
+
+import static tech.michaelx.networkwatcher.annotation.constant.NetworkTypeEnum.NETWORK_NO;
 
 /**
  * @author MichaelX
@@ -22,11 +19,46 @@ import tech.michaelx.networkwatcher.annotation.constant.NetworkTypeEnum;
  * @since 2019/5/22
  */
 public final class NetworkStateWatcher {
-    private List<WeakReference<Object>> mObservers = new ArrayList<>();
+    private final ObserverRegistry mObservers = new ObserverRegistry();
     private static Context sContext;
     private static NetworkStateWatcher sWatcher;
-    private BroadcastReceiver mReceiver;
-    private Intent mReceiverIntent;
+    private NetworkSource mSource;
+    private boolean mSourceStarted;
+    private final NetworkSource.Callback mSourceCallback = new NetworkSource.Callback() {
+        @Override
+        public void onNetworkChanged(NetworkSnapshot snapshot) {
+            receive(snapshot);
+        }
+    };
+    private EventCoalescer mCoalescer;
+    private CoalescePolicy mCoalescePolicy = CoalescePolicy.NONE;
+    private volatile int mLastAbsorbedCount;
+    private final ThreadModePoster mPoster = new ThreadModePoster();
+    private Clock mClock = Clock.SYSTEM;
+    private final StateStream mStream = new StateStream(this);
+    // 最近一次分发的网络状态，用于粘性通知
+    private final AtomicReference<DeliveredState> mLastState = new AtomicReference<>();
+    private volatile DispatchMetrics mMetrics;
+    // 合并窗口内第一次收到网络变化的时间，只在统计时记录
+    private final AtomicLong mFirstReceiveNanos = new AtomicLong();
+    private final ConnectionQualityEstimator.Listener mQualityListener = new ConnectionQualityEstimator.Listener() {
+        @Override
+        public void onQualityChanged(int quality) {
+            postQuality(quality);
+        }
+    };
+    private final ReachabilityProber.Listener mReachabilityListener = new ReachabilityProber.Listener() {
+        @Override
+        public void onReachabilityChanged(int reachability) {
+            postReachability(reachability);
+        }
+    };
+    private final TrafficSampler.Listener mTrafficListener = new TrafficSampler.Listener() {
+        @Override
+        public void onTrafficSampled(int type, long bytes) {
+            postTraffic(type, bytes);
+        }
+    };
 
     public static NetworkStateWatcher getDefault() {
         if (sWatcher == null) {
@@ -49,39 +81,182 @@ public final class NetworkStateWatcher {
         sContext = context.getApplicationContext();
     }
 
-    private void registerReceiverIfNeed() {
+    /**
+     * 设置网络变化来源，需在注册观察者之前调用
+     * <p>不设置时API 24及以上使用{@link CallbackNetworkSource}，以下使用{@link BroadcastNetworkSource}</p>
+     *
+     * @param source 网络变化来源
+     */
+    public void setNetworkSource(NetworkSource source) {
+        if (mSourceStarted) {
+            throw new IllegalStateException("Network source can not be changed while watching.");
+        }
+        mSource = source;
+    }
+
+    /**
+     * 设置分发耗时统计
+     *
+     * @param metrics 统计，null表示关闭
+     */
+    public void setMetrics(DispatchMetrics metrics) {
+        mMetrics = metrics;
+        mFirstReceiveNanos.set(0);
+    }
+
+    public DispatchMetrics getMetrics() {
+        return mMetrics;
+    }
+
+    /**
+     * 设置网络变化合并策略，网络抖动时合并短时间内的多次变化
+     *
+     * @param policy 合并策略，null表示不合并
+     */
+    public void setCoalescePolicy(CoalescePolicy policy) {
+        mCoalescePolicy = policy == null ? CoalescePolicy.NONE : policy;
+        if (mCoalescer != null) {
+            mCoalescer.setPolicy(mCoalescePolicy);
+        }
+    }
+
+    /**
+     * @return 最近一次分发合并了多少次原始网络变化
+     */
+    public int getLastAbsorbedCount() {
+        return mLastAbsorbedCount;
+    }
+
+    private synchronized void startSourceIfNeed() {
         if (sContext == null) {
             throw new IllegalStateException("Please invoke init() function in your application first.");
         }
-        if (isRegisterReceiver()) {
+        if (mSourceStarted) {
             return;
         }
-        mReceiver = new NetworkStateReceiver();
-        IntentFilter filter = new IntentFilter();
-        filter.addAction(ConnectivityManager.CONNECTIVITY_ACTION);
-        mReceiverIntent = sContext.getApplicationContext().registerReceiver(mReceiver, filter);
+        if (mSource == null) {
+            mSource = Build.VERSION.SDK_INT >= Build.VERSION_CODES.N
+                    ? new CallbackNetworkSource() : new BroadcastNetworkSource();
+        }
+        if (mCoalescer == null) {
+            mCoalescer = new EventCoalescer(new EventCoalescer.Callback() {
+                @Override
+                public void onCoalesced(NetworkSnapshot snapshot, int absorbedCount) {
+                    mLastAbsorbedCount = absorbedCount;
+                    post(snapshot);
+                }
+            });
+        }
+        mCoalescer.setPolicy(mCoalescePolicy);
+        mCoalescer.setClock(mClock);
+        mSourceStarted = true;
+        NetworkStateCache.getDefault().setWatching(true);
+        ConnectionQualityEstimator.getDefault().setListener(mQualityListener);
+        TrafficSampler.getDefault().setListener(mTrafficListener);
+        ReachabilityProber.getDefault().setListener(mReachabilityListener);
+        mSource.start(sContext, mSourceCallback);
     }
 
     /**
-     * 注册网络监听
+     * 注册网络监听，并立即把当前网络状态通知给notifyOnAppStart为true的监听方法
      *
      * @param observer 观察者
      */
     public void registerObserver(Object observer) {
-        if (mObservers == null) {
-            synchronized (NetworkStateWatcher.class) {
-                mObservers = new ArrayList<>();
+        registerObserver(observer, true);
+    }
+
+    /**
+     * 注册网络监听
+     *
+     * @param observer 观察者
+     * @param sticky   是否立即把当前网络状态通知给notifyOnAppStart为true的监听方法，false则等到下一次网络变化
+     */
+    public void registerObserver(Object observer, boolean sticky) {
+        if (observer == null) {
+            return;
+        }
+        // 首次注册时建立该类的监听方法分桶
+        HandlerIndex index = Dispatchers.index(observer.getClass());
+        ObserverRef observerRef;
+        synchronized (this) {
+            startSourceIfNeed();
+            observerRef = mObservers.add(observer, index);
+        }
+        if (sticky) {
+            DeliveredState state = currentState();
+            int[] handlers = observerRef.index.state(state.snapshot.getType(), true);
+            int[] capabilities = observerRef.index.capabilities();
+            if (handlers.length > 0 || capabilities.length > 0) {
+                notifyObserver(observerRef, observer, state, handlers, HandlerIndex.EMPTY, capabilities, true,
+                        mMetrics);
             }
         }
-        if (observer == null) {
+    }
+
+    /**
+     * 把观察者绑定到生命周期：onStart时注册并收到当前网络状态，onStop时注销，onDestroy后解除绑定
+     * <p>需在主线程调用，不需要再手动注销或调用{@link #stopWatch()}</p>
+     *
+     * @param owner    Activity、Fragment等生命周期持有者
+     * @param observer 观察者，通常就是owner本身
+     */
+    public void watch(LifecycleOwner owner, Object observer) {
+        if (owner == null || observer == null) {
             return;
         }
-        registerReceiverIfNeed();
-        mObservers.add(new WeakReference<>(observer));
+        Lifecycle lifecycle = owner.getLifecycle();
+        if (lifecycle.getCurrentState() == Lifecycle.State.DESTROYED) {
+            return;
+        }
+        // 添加时会补发已经历的生命周期事件，已在onStart之后时立即注册
+        lifecycle.addObserver(new LifecycleBinding(this, observer));
     }
 
-    private boolean isRegisterReceiver() {
-        return mReceiverIntent != null;
+    /**
+     * @return 最近一次分发的网络状态，还没有分发过时读取缓存
+     */
+    private DeliveredState currentState() {
+        DeliveredState state = mLastState.get();
+        if (state != null) {
+            return state;
+        }
+        NetworkSnapshot snapshot = NetworkStateCache.getDefault().get(sContext);
+        state = new DeliveredState(snapshot, 0, mClock.elapsedRealtime(), snapshot.getType(), 0);
+        return mLastState.compareAndSet(null, state) ? state : mLastState.get();
+    }
+
+    /**
+     * 只读取最近分发的网络状态，还没有分发过时读取缓存
+     * <p>连接质量、可达性等事件可能在receive()中途同步触发，此时缓存已是新状态但还没有分发，
+     * 不能像{@link #currentState()}那样把它记为已分发，否则这次网络变化会被当作重复丢弃</p>
+     */
+    private NetworkSnapshot currentSnapshot() {
+        DeliveredState state = mLastState.get();
+        return state != null ? state.snapshot : NetworkStateCache.getDefault().get(sContext);
+    }
+
+    /**
+     * 在后台线程提前建立观察者类的监听方法索引，避免首次注册时在主线程扫描
+     *
+     * @param observerClasses 观察者类
+     */
+    public void preload(final Class<?>... observerClasses) {
+        if (observerClasses == null || observerClasses.length == 0) {
+            return;
+        }
+        Thread thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                for (Class<?> clazz : observerClasses) {
+                    if (clazz != null) {
+                        Dispatchers.index(clazz);
+                    }
+                }
+            }
+        }, "NetworkWatcher-preload");
+        thread.setDaemon(true);
+        thread.start();
     }
 
     /**
@@ -90,124 +265,393 @@ public final class NetworkStateWatcher {
      * @param observer 观察者
      */
     public void unRegisterObserver(Object observer) {
-        if (mObservers == null || mObservers.isEmpty()) {
-            return;
-        }
         if (observer == null) {
             return;
         }
-        mObservers.remove(observer);
+        if (mObservers.remove(observer) != null) {
+            stopSourceIfIdle();
+        }
     }
 
     /**
-     * 通知观察者网络变化
+     * 收到网络变化，立即刷新缓存，合并后再通知观察者
+     *
+     * @param snapshot 本次网络变化的状态快照
      */
-    void post() {
-        if (mObservers == null || mObservers.isEmpty()) {
-            return;
+    void receive(NetworkSnapshot snapshot) {
+        if (mMetrics != null) {
+            mFirstReceiveNanos.compareAndSet(0, System.nanoTime());
+        }
+        NetworkStateCache.getDefault().update(snapshot);
+        ConnectionQualityEstimator.getDefault().onNetworkChanged(snapshot.getType());
+        TrafficSampler.getDefault().onNetworkChanged(snapshot.getType());
+        // 能力位(如VALIDATED)变化不是换了网络，不需要重新探测
+        ReachabilityProber.getDefault().onNetworkChanged(snapshot.withCapabilities(0));
+        if (mCoalescer != null) {
+            mCoalescer.offer(snapshot);
+        } else {
+            mLastAbsorbedCount = 1;
+            post(snapshot);
         }
-        for (WeakReference<Object> observerRef : mObservers) {
+    }
+
+    /**
+     * 通知观察者网络变化
+     *
+     * @param snapshot 本次网络变化的状态快照
+     */
+    void post(NetworkSnapshot snapshot) {
+        DispatchMetrics metrics = mMetrics;
+        long startNanos = metrics == null ? 0 : System.nanoTime();
+        long now = mClock.elapsedRealtime();
+        DeliveredState last;
+        DeliveredState state;
+        do {
+            last = mLastState.get();
+            // 与上次分发的状态相同(如广播的粘性首次通知)时不算网络变化
+            if (last != null && last.snapshot.equals(snapshot)) {
+                if (metrics != null) {
+                    mFirstReceiveNanos.set(0);
+                }
+                return;
+            }
+            state = last == null
+                    ? new DeliveredState(snapshot, 1, now, snapshot.getType(), 0)
+                    : last.next(snapshot, now);
+        } while (!mLastState.compareAndSet(last, state));
+
+        long receiveNanos = metrics == null ? 0 : mFirstReceiveNanos.getAndSet(0);
+        // 只有能力位变化时不通知状态类方法，只有网络变化时不通知能力类方法
+        NetworkSnapshot previous = last == null ? null : last.snapshot;
+        boolean networkChanged = previous == null || !previous.sameNetwork(snapshot);
+        boolean capabilitiesChanged = previous == null || previous.getCapabilities() != snapshot.getCapabilities();
+        int cleared = mObservers.purge();
+        int notified = 0;
+        int invoked = 0;
+        int type = snapshot.getType();
+        int previousType = state.event.getPreviousType();
+        ObserverRef[] observerRefs = mObservers.snapshot();
+        for (int i = 0; i < observerRefs.length; i++) {
+            ObserverRef observerRef = observerRefs[i];
+            // 只通知关心新网络类型、本次切换或能力变化的观察者
+            int[] handlers = networkChanged ? observerRef.index.state(type, false) : HandlerIndex.EMPTY;
+            int[] transitions = observerRef.index.transition(previousType, type);
+            int[] capabilities = capabilitiesChanged ? observerRef.index.capabilities() : HandlerIndex.EMPTY;
+            if (handlers.length == 0 && transitions.length == 0 && capabilities.length == 0) {
+                continue;
+            }
             Object observer = observerRef.get();
-            if (observer != null) {
-                notifyObserver(observer);
+            int count = observer == null ? 0 : notifyObserver(observerRef, observer, state, handlers, transitions,
+                    capabilities, false, metrics);
+            if (count > 0) {
+                notified++;
+                invoked += count;
             }
         }
+        if (mStream.hasSubscribers()) {
+            mStream.emit(snapshot, state.generation);
+        }
+        if (metrics != null) {
+            metrics.recordDispatch(NetworkEvent.EVENT_STATE, receiveNanos, startNanos, System.nanoTime(),
+                    notified, invoked, cleared);
+        }
+    }
+
+    /**
+     * 替换时钟，用于在JVM上测试
+     */
+    void setClock(Clock clock) {
+        mClock = clock;
+        NetworkStateCache.getDefault().setClock(clock);
+        if (mCoalescer != null) {
+            mCoalescer.setClock(clock);
+        }
+    }
+
+    /**
+     * 通知观察者连接质量等级变化，POSTING方法在上报样本的线程执行
+     *
+     * @param quality 新的连接质量等级
+     */
+    void postQuality(int quality) {
+        postToAll(new NetworkEvent(NetworkEvent.EVENT_QUALITY, currentSnapshot(), quality,
+                ReachabilityProber.getDefault().getReachability(), 0, NETWORK_NO, 0));
     }
 
-    private void notifyObserver(Object observer) {
-        Class<?> clazz = observer.getClass();
-        Method[] methods = clazz.getDeclaredMethods();
-        for (Method method : methods) {
-            method.setAccessible(true);
-            try {
-                notifyNetworkStateChanged(observer, method);
-                notifyNetworkTypeChangeTo(observer, method);
-            } catch (IllegalAccessException e) {
-                e.printStackTrace();
-            } catch (InvocationTargetException e) {
-                e.printStackTrace();
+    /**
+     * 通知观察者当前网络的可达性变化，POSTING方法在探测线程或网络变化的线程执行
+     *
+     * @param reachability 新的可达性
+     */
+    void postReachability(int reachability) {
+        postToAll(new NetworkEvent(NetworkEvent.EVENT_REACHABILITY, currentSnapshot(),
+                ConnectionQualityEstimator.getDefault().getQuality(), reachability, 0, NETWORK_NO, 0));
+    }
+
+    /**
+     * 把不区分网络类型的事件通知给对应的监听方法
+     */
+    private void postToAll(NetworkEvent event) {
+        DispatchMetrics metrics = mMetrics;
+        long startNanos = metrics == null ? 0 : System.nanoTime();
+        int notified = 0;
+        int invoked = 0;
+        boolean quality = event.event == NetworkEvent.EVENT_QUALITY;
+        ObserverRef[] observerRefs = mObservers.snapshot();
+        for (int i = 0; i < observerRefs.length; i++) {
+            ObserverRef observerRef = observerRefs[i];
+            int[] handlers = quality ? observerRef.index.quality() : observerRef.index.reachability();
+            Object observer = handlers.length == 0 ? null : observerRef.get();
+            if (observer == null) {
+                continue;
+            }
+            ObserverDispatcher<Object> dispatcher = observerRef.index.dispatcher;
+            SubscriberMethod[] methods = dispatcher.getSubscriberMethods();
+            for (int j = 0; j < handlers.length; j++) {
+                invoke(observerRef, observer, dispatcher, handlers[j], methods[handlers[j]], event, metrics);
             }
+            notified++;
+            invoked += handlers.length;
+        }
+        if (metrics != null) {
+            metrics.recordDispatch(event.event, 0, startNanos, System.nanoTime(), notified, invoked, 0);
         }
     }
 
-    private void notifyNetworkTypeChangeTo(Object observer, Method method) throws InvocationTargetException, IllegalAccessException {
-        OnNetworkTypeChangedTo stateAnnotation = method.getAnnotation(OnNetworkTypeChangedTo.class);
-        if (stateAnnotation != null) {
-            Class<?>[] parameterTypes = method.getParameterTypes();
-            if (parameterTypes.length == 0) {
-                boolean invoke = stateAnnotation.notifyOnAppStart();
-                if (!invoke) {
-                    Counter.notifyTypeChangedToCount++;
-                    if (Counter.notifyTypeChangedToCount > 1) {
-                        invoke = true;
-                    }
-                }
-                if (!invoke) {
-                    return;
+    /**
+     * 累计流量跨过阈值的整数倍时通知观察者，POSTING方法在采样线程执行
+     *
+     * @param type  本次流量增量计入的网络类型
+     * @param bytes 本次流量增量，字节
+     */
+    void postTraffic(int type, long bytes) {
+        DispatchMetrics metrics = mMetrics;
+        long startNanos = metrics == null ? 0 : System.nanoTime();
+        int notified = 0;
+        int invoked = 0;
+        TrafficSampler sampler = TrafficSampler.getDefault();
+        NetworkSnapshot snapshot = null;
+        ObserverRef[] observerRefs = mObservers.snapshot();
+        for (int i = 0; i < observerRefs.length; i++) {
+            ObserverRef observerRef = observerRefs[i];
+            int[] handlers = observerRef.index.traffic(type);
+            Object observer = handlers.length == 0 ? null : observerRef.get();
+            if (observer == null) {
+                continue;
+            }
+            ObserverDispatcher<Object> dispatcher = observerRef.index.dispatcher;
+            SubscriberMethod[] methods = dispatcher.getSubscriberMethods();
+            int count = 0;
+            for (int j = 0; j < handlers.length; j++) {
+                SubscriberMethod method = methods[handlers[j]];
+                long total = sampler.getTotalBytes(method.type);
+                if ((total - bytes) / method.threshold == total / method.threshold) {
+                    continue;
                 }
-
-                int type = stateAnnotation.type();
-                int networkType = NetworkUtils.getNetworkType(sContext);
-                if (type == NetworkTypeEnum.NETWORK_MOBILE) {
-                    if (NetworkUtils.isMobile(sContext)) {
-                        method.invoke(observer);
-                    }
-                } else {
-                    if (type == networkType) {
-                        method.invoke(observer);
-                    }
+                if (snapshot == null) {
+                    snapshot = currentSnapshot();
                 }
+                invoke(observerRef, observer, dispatcher, handlers[j], method, new NetworkEvent(NetworkEvent.EVENT_TRAFFIC,
+                        snapshot, ConnectionQualityEstimator.getDefault().getQuality(),
+                        ReachabilityProber.getDefault().getReachability(), total, NETWORK_NO, 0), metrics);
+                count++;
+            }
+            if (count > 0) {
+                notified++;
+                invoked += count;
+            }
+        }
+        if (metrics != null && invoked > 0) {
+            metrics.recordDispatch(NetworkEvent.EVENT_TRAFFIC, 0, startNanos, System.nanoTime(), notified,
+                    invoked, 0);
+        }
+    }
 
+    /**
+     * @param handlers     该观察者需要通知的监听方法下标，见{@link HandlerIndex#state(int, boolean)}
+     * @param transitions  该观察者需要通知的网络切换方法下标，见{@link HandlerIndex#transition(int, int)}
+     * @param capabilities 该观察者的能力变化方法下标，满足条件的才通知，见{@link HandlerIndex#capabilities()}
+     * @param sticky       是否是注册时的粘性通知，能力变化方法只通知notifyOnAppStart为true的
+     * @return 调用的监听方法数，已收到更新的状态时为0
+     */
+    private int notifyObserver(ObserverRef observerRef, Object observer, DeliveredState state, int[] handlers,
+                               int[] transitions, int[] capabilities, boolean sticky, DispatchMetrics metrics) {
+        if (!observerRef.tryDeliver(state.generation)) {
+            return 0;
+        }
+        NetworkEvent event = state.event;
+        ObserverDispatcher<Object> dispatcher = observerRef.index.dispatcher;
+        SubscriberMethod[] methods = dispatcher.getSubscriberMethods();
+        for (int i = 0; i < handlers.length; i++) {
+            invoke(observerRef, observer, dispatcher, handlers[i], methods[handlers[i]], event, metrics);
+        }
+        for (int i = 0; i < transitions.length; i++) {
+            invoke(observerRef, observer, dispatcher, transitions[i], methods[transitions[i]], event, metrics);
+        }
+        int count = handlers.length + transitions.length;
+        int current = state.snapshot.getCapabilities();
+        for (int i = 0; i < capabilities.length; i++) {
+            SubscriberMethod method = methods[capabilities[i]];
+            if ((!sticky || method.notifyOnAppStart) && method.matches(current)) {
+                invoke(observerRef, observer, dispatcher, capabilities[i], method, event, metrics);
+                count++;
             }
         }
+        return count;
     }
 
-    private void notifyNetworkStateChanged(Object observer, Method method) throws InvocationTargetException, IllegalAccessException {
-        NetworkStateChanged stateAnnotation = method.getAnnotation(NetworkStateChanged.class);
-        if (stateAnnotation != null) {
-            Class<?>[] parameterTypes = method.getParameterTypes();
-            if (parameterTypes.length == 1) {
-                Class parameterClass = parameterTypes[0];
-                if (parameterClass == Integer.TYPE) {
-                    boolean invoke = stateAnnotation.notifyOnAppStart();
-                    if (!invoke) {
-                        Counter.notifyStateChangedCount++;
-                        if (Counter.notifyStateChangedCount > 1) {
-                            invoke = true;
-                        }
-                    }
-                    if (invoke) {
-                        method.invoke(observer, NetworkUtils.getNetworkType(sContext));
-                    }
-                }
+    /**
+     * 按方法声明的线程调用监听方法，POSTING直接调用
+     *
+     * @param metrics 耗时统计，未开启时为null
+     */
+    private void invoke(ObserverRef observerRef, Object observer, ObserverDispatcher<Object> dispatcher,
+                        int index, SubscriberMethod method, NetworkEvent event, DispatchMetrics metrics) {
+        ThreadMode threadMode = method.threadMode;
+        if (threadMode == ThreadMode.POSTING) {
+            if (metrics == null) {
+                dispatcher.dispatch(observer, index, event);
+            } else {
+                long start = System.nanoTime();
+                dispatcher.dispatch(observer, index, event);
+                metrics.recordHandler(System.nanoTime() - start);
             }
+            return;
+        }
+        InvokeTask task = new InvokeTask(observer, dispatcher, index, event, metrics);
+        if (threadMode == ThreadMode.MAIN) {
+            mPoster.postMain(task);
+        } else if (threadMode == ThreadMode.BACKGROUND) {
+            mPoster.postBackground(task);
+        } else {
+            mPoster.postAsync(observerRef, task);
         }
     }
 
     /**
-     * 清理观察者并注销网络监听广播
+     * 清理所有观察者，没有网络状态流的订阅者时停止网络监听
+     *
+     * @deprecated 会注销整个应用的观察者；最后一个观察者注销后会自动停止网络监听，
+     * 使用{@link #watch(LifecycleOwner, Object)}或{@link #unRegisterObserver(Object)}即可
      */
+    @Deprecated
     public void stopWatch() {
-        if (mObservers != null) {
-            mObservers.clear();
-            mObservers = null;
-        }
-        unRegisterReceiver();
-        resetCounter();
+        mObservers.clear();
+        stopSourceIfIdle();
+    }
+
+    /**
+     * 网络状态流，订阅时立即收到最近的网络状态，之后每次网络变化收到新状态
+     * <p>有订阅者时才会开始网络监听</p>
+     *
+     * @return 网络状态流
+     */
+    public StateStream states() {
+        return mStream;
+    }
+
+    /**
+     * 第一个订阅者出现
+     */
+    void onStreamActive() {
+        startSourceIfNeed();
+    }
+
+    /**
+     * 最后一个订阅者取消
+     */
+    void onStreamIdle() {
+        stopSourceIfIdle();
     }
 
-    private void resetCounter() {
-        Counter.notifyStateChangedCount = 0;
-        Counter.notifyTypeChangedToCount = 0;
+    /**
+     * 把最近的网络状态补发给新的订阅
+     */
+    void replayTo(StateStream.Subscription subscription) {
+        DeliveredState state = currentState();
+        subscription.offer(state.snapshot, state.generation);
     }
 
     /**
-     * 注销广播接收者
+     * 网络变化来源按引用计数共享：没有注册的观察者也没有网络状态流的订阅者时才停止
      */
-    private void unRegisterReceiver() {
-        if (sContext != null) {
-            sContext.unregisterReceiver(mReceiver);
-            mReceiverIntent = null;
+    private synchronized void stopSourceIfIdle() {
+        mObservers.purge();
+        if (mObservers.isEmpty() && !mStream.hasSubscribers()) {
+            stopSource();
+        }
+    }
+
+    /**
+     * 停止网络变化来源
+     */
+    private synchronized void stopSource() {
+        if (sContext != null && mSourceStarted) {
+            mSource.stop(sContext);
+            mCoalescer.cancel();
+            mPoster.shutdown();
+            mSourceStarted = false;
+            NetworkStateCache.getDefault().setWatching(false);
+            ConnectionQualityEstimator.getDefault().setListener(null);
+            TrafficSampler.getDefault().setListener(null);
+            ReachabilityProber.getDefault().setListener(null);
+        }
+        mLastState.set(null);
+    }
+
+    private static final class InvokeTask implements Runnable {
+        private final Object mObserver;
+        private final ObserverDispatcher<Object> mDispatcher;
+        private final int mIndex;
+        private final NetworkEvent mEvent;
+        private final DispatchMetrics mMetrics;
+
+        InvokeTask(Object observer, ObserverDispatcher<Object> dispatcher, int index, NetworkEvent event,
+                   DispatchMetrics metrics) {
+            mObserver = observer;
+            mDispatcher = dispatcher;
+            mIndex = index;
+            mEvent = event;
+            mMetrics = metrics;
+        }
+
+        @Override
+        public void run() {
+            if (mMetrics == null) {
+                mDispatcher.dispatch(mObserver, mIndex, mEvent);
+                return;
+            }
+            long start = System.nanoTime();
+            mDispatcher.dispatch(mObserver, mIndex, mEvent);
+            mMetrics.recordHandler(System.nanoTime() - start);
+        }
+    }
+
+    private static final class DeliveredState {
+        final NetworkSnapshot snapshot;
+        // 第几次分发的网络状态，0表示注册时从缓存读取、尚未分发过
+        final long generation;
+        // 当前网络类型从何时开始，用于计算切换时的停留时长
+        final long typeSince;
+        final NetworkEvent event;
+
+        DeliveredState(NetworkSnapshot snapshot, long generation, long typeSince, int previousType,
+                       long dwellMillis) {
+            this.snapshot = snapshot;
+            this.generation = generation;
+            this.typeSince = typeSince;
+            this.event = new NetworkEvent(NetworkEvent.EVENT_STATE, snapshot,
+                    ConnectionQualityEstimator.getDefault().getQuality(),
+                    ReachabilityProber.getDefault().getReachability(), 0, previousType, dwellMillis);
+        }
+
+        /**
+         * 下一个网络状态，网络类型不变时沿用开始时间
+         */
+        DeliveredState next(NetworkSnapshot snapshot, long now) {
+            int previousType = this.snapshot.getType();
+            long since = snapshot.getType() == previousType ? typeSince : now;
+            return new DeliveredState(snapshot, generation + 1, since, previousType, now - typeSince);
         }
     }
 }
@@ -1,20 +1,31 @@
 package tech.michaelx.networkwatcher.lib;
 
+import android.annotation.TargetApi;
 import android.content.Context;
 import android.content.Intent;
 import android.net.ConnectivityManager;
+import android.net.Network;
+import android.net.NetworkCapabilities;
 import android.net.NetworkInfo;
+import android.os.Build;
 import android.telephony.TelephonyManager;
-import android.text.TextUtils;
 
+import static tech.michaelx.networkwatcher.annotation.constant.CapabilityEnum.CAPABILITY_DATA_SAVER;
+import static tech.michaelx.networkwatcher.annotation.constant.CapabilityEnum.CAPABILITY_METERED;
+import static tech.michaelx.networkwatcher.annotation.constant.CapabilityEnum.CAPABILITY_ROAMING;
+import static tech.michaelx.networkwatcher.annotation.constant.CapabilityEnum.CAPABILITY_VALIDATED;
+import static tech.michaelx.networkwatcher.annotation.constant.CapabilityEnum.CAPABILITY_VPN;
 import static tech.michaelx.networkwatcher.annotation.constant.NetworkTypeEnum.NETWORK_2G;
 import static tech.michaelx.networkwatcher.annotation.constant.NetworkTypeEnum.NETWORK_3G;
 import static tech.michaelx.networkwatcher.annotation.constant.NetworkTypeEnum.NETWORK_4G;
+import static tech.michaelx.networkwatcher.annotation.constant.NetworkTypeEnum.NETWORK_5G;
 import static tech.michaelx.networkwatcher.annotation.constant.NetworkTypeEnum.NETWORK_NO;
 import static tech.michaelx.networkwatcher.annotation.constant.NetworkTypeEnum.NETWORK_UNKNOWN;
 import static tech.michaelx.networkwatcher.annotation.constant.NetworkTypeEnum.NETWORK_WIFI;
 
 /**
+ * 网络状态查询工具，状态类查询读取{@link NetworkStateCache}
+ *
  * @author MichaelX
  * @version 1.0
  * @since 2019/5/22
@@ -23,27 +34,10 @@ public class NetworkUtils {
     private static final int NETWORK_TYPE_GSM = 16;
     private static final int NETWORK_TYPE_TD_SCDMA = 17;
     private static final int NETWORK_TYPE_IWLAN = 18;
+    private static final int NETWORK_TYPE_NR = 20;
 
-    /**
-     * 运营商类型:未知
-     */
-    private static final int OPERATOR_UNKNOWN = 0;
-    /**
-     * 运营商类型:中国移动
-     */
-    private static final int OPERATOR_CHINA_MOBILE = 1;
-    /**
-     * 运营商类型:中国电信
-     */
-    private static final int OPERATOR_CHINA_TELECOM = 2;
-    /**
-     * 运营商类型:中国联通
-     */
-    private static final int OPERATOR_CHINA_UNICOM = 3;
-    /**
-     * 运营商类型:其他
-     */
-    private static final int OPERATOR_OTHER = 99;
+    // 监听流量节省程序广播期间缓存的DATA_SAVER能力位，-1表示未监听，每次都查询
+    private static volatile int sDataSaverCapability = -1;
 
     /**
      * 打开网络设置界面
@@ -59,40 +53,28 @@ public class NetworkUtils {
         }
     }
 
-    /**
-     * 获取活动网络信息
-     *
-     * @param context 上下文
-     * @return NetworkInfo
-     */
-    private static NetworkInfo getActiveNetworkInfo(Context context) {
-        ConnectivityManager cm = (ConnectivityManager) context
-                .getSystemService(Context.CONNECTIVITY_SERVICE);
-        return cm == null ? null : cm.getActiveNetworkInfo();
-    }
-
     /**
      * 判断网络是否可用
      * <p>需添加权限 {@code <uses-permission android:name="android.permission.ACCESS_NETWORK_STATE"/>}</p>
+     * <p>只反映链路状态，认证页或无效WiFi下也为true，是否确实能上网见{@link ReachabilityProber}</p>
      *
      * @param context 上下文
      * @return {@code true}: 可用<br>{@code false}: 不可用
      */
     public static boolean isAvailable(Context context) {
-        NetworkInfo info = getActiveNetworkInfo(context);
-        return info != null && info.isAvailable();
+        return NetworkStateCache.getDefault().get(context).isAvailable();
     }
 
     /**
      * 判断网络是否连接
      * <p>需添加权限 {@code <uses-permission android:name="android.permission.ACCESS_NETWORK_STATE"/>}</p>
+     * <p>只反映链路状态，认证页或无效WiFi下也为true，是否确实能上网见{@link ReachabilityProber}</p>
      *
      * @param context 上下文
      * @return {@code true}: 是<br>{@code false}: 否
      */
     public static boolean isConnected(Context context) {
-        NetworkInfo info = getActiveNetworkInfo(context);
-        return info != null && info.isConnected();
+        return NetworkStateCache.getDefault().get(context).isConnected();
     }
 
     /**
@@ -103,8 +85,8 @@ public class NetworkUtils {
      * @return {@code true}: 是<br>{@code false}: 不是
      */
     public static boolean is4G(Context context) {
-        NetworkInfo info = getActiveNetworkInfo(context);
-        return info != null && info.isAvailable() && info.getSubtype() == TelephonyManager.NETWORK_TYPE_LTE;
+        NetworkSnapshot snapshot = NetworkStateCache.getDefault().get(context);
+        return snapshot.isAvailable() && snapshot.getSubtype() == TelephonyManager.NETWORK_TYPE_LTE;
     }
 
     /**
@@ -115,8 +97,7 @@ public class NetworkUtils {
      * @return {@code true}: 连接<br>{@code false}: 未连接
      */
     public static boolean isWifiConnected(Context context) {
-        NetworkInfo info = getActiveNetworkInfo(context);
-        return info != null && info.getType() == ConnectivityManager.TYPE_WIFI;
+        return NetworkStateCache.getDefault().get(context).getType() == NETWORK_WIFI;
     }
 
     /**
@@ -134,34 +115,15 @@ public class NetworkUtils {
 
     /**
      * 获取当前运营商类型
+     * <p>双卡时为数据卡的运营商，结果缓存到SIM卡变化，见{@link OperatorResolver}</p>
+     * <p>与旧版本不同：46004、46020返回中国移动，46015返回{@link OperatorResolver#OPERATOR_CHINA_BROADNET}(4)，
+     * 旧版本对这几个号段返回{@link OperatorResolver#OPERATOR_OTHER}</p>
+     *
+     * @param context 上下文
+     * @return 运营商类型，见{@link OperatorResolver}的OPERATOR_*
      */
     public static int getSimOperatorInfo(Context context) {
-        TelephonyManager telephonyManager = (TelephonyManager) context.getSystemService(Context.TELEPHONY_SERVICE);
-
-        if (telephonyManager == null) {
-            return OPERATOR_UNKNOWN;
-        }
-        String operatorString = telephonyManager.getSimOperator();
-
-        if (TextUtils.isEmpty(operatorString)) {
-            return OPERATOR_UNKNOWN;
-        }
-
-        if (operatorString.equals("46000") || operatorString.equals("46002")
-                || operatorString.equals("46007") || operatorString.equals("46008")) {
-            // 中国移动
-            return OPERATOR_CHINA_MOBILE;
-        } else if (operatorString.equals("46001") || operatorString.equals("46006")
-                || operatorString.equals("46009")) {
-            // 中国联通
-            return OPERATOR_CHINA_UNICOM;
-        } else if (operatorString.equals("46003") || operatorString.equals("46005")
-                || operatorString.equals("46011")) {
-            // 中国电信
-            return OPERATOR_CHINA_TELECOM;
-        }
-
-        return OPERATOR_OTHER;
+        return OperatorResolver.getDefault().getOperator(context);
     }
 
     /**
@@ -183,13 +145,14 @@ public class NetworkUtils {
     }
 
     /**
-     * 获取当前的网络类型(WIFI,2G,3G,4G)
+     * 获取当前的网络类型(WIFI,2G,3G,4G,5G)
      * <p>需添加权限 {@code <uses-permission android:name="android.permission.ACCESS_NETWORK_STATE"/>}</p>
      *
      * @param context 上下文
      * @return 网络类型
      * <ul>
      * <li>{@link NETWORK_WIFI   } = 1;</li>
+     * <li>{@link NETWORK_5G     } = 7;</li>
      * <li>{@link NETWORK_4G     } = 4;</li>
      * <li>{@link NETWORK_3G     } = 3;</li>
      * <li>{@link NETWORK_2G     } = 2;</li>
@@ -198,56 +161,80 @@ public class NetworkUtils {
      * </ul>
      */
     public static int getNetworkType(Context context) {
-        int netType = NETWORK_NO;
-        NetworkInfo info = getActiveNetworkInfo(context);
-        if (info != null && info.isAvailable()) {
+        return NetworkStateCache.getDefault().get(context).getType();
+    }
 
-            if (info.getType() == ConnectivityManager.TYPE_WIFI) {
-                netType = NETWORK_WIFI;
-            } else if (info.getType() == ConnectivityManager.TYPE_MOBILE) {
-                switch (info.getSubtype()) {
+    /**
+     * 根据网络信息换算网络类型
+     *
+     * @param info 活动网络信息
+     * @return 网络类型，同{@link #getNetworkType(Context)}
+     */
+    static int getNetworkType(NetworkInfo info) {
+        if (info == null || !info.isAvailable()) {
+            return NETWORK_NO;
+        }
+        return getNetworkType(info.getType(), info.getSubtype(), info.getSubtypeName());
+    }
 
-                    case NETWORK_TYPE_GSM:
-                    case TelephonyManager.NETWORK_TYPE_GPRS:
-                    case TelephonyManager.NETWORK_TYPE_CDMA:
-                    case TelephonyManager.NETWORK_TYPE_EDGE:
-                    case TelephonyManager.NETWORK_TYPE_1xRTT:
-                    case TelephonyManager.NETWORK_TYPE_IDEN:
-                        netType = NETWORK_2G;
-                        break;
+    /**
+     * 根据连接类型与移动网络制式换算网络类型
+     *
+     * @param type        {@link ConnectivityManager}的TYPE_*
+     * @param subtype     {@link TelephonyManager}的NETWORK_TYPE_*
+     * @param subtypeName 制式名称，制式未知时用于识别
+     * @return 网络类型
+     */
+    static int getNetworkType(int type, int subtype, String subtypeName) {
+        int netType;
+        if (type == ConnectivityManager.TYPE_WIFI) {
+            netType = NETWORK_WIFI;
+        } else if (type == ConnectivityManager.TYPE_MOBILE) {
+            switch (subtype) {
 
-                    case NETWORK_TYPE_TD_SCDMA:
-                    case TelephonyManager.NETWORK_TYPE_EVDO_A:
-                    case TelephonyManager.NETWORK_TYPE_UMTS:
-                    case TelephonyManager.NETWORK_TYPE_EVDO_0:
-                    case TelephonyManager.NETWORK_TYPE_HSDPA:
-                    case TelephonyManager.NETWORK_TYPE_HSUPA:
-                    case TelephonyManager.NETWORK_TYPE_HSPA:
-                    case TelephonyManager.NETWORK_TYPE_EVDO_B:
-                    case TelephonyManager.NETWORK_TYPE_EHRPD:
-                    case TelephonyManager.NETWORK_TYPE_HSPAP:
-                        netType = NETWORK_3G;
-                        break;
+                case NETWORK_TYPE_GSM:
+                case TelephonyManager.NETWORK_TYPE_GPRS:
+                case TelephonyManager.NETWORK_TYPE_CDMA:
+                case TelephonyManager.NETWORK_TYPE_EDGE:
+                case TelephonyManager.NETWORK_TYPE_1xRTT:
+                case TelephonyManager.NETWORK_TYPE_IDEN:
+                    netType = NETWORK_2G;
+                    break;
 
-                    case NETWORK_TYPE_IWLAN:
-                    case TelephonyManager.NETWORK_TYPE_LTE:
-                        netType = NETWORK_4G;
-                        break;
-                    default:
+                case NETWORK_TYPE_TD_SCDMA:
+                case TelephonyManager.NETWORK_TYPE_EVDO_A:
+                case TelephonyManager.NETWORK_TYPE_UMTS:
+                case TelephonyManager.NETWORK_TYPE_EVDO_0:
+                case TelephonyManager.NETWORK_TYPE_HSDPA:
+                case TelephonyManager.NETWORK_TYPE_HSUPA:
+                case TelephonyManager.NETWORK_TYPE_HSPA:
+                case TelephonyManager.NETWORK_TYPE_EVDO_B:
+                case TelephonyManager.NETWORK_TYPE_EHRPD:
+                case TelephonyManager.NETWORK_TYPE_HSPAP:
+                    netType = NETWORK_3G;
+                    break;
 
-                        String subtypeName = info.getSubtypeName();
-                        if (subtypeName.equalsIgnoreCase("TD-SCDMA")
-                                || subtypeName.equalsIgnoreCase("WCDMA")
-                                || subtypeName.equalsIgnoreCase("CDMA2000")) {
-                            netType = NETWORK_3G;
-                        } else {
-                            netType = NETWORK_UNKNOWN;
-                        }
-                        break;
-                }
-            } else {
-                netType = NETWORK_UNKNOWN;
+                case NETWORK_TYPE_IWLAN:
+                case TelephonyManager.NETWORK_TYPE_LTE:
+                    netType = NETWORK_4G;
+                    break;
+
+                case NETWORK_TYPE_NR:
+                    netType = NETWORK_5G;
+                    break;
+                default:
+
+                    if ("TD-SCDMA".equalsIgnoreCase(subtypeName)
+                            || "WCDMA".equalsIgnoreCase(subtypeName)
+                            || "CDMA2000".equalsIgnoreCase(subtypeName)) {
+                        netType = NETWORK_3G;
+                    } else {
+                        netType = NETWORK_UNKNOWN;
+                    }
+                    break;
             }
+        } else {
+            netType = NETWORK_UNKNOWN;
         }
         return netType;
     }
@@ -259,13 +246,143 @@ public class NetworkUtils {
      * @return 是否手机移动网络
      */
     public static boolean isMobile(Context context) {
-        if (!isAvailable(context)) {
-            return false;
+        return NetworkStateCache.getDefault().get(context).isMobile();
+    }
+
+    /**
+     * 当前网络是否按流量计费
+     * <p>4.1以下按是否手机移动网络判断</p>
+     *
+     * @param context Android上下文对象
+     * @return 是否计费网络
+     */
+    public static boolean isMetered(Context context) {
+        if (android.os.Build.VERSION.SDK_INT >= 16) {
+            ConnectivityManager cm = (ConnectivityManager) context
+                    .getSystemService(Context.CONNECTIVITY_SERVICE);
+            return cm != null && cm.isActiveNetworkMetered();
+        }
+        return isMobile(context);
+    }
+
+    /**
+     * 活动网络的能力位，{@link NetworkSnapshot#capture(Context)}使用
+     * <p>VALIDATED需API 23，DATA_SAVER需API 24，更低版本时不具备。API 23及以上只查询一次活动网络的能力</p>
+     *
+     * @param cm   ConnectivityManager
+     * @param info 活动网络
+     * @return 能力位，见{@link tech.michaelx.networkwatcher.annotation.constant.CapabilityEnum}
+     */
+    static int getCapabilities(ConnectivityManager cm, NetworkInfo info) {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.M) {
+            NetworkCapabilities capabilities = getActiveNetworkCapabilities(cm);
+            if (capabilities != null) {
+                return getCapabilities(capabilities, info);
+            }
+        }
+        int capabilities = getDataSaverCapability(cm);
+        if (Build.VERSION.SDK_INT >= 16 ? cm.isActiveNetworkMetered()
+                : NetworkSnapshot.isMobileType(getNetworkType(info))) {
+            capabilities |= CAPABILITY_METERED;
+        }
+        if (info.isRoaming()) {
+            capabilities |= CAPABILITY_ROAMING;
+        }
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.LOLLIPOP && info.getType() == ConnectivityManager.TYPE_VPN) {
+            capabilities |= CAPABILITY_VPN;
+        }
+        return capabilities;
+    }
+
+    @TargetApi(Build.VERSION_CODES.M)
+    private static NetworkCapabilities getActiveNetworkCapabilities(ConnectivityManager cm) {
+        Network network = cm.getActiveNetwork();
+        return network == null ? null : cm.getNetworkCapabilities(network);
+    }
+
+    /**
+     * 由{@link NetworkCapabilities}换算能力位，{@link CallbackNetworkSource}使用
+     * <p>只读取传入的能力，DATA_SAVER取缓存，不再查询系统服务</p>
+     *
+     * @param capabilities 网络回调携带的能力
+     * @param info         蜂窝网络的NetworkInfo，API 28以下用于判断漫游，其他网络为null
+     * @return 能力位
+     */
+    @TargetApi(Build.VERSION_CODES.M)
+    static int getCapabilities(NetworkCapabilities capabilities, NetworkInfo info) {
+        int result = getDataSaverCapability(null);
+        if (!capabilities.hasCapability(NetworkCapabilities.NET_CAPABILITY_NOT_METERED)) {
+            result |= CAPABILITY_METERED;
+        }
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.P) {
+            if (!capabilities.hasCapability(NetworkCapabilities.NET_CAPABILITY_NOT_ROAMING)) {
+                result |= CAPABILITY_ROAMING;
+            }
+        } else if (info != null && info.isRoaming()) {
+            result |= CAPABILITY_ROAMING;
+        }
+        if (capabilities.hasTransport(NetworkCapabilities.TRANSPORT_VPN)) {
+            result |= CAPABILITY_VPN;
+        }
+        if (capabilities.hasCapability(NetworkCapabilities.NET_CAPABILITY_VALIDATED)) {
+            result |= CAPABILITY_VALIDATED;
         }
-        int type = getNetworkType(context);
-        if (type == NETWORK_2G || type == NETWORK_3G || type == NETWORK_4G) {
-            return true;
+        return result;
+    }
+
+    /**
+     * 监听流量节省程序广播期间返回缓存，否则查询一次
+     *
+     * @param cm ConnectivityManager，可为null
+     * @return 流量节省程序限制本应用后台数据时为CAPABILITY_DATA_SAVER，否则为0
+     */
+    static int getDataSaverCapability(ConnectivityManager cm) {
+        int cached = sDataSaverCapability;
+        return cached >= 0 ? cached : queryDataSaverCapability(cm);
+    }
+
+    /**
+     * 开始缓存DATA_SAVER能力位，或在已缓存时重新查询，由{@link RestrictBackgroundReceiver}在注册及收到广播时调用
+     *
+     * @param cm ConnectivityManager
+     * @return 新的DATA_SAVER能力位
+     */
+    static synchronized int refreshDataSaverCapability(ConnectivityManager cm) {
+        sDataSaverCapability = queryDataSaverCapability(cm);
+        return sDataSaverCapability;
+    }
+
+    /**
+     * 已在缓存时重新查询，网络切换时调用，补上后台期间收不到广播的变化
+     */
+    static synchronized void refreshDataSaverCapabilityIfCached(ConnectivityManager cm) {
+        if (sDataSaverCapability >= 0) {
+            sDataSaverCapability = queryDataSaverCapability(cm);
+        }
+    }
+
+    /**
+     * 直接缓存其他进程发布的DATA_SAVER能力位，多进程共享时的非主进程不注册广播也不查询
+     *
+     * @param dataSaver CAPABILITY_DATA_SAVER或0
+     */
+    static synchronized void setDataSaverCapability(int dataSaver) {
+        sDataSaverCapability = dataSaver;
+    }
+
+    /**
+     * 停止缓存，之后每次查询
+     */
+    static synchronized void clearDataSaverCapability() {
+        sDataSaverCapability = -1;
+    }
+
+    @TargetApi(Build.VERSION_CODES.N)
+    private static int queryDataSaverCapability(ConnectivityManager cm) {
+        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.N || cm == null) {
+            return 0;
         }
-        return false;
+        return cm.getRestrictBackgroundStatus() == ConnectivityManager.RESTRICT_BACKGROUND_STATUS_ENABLED
+                ? CAPABILITY_DATA_SAVER : 0;
     }
 }
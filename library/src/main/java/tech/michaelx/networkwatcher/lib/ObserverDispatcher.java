@@ -0,0 +1,29 @@
+package tech.michaelx.networkwatcher.lib;
+
+/**
+ * 观察者分发器，由注解处理器为每个包含网络监听方法的类生成，直接调用被注解的方法
+ * <p>未经注解处理器处理的类由{@link ReflectiveDispatcher}反射兜底</p>
+ *
+ * @param <T> 观察者类型
+ * @since 2026-10-17
+ */
+public interface ObserverDispatcher<T> {
+    /**
+     * 生成类的类名后缀
+     */
+    String SUFFIX = "_NetworkDispatcher";
+
+    /**
+     * @return 观察者的所有网络监听方法，下标即{@link #dispatch(Object, int, NetworkEvent)}的index
+     */
+    SubscriberMethod[] getSubscriberMethods();
+
+    /**
+     * 调用观察者的第index个网络监听方法
+     *
+     * @param observer 观察者
+     * @param index    方法下标
+     * @param event    本轮分发的事件
+     */
+    void dispatch(T observer, int index, NetworkEvent event);
+}
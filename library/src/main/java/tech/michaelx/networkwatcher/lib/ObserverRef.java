@@ -0,0 +1,70 @@
+package tech.michaelx.networkwatcher.lib;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 观察者的弱引用，按观察者对象本身(而非equals)判等，同时持有该观察者的监听方法分桶、串行执行队列及已分发的网络状态
+ *
+ * @since 2026-10-17
+ */
+final class ObserverRef extends WeakReference<Object> {
+    final long seq;
+    final HandlerIndex index;
+    private final int mHash;
+    private SerialExecutor mExecutor;
+    private final AtomicLong mDeliveredGeneration = new AtomicLong(-1);
+
+    ObserverRef(Object observer, ReferenceQueue<Object> queue, long seq, HandlerIndex index) {
+        super(observer, queue);
+        this.seq = seq;
+        this.index = index;
+        mHash = System.identityHashCode(observer);
+    }
+
+    /**
+     * @return 该观察者在线程池上的串行队列，保证ASYNC方法按顺序执行
+     */
+    synchronized SerialExecutor executor(ThreadModePoster poster) {
+        if (mExecutor == null) {
+            mExecutor = new SerialExecutor(poster.async());
+        }
+        return mExecutor;
+    }
+
+    /**
+     * 标记第generation次网络状态已分发给该观察者，保证每个状态只分发一次且不会回退到更早的状态
+     *
+     * @return 是否需要分发
+     */
+    boolean tryDeliver(long generation) {
+        for (; ; ) {
+            long delivered = mDeliveredGeneration.get();
+            if (delivered >= generation) {
+                return false;
+            }
+            if (mDeliveredGeneration.compareAndSet(delivered, generation)) {
+                return true;
+            }
+        }
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof ObserverRef)) {
+            return false;
+        }
+        Object observer = get();
+        // 已被回收的引用只与自身相等
+        return observer != null && observer == ((ObserverRef) o).get();
+    }
+
+    @Override
+    public int hashCode() {
+        return mHash;
+    }
+}
@@ -0,0 +1,133 @@
+package tech.michaelx.networkwatcher.lib;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 线程安全的观察者注册表
+ * <p>按观察者对象本身索引，注册、注销都是O(1)；分发时遍历按注册顺序排列的快照数组，不加锁，
+ * 注册表未变化时不会重新分配；被回收的观察者通过{@link ReferenceQueue}自动清理</p>
+ *
+ * @since 2026-10-17
+ */
+final class ObserverRegistry {
+    private static final ObserverRef[] EMPTY = new ObserverRef[0];
+    private static final Comparator<ObserverRef> REGISTER_ORDER = new Comparator<ObserverRef>() {
+        @Override
+        public int compare(ObserverRef o1, ObserverRef o2) {
+            return o1.seq < o2.seq ? -1 : (o1.seq == o2.seq ? 0 : 1);
+        }
+    };
+
+    private final ConcurrentMap<ObserverRef, ObserverRef> mRefs = new ConcurrentHashMap<>();
+    private final ReferenceQueue<Object> mQueue = new ReferenceQueue<>();
+    private final AtomicLong mSeq = new AtomicLong();
+    private final AtomicInteger mVersion = new AtomicInteger();
+    private volatile Snapshot mSnapshot;
+
+    /**
+     * 注册观察者，重复注册无效
+     *
+     * @param index 观察者类的监听方法分桶
+     * @return 该观察者的引用
+     */
+    ObserverRef add(Object observer, HandlerIndex index) {
+        purge();
+        ObserverRef ref = new ObserverRef(observer, mQueue, mSeq.incrementAndGet(), index);
+        ObserverRef previous = mRefs.putIfAbsent(ref, ref);
+        if (previous != null) {
+            ref.clear();
+            return previous;
+        }
+        mVersion.incrementAndGet();
+        return ref;
+    }
+
+    /**
+     * 注销观察者
+     *
+     * @return 该观察者的引用，未注册时返回null
+     */
+    ObserverRef remove(Object observer) {
+        purge();
+        ObserverRef removed = mRefs.remove(new ObserverRef(observer, null, 0, null));
+        if (removed != null) {
+            removed.clear();
+            mVersion.incrementAndGet();
+        }
+        return removed;
+    }
+
+    /**
+     * @return 观察者是否已注册
+     */
+    boolean contains(Object observer) {
+        return mRefs.containsKey(new ObserverRef(observer, null, 0, null));
+    }
+
+    /**
+     * 清理已被回收的观察者
+     *
+     * @return 清理的数量
+     */
+    int purge() {
+        int count = 0;
+        Reference<?> ref;
+        while ((ref = mQueue.poll()) != null) {
+            if (mRefs.remove(ref) != null) {
+                count++;
+            }
+        }
+        if (count > 0) {
+            mVersion.incrementAndGet();
+        }
+        return count;
+    }
+
+    /**
+     * @return 按注册顺序排列的观察者快照，调用方不可修改
+     */
+    ObserverRef[] snapshot() {
+        int version = mVersion.get();
+        Snapshot snapshot = mSnapshot;
+        if (snapshot != null && snapshot.version == version) {
+            return snapshot.refs;
+        }
+        ObserverRef[] refs = mRefs.keySet().toArray(EMPTY);
+        Arrays.sort(refs, REGISTER_ORDER);
+        mSnapshot = new Snapshot(version, refs);
+        return refs;
+    }
+
+    boolean isEmpty() {
+        return mRefs.isEmpty();
+    }
+
+    int size() {
+        return mRefs.size();
+    }
+
+    void clear() {
+        for (ObserverRef ref : mRefs.keySet()) {
+            ref.clear();
+        }
+        mRefs.clear();
+        mVersion.incrementAndGet();
+    }
+
+    private static final class Snapshot {
+        final int version;
+        final ObserverRef[] refs;
+
+        Snapshot(int version, ObserverRef[] refs) {
+            this.version = version;
+            this.refs = refs;
+        }
+    }
+}
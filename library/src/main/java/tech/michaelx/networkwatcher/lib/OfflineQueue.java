@@ -0,0 +1,426 @@
+package tech.michaelx.networkwatcher.lib;
+
+import android.content.Context;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static tech.michaelx.networkwatcher.annotation.constant.NetworkTypeEnum.NETWORK_NO;
+
+/**
+ * 离线请求队列
+ * <p>提交的请求先写入只追加的日志文件再执行，进程被杀后重新{@link #start(Context)}时从文件恢复。
+ * 无网络(可选计费网络)时请求留在队列中，{@link NetworkStateWatcher}报告可用网络后按批取出，
+ * 以有限的并发执行，避免网络恢复的瞬间一拥而上。网络一直可用但请求失败时按指数退避定时重试</p>
+ * <p>请求至少执行一次：执行成功但完成记录未落盘时，恢复后会再次执行，处理方需保证幂等</p>
+ *
+ * @since 2026-10-17
+ */
+public final class OfflineQueue {
+    /**
+     * 默认每批取出的请求数
+     */
+    public static final int DEFAULT_BATCH_SIZE = 16;
+    /**
+     * 默认同时执行的请求数
+     */
+    public static final int DEFAULT_PARALLELISM = 2;
+    /**
+     * 默认失败后首次重试的等待时间，之后每次翻倍
+     */
+    public static final long DEFAULT_INITIAL_RETRY_MILLIS = 5 * 1000;
+    /**
+     * 默认重试等待时间上限
+     */
+    public static final long DEFAULT_MAX_RETRY_MILLIS = 5 * 60 * 1000;
+
+    private final AppendOnlyLog mLog;
+    private final RequestHandler mHandler;
+    private final int mBatchSize;
+    private final int mParallelism;
+    // 未完成的请求，按入队顺序
+    private final LinkedHashMap<Long, byte[]> mPending = new LinkedHashMap<>();
+    private final AtomicBoolean mDrainScheduled = new AtomicBoolean();
+    // 串行化start与stop，stop等待协调线程时不持有this，协调线程仍可获取this
+    private final Object mLifecycleLock = new Object();
+    private long mNextId;
+    private Context mContext;
+    private ScheduledThreadPoolExecutor mCoordinator;
+    private ExecutorService mWorkers;
+    private StateStream.Subscription mSubscription;
+    private volatile NetworkSnapshot mSnapshot;
+    private volatile boolean mHoldWhileMetered;
+    private volatile long mInitialRetryMillis = DEFAULT_INITIAL_RETRY_MILLIS;
+    private volatile long mMaxRetryMillis = DEFAULT_MAX_RETRY_MILLIS;
+    // 以下只在协调线程访问：当前的重试等待时间，0表示上一轮没有失败
+    private long mRetryDelayMillis;
+    private ScheduledFuture<?> mRetry;
+
+    private final StateStream.Subscriber mSubscriber = new StateStream.Subscriber() {
+        @Override
+        public void onNext(NetworkSnapshot snapshot) {
+            onNetworkChanged(snapshot);
+        }
+    };
+
+    private final Runnable mDrainTask = new Runnable() {
+        @Override
+        public void run() {
+            mDrainScheduled.set(false);
+            drain();
+        }
+    };
+
+    private final Runnable mRetryTask = new Runnable() {
+        @Override
+        public void run() {
+            mRetry = null;
+            scheduleDrain();
+        }
+    };
+
+    /**
+     * @param file    日志文件，建议放在{@link Context#getFilesDir()}下
+     * @param handler 请求处理
+     */
+    public OfflineQueue(File file, RequestHandler handler) {
+        this(file, handler, DEFAULT_BATCH_SIZE, DEFAULT_PARALLELISM);
+    }
+
+    /**
+     * @param file        日志文件，建议放在{@link Context#getFilesDir()}下
+     * @param handler     请求处理
+     * @param batchSize   每批取出的请求数
+     * @param parallelism 同时执行的请求数
+     */
+    public OfflineQueue(File file, RequestHandler handler, int batchSize, int parallelism) {
+        if (file == null || handler == null) {
+            throw new IllegalArgumentException("file and handler must not be null!");
+        }
+        if (batchSize <= 0 || parallelism <= 0) {
+            throw new IllegalArgumentException("batchSize and parallelism must be positive!");
+        }
+        mLog = new AppendOnlyLog(file);
+        mHandler = handler;
+        mBatchSize = batchSize;
+        mParallelism = parallelism;
+    }
+
+    /**
+     * 计费网络下是否也暂停执行，默认false
+     *
+     * @param hold true: 只在非计费网络下执行
+     */
+    public void setHoldWhileMetered(boolean hold) {
+        mHoldWhileMetered = hold;
+        if (!hold) {
+            scheduleDrain();
+        }
+    }
+
+    /**
+     * 设置网络可用但请求失败时的重试间隔
+     *
+     * @param initialMillis 第一次失败后多久重试，之后每次失败翻倍
+     * @param maxMillis     重试间隔上限
+     */
+    public void setRetryBackoff(long initialMillis, long maxMillis) {
+        if (initialMillis <= 0 || maxMillis < initialMillis) {
+            throw new IllegalArgumentException("Invalid retry backoff!");
+        }
+        mInitialRetryMillis = initialMillis;
+        mMaxRetryMillis = maxMillis;
+    }
+
+    /**
+     * 从日志文件恢复未完成的请求，并开始跟随网络状态执行
+     * <p>需先{@link NetworkStateWatcher#init(Context)}，会读写文件，不要在主线程调用</p>
+     *
+     * @param context 上下文
+     * @throws IOException 读取日志文件失败
+     */
+    public void start(Context context) throws IOException {
+        if (context == null) {
+            throw new IllegalArgumentException("context must not be null!");
+        }
+        synchronized (mLifecycleLock) {
+            synchronized (this) {
+                if (mSubscription != null) {
+                    return;
+                }
+                mContext = context.getApplicationContext();
+                open();
+                mSubscription = NetworkStateWatcher.getDefault().states().subscribe(mSubscriber);
+            }
+        }
+    }
+
+    /**
+     * 停止执行并关闭日志文件，队列中的请求在下次{@link #start(Context)}时恢复
+     * <p>等待正在执行的一批请求结束后返回，不要在主线程调用</p>
+     */
+    public void stop() {
+        synchronized (mLifecycleLock) {
+            ExecutorService coordinator;
+            synchronized (this) {
+                if (mSubscription != null) {
+                    mSubscription.cancel();
+                    mSubscription = null;
+                }
+                coordinator = mCoordinator;
+                if (mCoordinator != null) {
+                    mCoordinator.shutdown();
+                    mWorkers.shutdown();
+                    mCoordinator = null;
+                    mWorkers = null;
+                }
+                mSnapshot = null;
+            }
+            // 正在执行的一轮会写完成记录并可能压缩日志，结束后才能关闭
+            if (coordinator != null) {
+                try {
+                    coordinator.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            try {
+                mLog.close();
+            } catch (IOException e) {
+                // 已写入的记录不受影响
+            }
+        }
+    }
+
+    /**
+     * 提交请求，写入日志文件后返回，网络可用时稍后执行
+     * <p>会同步写文件，不要在主线程调用</p>
+     *
+     * @param payload 请求内容，由{@link RequestHandler}解析
+     * @return 请求id
+     * @throws IOException 写入日志文件失败，请求未入队
+     */
+    public long enqueue(byte[] payload) throws IOException {
+        if (payload == null) {
+            throw new IllegalArgumentException("payload must not be null!");
+        }
+        long id;
+        synchronized (mPending) {
+            id = mNextId++;
+            mLog.add(id, payload);
+            mPending.put(id, payload);
+        }
+        scheduleDrain();
+        return id;
+    }
+
+    /**
+     * @return 还未成功执行的请求数
+     */
+    public int size() {
+        synchronized (mPending) {
+            return mPending.size();
+        }
+    }
+
+    /**
+     * 加载日志并创建执行线程
+     */
+    synchronized void open() throws IOException {
+        synchronized (mPending) {
+            mPending.clear();
+            mPending.putAll(mLog.load());
+            long maxId = -1;
+            for (Long id : mPending.keySet()) {
+                maxId = Math.max(maxId, id);
+            }
+            mNextId = Math.max(mNextId, maxId + 1);
+        }
+        mCoordinator = new ScheduledThreadPoolExecutor(1, threadFactory("NetworkWatcher-offline"));
+        // 停止后不再执行等待中的重试
+        mCoordinator.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+        mWorkers = Executors.newFixedThreadPool(mParallelism, threadFactory("NetworkWatcher-offline-worker"));
+    }
+
+    void onNetworkChanged(NetworkSnapshot snapshot) {
+        mSnapshot = snapshot;
+        scheduleDrain();
+    }
+
+    private void scheduleDrain() {
+        if (!isUsable()) {
+            return;
+        }
+        synchronized (this) {
+            if (mCoordinator != null && mDrainScheduled.compareAndSet(false, true)) {
+                mCoordinator.execute(mDrainTask);
+            }
+        }
+    }
+
+    private boolean isUsable() {
+        NetworkSnapshot snapshot = mSnapshot;
+        if (snapshot == null || !snapshot.isConnected() || snapshot.getType() == NETWORK_NO) {
+            return false;
+        }
+        return !mHoldWhileMetered || !NetworkUtils.isMetered(mContext);
+    }
+
+    /**
+     * 在协调线程上按批执行，每个请求本轮最多尝试一次。失败的在退避后重试，网络变化或提交时也会提前重试
+     */
+    private void drain() {
+        ExecutorService workers;
+        synchronized (this) {
+            workers = mWorkers;
+        }
+        if (workers == null) {
+            return;
+        }
+        if (mRetry != null) {
+            mRetry.cancel(false);
+            mRetry = null;
+        }
+        boolean failed = false;
+        Set<Long> attempted = new HashSet<>();
+        while (isUsable()) {
+            List<Map.Entry<Long, byte[]>> batch = nextBatch(attempted);
+            if (batch.isEmpty()) {
+                break;
+            }
+            final CountDownLatch done = new CountDownLatch(batch.size());
+            final boolean[] results = new boolean[batch.size()];
+            final AtomicInteger rejected = new AtomicInteger();
+            for (int i = 0; i < batch.size(); i++) {
+                final int position = i;
+                final byte[] payload = batch.get(i).getValue();
+                try {
+                    workers.execute(new Runnable() {
+                        @Override
+                        public void run() {
+                            try {
+                                results[position] = mHandler.handle(payload);
+                            } catch (Exception e) {
+                                results[position] = false;
+                            } finally {
+                                done.countDown();
+                            }
+                        }
+                    });
+                } catch (RuntimeException e) {
+                    // 已停止
+                    rejected.incrementAndGet();
+                    done.countDown();
+                }
+            }
+            try {
+                done.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            if (rejected.get() > 0) {
+                return;
+            }
+            for (int i = 0; i < batch.size(); i++) {
+                if (results[i]) {
+                    complete(batch.get(i).getKey());
+                } else {
+                    failed = true;
+                }
+            }
+        }
+        scheduleRetry(failed);
+        synchronized (mPending) {
+            try {
+                mLog.compactIfNeeded(mPending);
+            } catch (IOException e) {
+                // 不压缩不影响正确性，下次再试
+            }
+        }
+    }
+
+    /**
+     * 本轮有失败的请求时按退避时间定时重试，全部成功时重置退避
+     */
+    private void scheduleRetry(boolean failed) {
+        if (!failed) {
+            mRetryDelayMillis = 0;
+            return;
+        }
+        mRetryDelayMillis = mRetryDelayMillis == 0
+                ? mInitialRetryMillis : Math.min(mRetryDelayMillis * 2, mMaxRetryMillis);
+        synchronized (this) {
+            if (mCoordinator != null) {
+                mRetry = mCoordinator.schedule(mRetryTask, mRetryDelayMillis, TimeUnit.MILLISECONDS);
+            }
+        }
+    }
+
+    private List<Map.Entry<Long, byte[]>> nextBatch(Set<Long> attempted) {
+        List<Map.Entry<Long, byte[]>> batch = new ArrayList<>(mBatchSize);
+        synchronized (mPending) {
+            Iterator<Map.Entry<Long, byte[]>> iterator = mPending.entrySet().iterator();
+            while (iterator.hasNext() && batch.size() < mBatchSize) {
+                Map.Entry<Long, byte[]> entry = iterator.next();
+                if (attempted.add(entry.getKey())) {
+                    batch.add(new AbstractMap.SimpleImmutableEntry<>(entry));
+                }
+            }
+        }
+        return batch;
+    }
+
+    private void complete(long id) {
+        synchronized (mPending) {
+            if (mPending.remove(id) == null) {
+                return;
+            }
+            try {
+                mLog.ack(id);
+            } catch (IOException e) {
+                // 完成记录丢失，恢复后会再次执行
+            }
+        }
+    }
+
+    private static ThreadFactory threadFactory(final String name) {
+        return new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, name);
+                thread.setDaemon(true);
+                return thread;
+            }
+        };
+    }
+
+    /**
+     * 请求处理，在工作线程中调用
+     */
+    public interface RequestHandler {
+        /**
+         * @param payload 提交时的请求内容
+         * @return true: 执行成功，从队列移除<br>false: 留在队列中稍后重试
+         * @throws Exception 视为执行失败
+         */
+        boolean handle(byte[] payload) throws Exception;
+    }
+}
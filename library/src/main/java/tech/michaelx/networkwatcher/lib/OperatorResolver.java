@@ -0,0 +1,420 @@
+package tech.michaelx.networkwatcher.lib;
+
+import android.Manifest;
+import android.annotation.TargetApi;
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
+import android.content.pm.PackageManager;
+import android.os.Build;
+import android.os.Handler;
+import android.os.Looper;
+import android.telephony.SubscriptionInfo;
+import android.telephony.SubscriptionManager;
+import android.telephony.TelephonyManager;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 运营商解析，按SIM卡的MCC/MNC查表得到运营商类型
+ * <p>MCC/MNC编码为int(MCC * 1000 + MNC，MNC为3位时再加{@link #THREE_DIGIT_MNC})，在预置的有序表中二分查找，不创建字符串。
+ * 编码保留MNC位数，"310030"与"31030"不会混淆</p>
+ * <p>双卡设备逐个解析已激活的SIM卡，数据卡的结果写入分发的网络状态({@link NetworkSnapshot#getOperator()})</p>
+ * <p>结果一直缓存，SIM卡状态、默认数据卡或激活的SIM卡变化时丢弃。多卡需要READ_PHONE_STATE权限，没有时只解析默认卡</p>
+ *
+ * @since 2026-10-17
+ */
+public final class OperatorResolver {
+    /**
+     * 运营商类型:未知
+     */
+    public static final int OPERATOR_UNKNOWN = 0;
+    /**
+     * 运营商类型:中国移动
+     */
+    public static final int OPERATOR_CHINA_MOBILE = 1;
+    /**
+     * 运营商类型:中国电信
+     */
+    public static final int OPERATOR_CHINA_TELECOM = 2;
+    /**
+     * 运营商类型:中国联通
+     */
+    public static final int OPERATOR_CHINA_UNICOM = 3;
+    /**
+     * 运营商类型:中国广电
+     */
+    public static final int OPERATOR_CHINA_BROADNET = 4;
+    /**
+     * 运营商类型:其他
+     */
+    public static final int OPERATOR_OTHER = 99;
+    /**
+     * MNC为3位时编码中加上的值
+     */
+    public static final int THREE_DIGIT_MNC = 1000000;
+
+    // 按编码升序排列，国内MNC都是2位，与OPERATORS一一对应
+    private static final int[] PLMNS = {
+            460000, 460001, 460002, 460003, 460004, 460005, 460006,
+            460007, 460008, 460009, 460011, 460015, 460020,
+    };
+    private static final byte[] OPERATORS = {
+            OPERATOR_CHINA_MOBILE, OPERATOR_CHINA_UNICOM, OPERATOR_CHINA_MOBILE, OPERATOR_CHINA_TELECOM,
+            OPERATOR_CHINA_MOBILE, OPERATOR_CHINA_TELECOM, OPERATOR_CHINA_UNICOM,
+            OPERATOR_CHINA_MOBILE, OPERATOR_CHINA_MOBILE, OPERATOR_CHINA_UNICOM, OPERATOR_CHINA_TELECOM,
+            OPERATOR_CHINA_BROADNET, OPERATOR_CHINA_MOBILE,
+    };
+    private static final Subscription[] NO_SUBSCRIPTIONS = new Subscription[0];
+    private static final String ACTION_SIM_STATE_CHANGED = "android.intent.action.SIM_STATE_CHANGED";
+    private static final String ACTION_DEFAULT_DATA_SUBSCRIPTION_CHANGED =
+            "android.intent.action.ACTION_DEFAULT_DATA_SUBSCRIPTION_CHANGED";
+
+    private static final OperatorResolver sResolver = new OperatorResolver();
+
+    private volatile Entry mEntry;
+    // 每次丢弃缓存加一，解析期间缓存被丢弃时不写入解析结果
+    private volatile int mVersion;
+    private boolean mRegistered;
+
+    private OperatorResolver() {
+    }
+
+    public static OperatorResolver getDefault() {
+        return sResolver;
+    }
+
+    /**
+     * 按MCC/MNC查表
+     *
+     * @param plmn MCC/MNC编码，见{@link #plmn(int, int, boolean)}
+     * @return 运营商类型，不在表中时为{@link #OPERATOR_OTHER}，plmn无效时为{@link #OPERATOR_UNKNOWN}
+     */
+    public static int resolve(int plmn) {
+        if (plmn <= 0) {
+            return OPERATOR_UNKNOWN;
+        }
+        int index = Arrays.binarySearch(PLMNS, plmn);
+        return index >= 0 ? OPERATORS[index] : OPERATOR_OTHER;
+    }
+
+    /**
+     * 编码MCC/MNC
+     *
+     * @param mcc           3位的MCC
+     * @param mnc           MNC
+     * @param threeDigitMnc MNC是否为3位，如"310030"中的"030"
+     * @return MCC * 1000 + MNC，MNC为3位时再加{@link #THREE_DIGIT_MNC}
+     */
+    public static int plmn(int mcc, int mnc, boolean threeDigitMnc) {
+        return (threeDigitMnc ? THREE_DIGIT_MNC : 0) + mcc * 1000 + mnc;
+    }
+
+    /**
+     * 把"46000"形式的MCC/MNC转换为int
+     *
+     * @param operator {@link TelephonyManager#getSimOperator()}的返回值，5或6位数字
+     * @return 见{@link #plmn(int, int, boolean)}，格式不对时为0
+     */
+    static int parsePlmn(String operator) {
+        if (operator == null || operator.length() < 5 || operator.length() > 6) {
+            return 0;
+        }
+        int mcc = 0;
+        int mnc = 0;
+        for (int i = 0; i < operator.length(); i++) {
+            int digit = operator.charAt(i) - '0';
+            if (digit < 0 || digit > 9) {
+                return 0;
+            }
+            if (i < 3) {
+                mcc = mcc * 10 + digit;
+            } else {
+                mnc = mnc * 10 + digit;
+            }
+        }
+        return plmn(mcc, mnc, operator.length() == 6);
+    }
+
+    /**
+     * @param context 上下文
+     * @return 数据卡，没有SIM卡时为null
+     */
+    public Subscription getDataSubscription(Context context) {
+        return get(context).data;
+    }
+
+    /**
+     * @param context 上下文
+     * @return 数据卡的运营商类型
+     */
+    public int getOperator(Context context) {
+        Subscription data = get(context).data;
+        return data == null ? OPERATOR_UNKNOWN : data.mOperator;
+    }
+
+    /**
+     * @param context 上下文
+     * @return 已激活的SIM卡，按卡槽排列
+     */
+    public Subscription[] getSubscriptions(Context context) {
+        return get(context).subscriptions.clone();
+    }
+
+    /**
+     * 丢弃缓存，下次查询重新解析
+     */
+    public void invalidate() {
+        synchronized (this) {
+            mVersion++;
+            mEntry = null;
+        }
+    }
+
+    private Entry get(Context context) {
+        Entry entry = mEntry;
+        if (entry != null) {
+            return entry;
+        }
+        Context appContext = context.getApplicationContext();
+        if (appContext == null) {
+            appContext = context;
+        }
+        registerIfNeed(appContext);
+        int version = mVersion;
+        entry = load(appContext);
+        synchronized (this) {
+            if (version == mVersion) {
+                mEntry = entry;
+            }
+        }
+        return entry;
+    }
+
+    private Entry load(Context context) {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.LOLLIPOP_MR1 && hasPhoneStatePermission(context)) {
+            Entry entry = loadSubscriptions(context);
+            if (entry != null) {
+                return entry;
+            }
+        }
+        // 单卡或没有权限时只读取默认卡
+        int plmn = defaultPlmn(context);
+        if (plmn == 0) {
+            return new Entry(NO_SUBSCRIPTIONS, null);
+        }
+        Subscription subscription = new Subscription(0, -1, plmn, true);
+        return new Entry(new Subscription[]{subscription}, subscription);
+    }
+
+    @TargetApi(Build.VERSION_CODES.LOLLIPOP_MR1)
+    private Entry loadSubscriptions(Context context) {
+        List<SubscriptionInfo> infos;
+        try {
+            infos = SubscriptionManager.from(context).getActiveSubscriptionInfoList();
+        } catch (SecurityException e) {
+            return null;
+        }
+        if (infos == null || infos.isEmpty()) {
+            return null;
+        }
+        TelephonyManager tm = (TelephonyManager) context.getSystemService(Context.TELEPHONY_SERVICE);
+        int defaultPlmn = tm == null ? 0 : parsePlmn(tm.getSimOperator());
+        int[] plmns = new int[infos.size()];
+        for (int i = 0; i < plmns.length; i++) {
+            plmns[i] = plmn(tm, infos.get(i), defaultPlmn);
+        }
+        int dataIndex = 0;
+        int dataId = dataSubscriptionId();
+        if (dataId == SubscriptionManager.INVALID_SUBSCRIPTION_ID) {
+            // API 24以下取不到数据卡，默认卡一般就是数据卡
+            for (int i = 0; i < plmns.length; i++) {
+                if (plmns[i] == defaultPlmn) {
+                    dataIndex = i;
+                    break;
+                }
+            }
+        } else {
+            for (int i = 0; i < infos.size(); i++) {
+                if (infos.get(i).getSubscriptionId() == dataId) {
+                    dataIndex = i;
+                    break;
+                }
+            }
+        }
+        Subscription[] subscriptions = new Subscription[infos.size()];
+        for (int i = 0; i < subscriptions.length; i++) {
+            SubscriptionInfo info = infos.get(i);
+            subscriptions[i] = new Subscription(info.getSimSlotIndex(), info.getSubscriptionId(), plmns[i],
+                    i == dataIndex);
+        }
+        return new Entry(subscriptions, subscriptions[dataIndex]);
+    }
+
+    /**
+     * SubscriptionInfo的MNC是int，丢失了位数：API 24起按订阅读取MCC/MNC字符串，
+     * 否则与默认卡的MCC/MNC数值相同时沿用其位数，都不行时MNC不足3位按2位处理
+     */
+    @TargetApi(Build.VERSION_CODES.LOLLIPOP_MR1)
+    private static int plmn(TelephonyManager tm, SubscriptionInfo info, int defaultPlmn) {
+        int mcc = info.getMcc();
+        int mnc = info.getMnc();
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.N && tm != null) {
+            int plmn = parsePlmn(tm.createForSubscriptionId(info.getSubscriptionId()).getSimOperator());
+            if (plmn != 0 && plmn % THREE_DIGIT_MNC == mcc * 1000 + mnc) {
+                return plmn;
+            }
+        }
+        if (defaultPlmn != 0 && defaultPlmn % THREE_DIGIT_MNC == mcc * 1000 + mnc) {
+            return defaultPlmn;
+        }
+        return plmn(mcc, mnc, mnc >= 100);
+    }
+
+    private static int dataSubscriptionId() {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.N) {
+            return SubscriptionManager.getDefaultDataSubscriptionId();
+        }
+        return SubscriptionManager.INVALID_SUBSCRIPTION_ID;
+    }
+
+    private static int defaultPlmn(Context context) {
+        TelephonyManager tm = (TelephonyManager) context.getSystemService(Context.TELEPHONY_SERVICE);
+        return tm == null ? 0 : parsePlmn(tm.getSimOperator());
+    }
+
+    private static boolean hasPhoneStatePermission(Context context) {
+        return context.checkCallingOrSelfPermission(Manifest.permission.READ_PHONE_STATE)
+                == PackageManager.PERMISSION_GRANTED;
+    }
+
+    /**
+     * 首次解析时注册SIM卡变化通知，之后一直保留
+     */
+    private synchronized void registerIfNeed(final Context context) {
+        if (mRegistered) {
+            return;
+        }
+        mRegistered = true;
+        IntentFilter filter = new IntentFilter();
+        filter.addAction(ACTION_SIM_STATE_CHANGED);
+        filter.addAction(ACTION_DEFAULT_DATA_SUBSCRIPTION_CHANGED);
+        context.registerReceiver(new BroadcastReceiver() {
+            @Override
+            public void onReceive(Context context, Intent intent) {
+                invalidate();
+            }
+        }, filter);
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.LOLLIPOP_MR1 && hasPhoneStatePermission(context)) {
+            // 监听器在创建它的线程的Looper上回调，需在主线程创建
+            new Handler(Looper.getMainLooper()).post(new Runnable() {
+                @Override
+                public void run() {
+                    addSubscriptionsListener(context);
+                }
+            });
+        }
+    }
+
+    @TargetApi(Build.VERSION_CODES.LOLLIPOP_MR1)
+    private void addSubscriptionsListener(Context context) {
+        try {
+            SubscriptionManager.from(context).addOnSubscriptionsChangedListener(
+                    new SubscriptionManager.OnSubscriptionsChangedListener() {
+                        @Override
+                        public void onSubscriptionsChanged() {
+                            invalidate();
+                        }
+                    });
+        } catch (SecurityException e) {
+            // 只靠广播丢弃缓存
+        }
+    }
+
+    /**
+     * 一张已激活的SIM卡
+     */
+    public static final class Subscription {
+        private final int mSlotIndex;
+        private final int mSubscriptionId;
+        private final int mPlmn;
+        private final int mOperator;
+        private final boolean mData;
+
+        Subscription(int slotIndex, int subscriptionId, int plmn, boolean data) {
+            mSlotIndex = slotIndex;
+            mSubscriptionId = subscriptionId;
+            mPlmn = plmn;
+            mOperator = resolve(plmn);
+            mData = data;
+        }
+
+        /**
+         * @return 卡槽，从0开始
+         */
+        public int getSlotIndex() {
+            return mSlotIndex;
+        }
+
+        /**
+         * @return 订阅ID，只读取了默认卡时为-1
+         */
+        public int getSubscriptionId() {
+            return mSubscriptionId;
+        }
+
+        /**
+         * @return MCC/MNC编码，如中国移动46000为460000，见{@link OperatorResolver#plmn(int, int, boolean)}
+         */
+        public int getPlmn() {
+            return mPlmn;
+        }
+
+        public int getMcc() {
+            return mPlmn % THREE_DIGIT_MNC / 1000;
+        }
+
+        public int getMnc() {
+            return mPlmn % 1000;
+        }
+
+        /**
+         * @return MNC是否为3位
+         */
+        public boolean isThreeDigitMnc() {
+            return mPlmn >= THREE_DIGIT_MNC;
+        }
+
+        /**
+         * @return 运营商类型，见{@link OperatorResolver}的OPERATOR_*
+         */
+        public int getOperator() {
+            return mOperator;
+        }
+
+        /**
+         * @return 是否数据卡
+         */
+        public boolean isDataSubscription() {
+            return mData;
+        }
+
+        @Override
+        public String toString() {
+            return "Subscription{slot=" + mSlotIndex + ", id=" + mSubscriptionId + ", plmn=" + mPlmn
+                    + ", operator=" + mOperator + ", data=" + mData + '}';
+        }
+    }
+
+    private static final class Entry {
+        final Subscription[] subscriptions;
+        final Subscription data;
+
+        Entry(Subscription[] subscriptions, Subscription data) {
+            this.subscriptions = subscriptions;
+            this.data = data;
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package tech.michaelx.networkwatcher.lib;
+
+/**
+ * 网络可达性探测策略
+ *
+ * @since 2026-10-17
+ */
+public final class ProbePolicy {
+    /**
+     * 默认探测地址，返回204表示网络可用。使用HTTPS，API 28起默认禁止明文请求，无需额外配置
+     */
+    public static final String DEFAULT_URL = "https://www.google.cn/generate_204";
+    /**
+     * 默认策略：超时5秒，失败后从1秒开始退避、最长1分钟，成功结果缓存1分钟
+     */
+    public static final ProbePolicy DEFAULT = new ProbePolicy(DEFAULT_URL, 204, 5000, 1000, 60 * 1000, 60 * 1000);
+
+    final String url;
+    final int expectedStatus;
+    final int timeoutMillis;
+    final long initialBackoffMillis;
+    final long maxBackoffMillis;
+    final long cacheMillis;
+
+    /**
+     * @param url                  探测地址，http地址在API 28起需在network-security-config中允许该域名明文通信
+     * @param expectedStatus       网络可用时探测地址返回的状态码，其他2xx/3xx视为被认证页劫持
+     * @param timeoutMillis        连接及读取超时，毫秒
+     * @param initialBackoffMillis 第一次失败后多久才再次探测，之后每次失败翻倍
+     * @param maxBackoffMillis     退避时间上限
+     * @param cacheMillis          探测成功的结果缓存多久
+     */
+    public ProbePolicy(String url, int expectedStatus, int timeoutMillis, long initialBackoffMillis,
+                       long maxBackoffMillis, long cacheMillis) {
+        if (url == null) {
+            throw new IllegalArgumentException("url must not be null!");
+        }
+        if (timeoutMillis <= 0) {
+            throw new IllegalArgumentException("timeoutMillis must be positive!");
+        }
+        if (initialBackoffMillis < 0 || maxBackoffMillis < initialBackoffMillis || cacheMillis < 0) {
+            throw new IllegalArgumentException("Invalid backoff or cache duration!");
+        }
+        this.url = url;
+        this.expectedStatus = expectedStatus;
+        this.timeoutMillis = timeoutMillis;
+        this.initialBackoffMillis = initialBackoffMillis;
+        this.maxBackoffMillis = maxBackoffMillis;
+        this.cacheMillis = cacheMillis;
+    }
+
+    /**
+     * @param failures 连续失败次数，至少为1
+     * @return 下次探测前需等待的时间
+     */
+    long backoffMillis(int failures) {
+        long backoff = initialBackoffMillis;
+        for (int i = 1; i < failures && backoff < maxBackoffMillis; i++) {
+            backoff <<= 1;
+        }
+        return Math.min(backoff, maxBackoffMillis);
+    }
+}
@@ -0,0 +1,338 @@
+package tech.michaelx.networkwatcher.lib;
+
+import java.io.IOException;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import javax.net.ssl.SSLException;
+
+import static tech.michaelx.networkwatcher.annotation.constant.ReachabilityEnum.REACHABILITY_CAPTIVE_PORTAL;
+import static tech.michaelx.networkwatcher.annotation.constant.ReachabilityEnum.REACHABILITY_UNKNOWN;
+import static tech.michaelx.networkwatcher.annotation.constant.ReachabilityEnum.REACHABILITY_UNREACHABLE;
+import static tech.michaelx.networkwatcher.annotation.constant.ReachabilityEnum.REACHABILITY_VALIDATED;
+
+/**
+ * 网络可达性探测，区分"已连接"与"确实能上网"
+ * <p>向{@link ProbePolicy}配置的地址发请求：返回预期状态码为VALIDATED，返回其他内容(如认证页)或HTTPS握手失败为CAPTIVE_PORTAL，
+ * 超时或失败为UNREACHABLE。同一网络同时只有一个探测请求，并发的调用共享其结果；失败后按指数退避，
+ * 退避期间直接返回上次的结果</p>
+ * <p>结果按网络缓存，网络变化时作废新网络的缓存；可达性变化时通知
+ * {@link tech.michaelx.networkwatcher.annotation.OnReachabilityChanged}方法</p>
+ *
+ * @since 2026-10-17
+ */
+public final class ReachabilityProber {
+    private static final int MAX_CACHED_NETWORKS = 8;
+    private static final int POOL_SIZE = 2;
+    private static final long KEEP_ALIVE_SECONDS = 30;
+
+    private static volatile ReachabilityProber sProber;
+
+    private final Clock mClock;
+    private final Executor mExecutor;
+    private final Object mLock = new Object();
+    // 按网络缓存的探测结果，key为null表示还不知道当前网络
+    private final Map<NetworkSnapshot, Result> mEntries =
+            new LinkedHashMap<NetworkSnapshot, Result>(MAX_CACHED_NETWORKS, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<NetworkSnapshot, Result> eldest) {
+                    return size() > MAX_CACHED_NETWORKS;
+                }
+            };
+    private ProbePolicy mPolicy = ProbePolicy.DEFAULT;
+    private NetworkSnapshot mNetwork;
+    private Probe mInFlight;
+    private int mPublished = REACHABILITY_UNKNOWN;
+    private boolean mAutoProbe;
+    private volatile Listener mListener;
+
+    ReachabilityProber(Clock clock, Executor executor) {
+        mClock = clock;
+        mExecutor = executor;
+    }
+
+    public static ReachabilityProber getDefault() {
+        if (sProber == null) {
+            synchronized (ReachabilityProber.class) {
+                if (sProber == null) {
+                    ThreadPoolExecutor executor = new ThreadPoolExecutor(POOL_SIZE, POOL_SIZE, KEEP_ALIVE_SECONDS,
+                            TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+                        @Override
+                        public Thread newThread(Runnable r) {
+                            Thread thread = new Thread(r, "NetworkWatcher-probe");
+                            thread.setDaemon(true);
+                            return thread;
+                        }
+                    });
+                    executor.allowCoreThreadTimeOut(true);
+                    sProber = new ReachabilityProber(Clock.SYSTEM, executor);
+                }
+            }
+        }
+        return sProber;
+    }
+
+    /**
+     * 设置探测策略，已缓存的结果作废
+     *
+     * @param policy 探测策略，null表示默认策略
+     */
+    public void setPolicy(ProbePolicy policy) {
+        synchronized (mLock) {
+            mPolicy = policy == null ? ProbePolicy.DEFAULT : policy;
+            mEntries.clear();
+        }
+    }
+
+    /**
+     * 是否在网络变化时自动探测，默认不探测
+     */
+    public void setAutoProbe(boolean autoProbe) {
+        synchronized (mLock) {
+            mAutoProbe = autoProbe;
+        }
+        if (autoProbe) {
+            probe();
+        }
+    }
+
+    /**
+     * @return 当前网络缓存的可达性，没有探测过或缓存过期时为REACHABILITY_UNKNOWN，不会发起探测
+     */
+    public int getReachability() {
+        synchronized (mLock) {
+            Result entry = mEntries.get(mNetwork);
+            return entry != null && isFresh(entry) ? entry.state : REACHABILITY_UNKNOWN;
+        }
+    }
+
+    /**
+     * @return 当前网络是否确实能上网，基于缓存的探测结果
+     */
+    public boolean isValidated() {
+        return getReachability() == REACHABILITY_VALIDATED;
+    }
+
+    /**
+     * 异步探测当前网络，缓存有效或正在探测时不会发起新请求
+     */
+    public void probe() {
+        start();
+    }
+
+    /**
+     * 探测当前网络并等待结果，不要在主线程调用
+     *
+     * @param waitMillis 最长等待时间，毫秒
+     * @return 探测结果，超时时返回当前缓存的可达性
+     */
+    public int probe(long waitMillis) {
+        Probe probe = start();
+        try {
+            if (probe.done.await(waitMillis, TimeUnit.MILLISECONDS)) {
+                return probe.result;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return getReachability();
+    }
+
+    /**
+     * @return 正在进行的探测，缓存有效时返回已完成的探测
+     */
+    private Probe start() {
+        Probe probe;
+        synchronized (mLock) {
+            NetworkSnapshot network = mNetwork;
+            if (network != null && !network.isConnected()) {
+                return completed(network, REACHABILITY_UNREACHABLE);
+            }
+            Result entry = mEntries.get(network);
+            if (entry != null && isFresh(entry)) {
+                return completed(network, entry.state);
+            }
+            if (mInFlight != null && equal(mInFlight.network, network)) {
+                return mInFlight;
+            }
+            probe = new Probe(network, mPolicy);
+            mInFlight = probe;
+        }
+        mExecutor.execute(probe);
+        return probe;
+    }
+
+    /**
+     * 网络变化，作废新网络缓存的结果
+     */
+    void onNetworkChanged(NetworkSnapshot network) {
+        boolean autoProbe;
+        int published;
+        synchronized (mLock) {
+            if (equal(network, mNetwork)) {
+                return;
+            }
+            mNetwork = network;
+            mEntries.remove(network);
+            published = network.isConnected() ? REACHABILITY_UNKNOWN : REACHABILITY_UNREACHABLE;
+            autoProbe = mAutoProbe && network.isConnected();
+            if (published == mPublished) {
+                published = -1;
+            } else {
+                mPublished = published;
+            }
+        }
+        if (published >= 0) {
+            notifyListener(published);
+        }
+        if (autoProbe) {
+            probe();
+        }
+    }
+
+    private Probe completed(NetworkSnapshot network, int result) {
+        Probe probe = new Probe(network, mPolicy);
+        probe.result = result;
+        probe.done.countDown();
+        return probe;
+    }
+
+    void setListener(Listener listener) {
+        mListener = listener;
+    }
+
+    private void onProbeFinished(Probe probe) {
+        int published = -1;
+        synchronized (mLock) {
+            if (mInFlight == probe) {
+                mInFlight = null;
+            }
+            if (probe.policy != mPolicy) {
+                // 探测期间修改了策略，结果作废
+                return;
+            }
+            Result entry = mEntries.get(probe.network);
+            if (entry == null) {
+                entry = new Result();
+                mEntries.put(probe.network, entry);
+            }
+            long now = mClock.elapsedRealtime();
+            entry.state = probe.result;
+            entry.checkedAt = now;
+            if (probe.result == REACHABILITY_VALIDATED) {
+                entry.failures = 0;
+                entry.retryAt = now;
+            } else {
+                entry.failures++;
+                entry.retryAt = now + probe.policy.backoffMillis(entry.failures);
+            }
+            if (equal(probe.network, mNetwork) && probe.result != mPublished) {
+                mPublished = probe.result;
+                published = probe.result;
+            }
+        }
+        if (published >= 0) {
+            notifyListener(published);
+        }
+    }
+
+    private void notifyListener(int reachability) {
+        Listener listener = mListener;
+        if (listener != null) {
+            listener.onReachabilityChanged(reachability);
+        }
+    }
+
+    /**
+     * 成功结果在缓存期内有效，失败结果在退避期内有效
+     */
+    private boolean isFresh(Result entry) {
+        long now = mClock.elapsedRealtime();
+        if (entry.state == REACHABILITY_VALIDATED) {
+            return now - entry.checkedAt < mPolicy.cacheMillis;
+        }
+        return now < entry.retryAt;
+    }
+
+    private static boolean equal(NetworkSnapshot a, NetworkSnapshot b) {
+        return a == null ? b == null : a.equals(b);
+    }
+
+    /**
+     * 发送一次探测请求
+     *
+     * @return 可达性
+     */
+    static int execute(ProbePolicy policy) {
+        HttpURLConnection connection = null;
+        try {
+            connection = (HttpURLConnection) new URL(policy.url).openConnection();
+            connection.setInstanceFollowRedirects(false);
+            connection.setConnectTimeout(policy.timeoutMillis);
+            connection.setReadTimeout(policy.timeoutMillis);
+            connection.setUseCaches(false);
+            int code = connection.getResponseCode();
+            if (code == policy.expectedStatus) {
+                return REACHABILITY_VALIDATED;
+            }
+            // 请求被应答但不是预期的结果，通常是认证页劫持或重定向
+            if (code >= 200 && code < 400) {
+                return REACHABILITY_CAPTIVE_PORTAL;
+            }
+            return REACHABILITY_UNREACHABLE;
+        } catch (SSLException e) {
+            // HTTPS握手失败说明连接被中间设备接管，通常是认证页劫持
+            return REACHABILITY_CAPTIVE_PORTAL;
+        } catch (IOException e) {
+            return REACHABILITY_UNREACHABLE;
+        } finally {
+            if (connection != null) {
+                connection.disconnect();
+            }
+        }
+    }
+
+    private final class Probe implements Runnable {
+        final NetworkSnapshot network;
+        final ProbePolicy policy;
+        final CountDownLatch done = new CountDownLatch(1);
+        volatile int result = REACHABILITY_UNKNOWN;
+
+        Probe(NetworkSnapshot network, ProbePolicy policy) {
+            this.network = network;
+            this.policy = policy;
+        }
+
+        @Override
+        public void run() {
+            try {
+                result = execute(policy);
+                onProbeFinished(this);
+            } finally {
+                done.countDown();
+            }
+        }
+    }
+
+    private static final class Result {
+        int state;
+        long checkedAt;
+        int failures;
+        long retryAt;
+    }
+
+    interface Listener {
+        /**
+         * 在探测线程或网络变化的线程回调
+         */
+        void onReachabilityChanged(int reachability);
+    }
+}
@@ -0,0 +1,164 @@
+package tech.michaelx.networkwatcher.lib;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import tech.michaelx.networkwatcher.annotation.NetworkStateChanged;
+import tech.michaelx.networkwatcher.annotation.OnCapabilitiesChanged;
+import tech.michaelx.networkwatcher.annotation.OnConnectionQualityChanged;
+import tech.michaelx.networkwatcher.annotation.OnNetworkTransition;
+import tech.michaelx.networkwatcher.annotation.OnNetworkTypeChangedTo;
+import tech.michaelx.networkwatcher.annotation.OnReachabilityChanged;
+import tech.michaelx.networkwatcher.annotation.OnTrafficThreshold;
+
+/**
+ * 反射分发器，用于没有生成{@link ObserverDispatcher}的类
+ * <p>创建时扫描类及其父类，只保留被注解的方法及解析后的注解参数，分发时直接invoke缓存的Method</p>
+ *
+ * @since 2026-10-17
+ */
+final class ReflectiveDispatcher implements ObserverDispatcher<Object> {
+    private static final int SHAPE_NO_ARGS = 0;
+    private static final int SHAPE_TYPE = 1;
+    private static final int SHAPE_QUALITY = 2;
+    private static final int SHAPE_TRAFFIC = 3;
+    private static final int SHAPE_TRANSITION = 4;
+    private static final int SHAPE_REACHABILITY = 5;
+    private static final int SHAPE_CAPABILITIES = 6;
+
+    private final SubscriberMethod[] mSubscriberMethods;
+    private final Method[] mMethods;
+    private final int[] mShapes;
+
+    ReflectiveDispatcher(Class<?> clazz) {
+        List<SubscriberMethod> subscriberMethods = new ArrayList<>();
+        List<Method> methods = new ArrayList<>();
+        List<Integer> shapes = new ArrayList<>();
+        // 子类覆写的方法只保留子类的那一个
+        Set<String> signatures = new HashSet<>();
+        for (Class<?> c = clazz; c != null && !isSystemClass(c); c = c.getSuperclass()) {
+            for (Method method : c.getDeclaredMethods()) {
+                if (Modifier.isStatic(method.getModifiers()) || method.isBridge() || method.isSynthetic()) {
+                    continue;
+                }
+                Class<?>[] parameterTypes = method.getParameterTypes();
+                NetworkStateChanged stateChanged = method.getAnnotation(NetworkStateChanged.class);
+                OnNetworkTypeChangedTo typeChangedTo = method.getAnnotation(OnNetworkTypeChangedTo.class);
+                OnConnectionQualityChanged qualityChanged = method.getAnnotation(OnConnectionQualityChanged.class);
+                OnTrafficThreshold trafficThreshold = method.getAnnotation(OnTrafficThreshold.class);
+                OnNetworkTransition transition = method.getAnnotation(OnNetworkTransition.class);
+                OnReachabilityChanged reachabilityChanged = method.getAnnotation(OnReachabilityChanged.class);
+                OnCapabilitiesChanged capabilitiesChanged = method.getAnnotation(OnCapabilitiesChanged.class);
+                if (stateChanged == null && typeChangedTo == null && qualityChanged == null
+                        && trafficThreshold == null && transition == null && reachabilityChanged == null
+                        && capabilitiesChanged == null) {
+                    continue;
+                }
+                if (!signatures.add(method.getName() + Arrays.toString(parameterTypes))) {
+                    continue;
+                }
+                if (stateChanged != null && parameterTypes.length == 1 && parameterTypes[0] == Integer.TYPE) {
+                    method.setAccessible(true);
+                    subscriberMethods.add(new SubscriberMethod(SubscriberMethod.KIND_STATE_CHANGED,
+                            0, stateChanged.notifyOnAppStart(), stateChanged.threadMode()));
+                    methods.add(method);
+                    shapes.add(SHAPE_TYPE);
+                }
+                if (typeChangedTo != null && parameterTypes.length == 0) {
+                    method.setAccessible(true);
+                    subscriberMethods.add(new SubscriberMethod(SubscriberMethod.KIND_TYPE_CHANGED_TO,
+                            typeChangedTo.type(), typeChangedTo.notifyOnAppStart(), typeChangedTo.threadMode()));
+                    methods.add(method);
+                    shapes.add(SHAPE_NO_ARGS);
+                }
+                if (qualityChanged != null && parameterTypes.length == 1 && parameterTypes[0] == Integer.TYPE) {
+                    method.setAccessible(true);
+                    subscriberMethods.add(new SubscriberMethod(SubscriberMethod.KIND_QUALITY_CHANGED,
+                            0, false, qualityChanged.threadMode()));
+                    methods.add(method);
+                    shapes.add(SHAPE_QUALITY);
+                }
+                if (trafficThreshold != null && trafficThreshold.bytes() > 0
+                        && parameterTypes.length == 1 && parameterTypes[0] == Long.TYPE) {
+                    method.setAccessible(true);
+                    subscriberMethods.add(new SubscriberMethod(SubscriberMethod.KIND_TRAFFIC_THRESHOLD,
+                            trafficThreshold.type(), false, trafficThreshold.threadMode(), trafficThreshold.bytes()));
+                    methods.add(method);
+                    shapes.add(SHAPE_TRAFFIC);
+                }
+                if (transition != null && parameterTypes.length == 3 && parameterTypes[0] == Integer.TYPE
+                        && parameterTypes[1] == Integer.TYPE && parameterTypes[2] == Long.TYPE) {
+                    method.setAccessible(true);
+                    subscriberMethods.add(SubscriberMethod.transition(transition.from(), transition.to(),
+                            transition.threadMode()));
+                    methods.add(method);
+                    shapes.add(SHAPE_TRANSITION);
+                }
+                if (reachabilityChanged != null && parameterTypes.length == 1 && parameterTypes[0] == Integer.TYPE) {
+                    method.setAccessible(true);
+                    subscriberMethods.add(new SubscriberMethod(SubscriberMethod.KIND_REACHABILITY_CHANGED,
+                            0, false, reachabilityChanged.threadMode()));
+                    methods.add(method);
+                    shapes.add(SHAPE_REACHABILITY);
+                }
+                if (capabilitiesChanged != null && parameterTypes.length == 1 && parameterTypes[0] == Integer.TYPE
+                        && (capabilitiesChanged.required() & capabilitiesChanged.forbidden()) == 0) {
+                    method.setAccessible(true);
+                    subscriberMethods.add(SubscriberMethod.capabilities(capabilitiesChanged.required(),
+                            capabilitiesChanged.forbidden(), capabilitiesChanged.notifyOnAppStart(),
+                            capabilitiesChanged.threadMode()));
+                    methods.add(method);
+                    shapes.add(SHAPE_CAPABILITIES);
+                }
+            }
+        }
+        mSubscriberMethods = subscriberMethods.toArray(new SubscriberMethod[subscriberMethods.size()]);
+        mMethods = methods.toArray(new Method[methods.size()]);
+        mShapes = new int[shapes.size()];
+        for (int i = 0; i < mShapes.length; i++) {
+            mShapes[i] = shapes.get(i);
+        }
+    }
+
+    private static boolean isSystemClass(Class<?> clazz) {
+        String name = clazz.getName();
+        return name.startsWith("java.") || name.startsWith("javax.")
+                || name.startsWith("android.") || name.startsWith("androidx.");
+    }
+
+    @Override
+    public SubscriberMethod[] getSubscriberMethods() {
+        return mSubscriberMethods;
+    }
+
+    @Override
+    public void dispatch(Object observer, int index, NetworkEvent event) {
+        try {
+            if (mShapes[index] == SHAPE_TYPE) {
+                mMethods[index].invoke(observer, event.getType());
+            } else if (mShapes[index] == SHAPE_QUALITY) {
+                mMethods[index].invoke(observer, event.getQuality());
+            } else if (mShapes[index] == SHAPE_TRAFFIC) {
+                mMethods[index].invoke(observer, event.getTrafficBytes());
+            } else if (mShapes[index] == SHAPE_REACHABILITY) {
+                mMethods[index].invoke(observer, event.getReachability());
+            } else if (mShapes[index] == SHAPE_CAPABILITIES) {
+                mMethods[index].invoke(observer, event.getCapabilities());
+            } else if (mShapes[index] == SHAPE_TRANSITION) {
+                mMethods[index].invoke(observer, event.getPreviousType(), event.getType(), event.getDwellMillis());
+            } else {
+                mMethods[index].invoke(observer);
+            }
+        } catch (IllegalAccessException e) {
+            e.printStackTrace();
+        } catch (InvocationTargetException e) {
+            e.printStackTrace();
+        }
+    }
+}
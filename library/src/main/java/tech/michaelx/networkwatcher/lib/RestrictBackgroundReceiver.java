@@ -0,0 +1,48 @@
+package tech.michaelx.networkwatcher.lib;
+
+import android.annotation.TargetApi;
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
+import android.net.ConnectivityManager;
+import android.os.Build;
+
+import static tech.michaelx.networkwatcher.annotation.constant.CapabilityEnum.CAPABILITY_DATA_SAVER;
+
+/**
+ * 流量节省程序(Data Saver)开关或本应用白名单变化的广播接收者，API 24及以上由内置的网络变化来源在监听期间注册，
+ * 自定义的来源不注册
+ * <p>网络本身不变，只把当前网络状态的DATA_SAVER能力位换成新的。注册期间DATA_SAVER能力位缓存在
+ * {@link NetworkUtils}中，采集网络状态时不再查询。系统只向前台应用发送该广播，后台期间的变化在下一次网络切换时重新查询</p>
+ *
+ * @since 2026-10-17
+ */
+@TargetApi(Build.VERSION_CODES.N)
+final class RestrictBackgroundReceiver extends BroadcastReceiver {
+    private final NetworkSource.Callback mCallback;
+
+    RestrictBackgroundReceiver(NetworkSource.Callback callback) {
+        mCallback = callback;
+    }
+
+    void register(Context context) {
+        NetworkUtils.refreshDataSaverCapability(
+                (ConnectivityManager) context.getSystemService(Context.CONNECTIVITY_SERVICE));
+        context.registerReceiver(this, new IntentFilter(ConnectivityManager.ACTION_RESTRICT_BACKGROUND_CHANGED));
+    }
+
+    void unregister(Context context) {
+        context.unregisterReceiver(this);
+        NetworkUtils.clearDataSaverCapability();
+    }
+
+    @Override
+    public void onReceive(Context context, Intent intent) {
+        ConnectivityManager cm = (ConnectivityManager) context.getSystemService(Context.CONNECTIVITY_SERVICE);
+        int dataSaver = NetworkUtils.refreshDataSaverCapability(cm);
+        NetworkSnapshot current = NetworkStateCache.getDefault().get(context);
+        int capabilities = (current.getCapabilities() & ~CAPABILITY_DATA_SAVER) | dataSaver;
+        mCallback.onNetworkChanged(current.withCapabilities(capabilities));
+    }
+}
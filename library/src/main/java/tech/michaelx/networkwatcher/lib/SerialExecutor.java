@@ -0,0 +1,42 @@
+package tech.michaelx.networkwatcher.lib;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.Executor;
+
+/**
+ * 把任务按提交顺序依次交给底层执行器，同一时刻最多执行一个
+ *
+ * @since 2026-10-17
+ */
+final class SerialExecutor implements Executor {
+    private final ArrayDeque<Runnable> mTasks = new ArrayDeque<>();
+    private final Executor mExecutor;
+    private Runnable mActive;
+
+    SerialExecutor(Executor executor) {
+        mExecutor = executor;
+    }
+
+    @Override
+    public synchronized void execute(final Runnable r) {
+        mTasks.offer(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    r.run();
+                } finally {
+                    scheduleNext();
+                }
+            }
+        });
+        if (mActive == null) {
+            scheduleNext();
+        }
+    }
+
+    private synchronized void scheduleNext() {
+        if ((mActive = mTasks.poll()) != null) {
+            mExecutor.execute(mActive);
+        }
+    }
+}
@@ -0,0 +1,275 @@
+package tech.michaelx.networkwatcher.lib;
+
+import android.content.Context;
+import android.os.Build;
+import android.os.FileObserver;
+import android.os.Handler;
+import android.os.Looper;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+import static tech.michaelx.networkwatcher.annotation.constant.CapabilityEnum.CAPABILITY_DATA_SAVER;
+
+/**
+ * 多进程共享的网络变化来源，应用的每个进程都设置它即可
+ * <p>持有文件锁的进程作为主进程，使用真正的网络变化来源，并把网络状态写入共享内存文件({@link SharedStateFile})；
+ * 其他进程不注册广播也不查询ConnectivityManager，通过inotify({@link FileObserver})得知更新后无锁读取。
+ * 流量节省程序的开关也只由主进程监听，其他进程从共享的能力位中取得并缓存。
+ * 其他进程在后台线程等待文件锁，主进程退出或停止监听时由其中一个接替</p>
+ *
+ * @since 2026-10-17
+ */
+public final class SharedNetworkSource implements NetworkSource {
+    private static final String STATE_FILE = "networkwatcher.state";
+    private static final String LOCK_FILE = "networkwatcher.lock";
+    private static final String NOTIFY_FILE = "networkwatcher.notify";
+
+    private final NetworkSource mDelegate;
+    private Handler mMainHandler;
+    private ExecutorService mNotifier;
+    private Context mContext;
+    private Callback mCallback;
+    private SharedStateFile mState;
+    private File mNotifyFile;
+    private RandomAccessFile mLockFile;
+    private FileLock mLock;
+    private FileObserver mObserver;
+    // 每次start加一，丢弃上一次start中迟到的回调
+    private int mSession;
+
+    private final Callback mOwnerCallback = new Callback() {
+        @Override
+        public void onNetworkChanged(NetworkSnapshot snapshot) {
+            publish(snapshot);
+            mCallback.onNetworkChanged(snapshot);
+        }
+    };
+
+    private final Runnable mTouchTask = new Runnable() {
+        @Override
+        public void run() {
+            touch(mNotifyFile);
+        }
+    };
+
+    private final Runnable mReadTask = new Runnable() {
+        @Override
+        public void run() {
+            if (mState == null || mLock != null) {
+                return;
+            }
+            NetworkSnapshot snapshot = mState.read();
+            if (snapshot != null) {
+                NetworkUtils.setDataSaverCapability(snapshot.getCapabilities() & CAPABILITY_DATA_SAVER);
+                mCallback.onNetworkChanged(snapshot);
+            }
+        }
+    };
+
+    /**
+     * 主进程API 24及以上使用{@link CallbackNetworkSource}，以下使用{@link BroadcastNetworkSource}
+     */
+    public SharedNetworkSource() {
+        this(Build.VERSION.SDK_INT >= Build.VERSION_CODES.N
+                ? new CallbackNetworkSource() : new BroadcastNetworkSource());
+    }
+
+    /**
+     * @param delegate 主进程使用的网络变化来源
+     */
+    public SharedNetworkSource(NetworkSource delegate) {
+        if (delegate == null) {
+            throw new IllegalArgumentException("delegate must not be null!");
+        }
+        mDelegate = delegate;
+    }
+
+    @Override
+    public void start(Context context, Callback callback) {
+        if (mState != null) {
+            return;
+        }
+        mContext = context;
+        mCallback = callback;
+        if (mMainHandler == null) {
+            mMainHandler = new Handler(Looper.getMainLooper());
+        }
+        File dir = context.getFilesDir();
+        try {
+            mState = new SharedStateFile(new File(dir, STATE_FILE));
+            mLockFile = new RandomAccessFile(new File(dir, LOCK_FILE), "rw");
+            mNotifyFile = new File(dir, NOTIFY_FILE);
+            // inotify只能监听已存在的文件
+            mNotifyFile.createNewFile();
+        } catch (IOException e) {
+            // 无法共享时退回到本进程自己监听
+            closeQuietly();
+            mDelegate.start(context, callback);
+            return;
+        }
+        mSession++;
+        if (tryLock()) {
+            becomeOwner();
+        } else {
+            follow();
+        }
+    }
+
+    @Override
+    public void stop(Context context) {
+        mSession++;
+        if (mState == null) {
+            // 退回到本进程自己监听的情况
+            mDelegate.stop(context);
+            return;
+        }
+        if (mLock != null) {
+            mDelegate.stop(context);
+        } else {
+            NetworkUtils.clearDataSaverCapability();
+        }
+        if (mObserver != null) {
+            mObserver.stopWatching();
+            mObserver = null;
+        }
+        mMainHandler.removeCallbacks(mReadTask);
+        // 关闭文件释放锁，等待锁的线程随之退出
+        closeQuietly();
+    }
+
+    /**
+     * @return 本进程是否为主进程
+     */
+    public boolean isOwner() {
+        return mLock != null;
+    }
+
+    private boolean tryLock() {
+        try {
+            mLock = mLockFile.getChannel().tryLock();
+        } catch (IOException | OverlappingFileLockException e) {
+            mLock = null;
+        }
+        return mLock != null;
+    }
+
+    private void becomeOwner() {
+        if (mObserver != null) {
+            mObserver.stopWatching();
+            mObserver = null;
+        }
+        if (mNotifier == null) {
+            mNotifier = Executors.newSingleThreadExecutor(daemon("NetworkWatcher-shared-notify"));
+        }
+        mDelegate.start(mContext, mOwnerCallback);
+    }
+
+    private void follow() {
+        mObserver = new FileObserver(mNotifyFile.getPath(), FileObserver.CLOSE_WRITE) {
+            @Override
+            public void onEvent(int event, String path) {
+                mMainHandler.post(mReadTask);
+            }
+        };
+        mObserver.startWatching();
+        // 主进程已写入过时立即读取一次
+        mMainHandler.post(mReadTask);
+        final FileChannel channel = mLockFile.getChannel();
+        final int session = mSession;
+        daemon("NetworkWatcher-shared-lock").newThread(new Runnable() {
+            @Override
+            public void run() {
+                final FileLock lock;
+                try {
+                    // 阻塞到主进程释放锁(包括进程被杀)
+                    lock = channel.lock();
+                } catch (IOException e) {
+                    // 已停止，文件被关闭
+                    return;
+                }
+                mMainHandler.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        if (session != mSession || mState == null) {
+                            releaseQuietly(lock);
+                            return;
+                        }
+                        mLock = lock;
+                        becomeOwner();
+                    }
+                });
+            }
+        }).start();
+    }
+
+    private void publish(NetworkSnapshot snapshot) {
+        if (mState == null) {
+            return;
+        }
+        mState.write(snapshot);
+        mNotifier.execute(mTouchTask);
+    }
+
+    private void closeQuietly() {
+        if (mLock != null) {
+            releaseQuietly(mLock);
+            mLock = null;
+        }
+        try {
+            if (mLockFile != null) {
+                mLockFile.close();
+            }
+            if (mState != null) {
+                mState.close();
+            }
+        } catch (IOException e) {
+            // 忽略
+        }
+        mLockFile = null;
+        mState = null;
+    }
+
+    private static void releaseQuietly(FileLock lock) {
+        try {
+            lock.release();
+        } catch (IOException e) {
+            // 文件已关闭时锁已释放
+        }
+    }
+
+    /**
+     * 写一个字节并关闭，其他进程收到CLOSE_WRITE
+     */
+    private static void touch(File file) {
+        try {
+            FileOutputStream out = new FileOutputStream(file);
+            try {
+                out.write(1);
+            } finally {
+                out.close();
+            }
+        } catch (IOException e) {
+            // 其他进程在下次变化时再读取
+        }
+    }
+
+    private static ThreadFactory daemon(final String name) {
+        return new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, name);
+                thread.setDaemon(true);
+                return thread;
+            }
+        };
+    }
+}
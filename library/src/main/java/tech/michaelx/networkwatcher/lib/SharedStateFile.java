@@ -0,0 +1,140 @@
+package tech.michaelx.networkwatcher.lib;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * 映射到内存、在进程间共享的网络状态，一个进程写，其他进程读
+ * <p>按seqlock方式读写：写之前把序号置为奇数，写完加一变为偶数；读取前后序号相同且为偶数时结果有效，
+ * 读取不加锁也不阻塞写入。映射内存的普通读写没有跨进程的顺序保证，因此另存一个覆盖序号与全部字段的校验和，
+ * 读到的字段与校验和不符时视为读到了写入中途的状态，重新读取</p>
+ * <p>布局：序号(8) | 网络类型(4) | 子类型(4) | 标志位(4) | 运营商(4) | MCC/MNC(4) | 能力位(4) | 校验和(4)，
+ * 序号为0表示还未写入过</p>
+ *
+ * @since 2026-10-17
+ */
+final class SharedStateFile implements Closeable {
+    static final int SIZE = 64;
+    private static final int OFFSET_SEQUENCE = 0;
+    private static final int OFFSET_TYPE = 8;
+    private static final int OFFSET_SUBTYPE = 12;
+    private static final int OFFSET_FLAGS = 16;
+    private static final int OFFSET_OPERATOR = 20;
+    private static final int OFFSET_PLMN = 24;
+    private static final int OFFSET_CAPABILITIES = 28;
+    private static final int OFFSET_CHECKSUM = 32;
+    private static final int FLAG_CONNECTED = 1;
+    private static final int FLAG_AVAILABLE = 1 << 1;
+    // 写入进程中途被杀时序号停在奇数，读取最多重试这么多次
+    private static final int MAX_READ_RETRIES = 1000;
+
+    private final RandomAccessFile mFile;
+    private final MappedByteBuffer mBuffer;
+
+    SharedStateFile(File file) throws IOException {
+        mFile = new RandomAccessFile(file, "rw");
+        try {
+            mBuffer = mFile.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, SIZE);
+        } catch (IOException e) {
+            mFile.close();
+            throw e;
+        }
+    }
+
+    /**
+     * 写入新的网络状态，同一时刻只能有一个进程写
+     */
+    void write(NetworkSnapshot snapshot) {
+        // 上一个写入者中途退出时序号为奇数，直接沿用
+        long sequence = mBuffer.getLong(OFFSET_SEQUENCE) | 1;
+        mBuffer.putLong(OFFSET_SEQUENCE, sequence);
+        int type = snapshot.getType();
+        int subtype = snapshot.getSubtype();
+        int flags = (snapshot.isConnected() ? FLAG_CONNECTED : 0) | (snapshot.isAvailable() ? FLAG_AVAILABLE : 0);
+        int operator = snapshot.getOperator();
+        int plmn = snapshot.getPlmn();
+        int capabilities = snapshot.getCapabilities();
+        mBuffer.putInt(OFFSET_TYPE, type);
+        mBuffer.putInt(OFFSET_SUBTYPE, subtype);
+        mBuffer.putInt(OFFSET_FLAGS, flags);
+        mBuffer.putInt(OFFSET_OPERATOR, operator);
+        mBuffer.putInt(OFFSET_PLMN, plmn);
+        mBuffer.putInt(OFFSET_CAPABILITIES, capabilities);
+        mBuffer.putInt(OFFSET_CHECKSUM, checksum(sequence + 1, type, subtype, flags, operator, plmn, capabilities));
+        mBuffer.putLong(OFFSET_SEQUENCE, sequence + 1);
+    }
+
+    /**
+     * @return 最新的网络状态，还未写入过或一直读不到一致的结果时为null
+     */
+    NetworkSnapshot read() {
+        for (int i = 0; i < MAX_READ_RETRIES; i++) {
+            long before = mBuffer.getLong(OFFSET_SEQUENCE);
+            if (before == 0) {
+                return null;
+            }
+            if ((before & 1) != 0) {
+                Thread.yield();
+                continue;
+            }
+            int type = mBuffer.getInt(OFFSET_TYPE);
+            int subtype = mBuffer.getInt(OFFSET_SUBTYPE);
+            int flags = mBuffer.getInt(OFFSET_FLAGS);
+            int operator = mBuffer.getInt(OFFSET_OPERATOR);
+            int plmn = mBuffer.getInt(OFFSET_PLMN);
+            int capabilities = mBuffer.getInt(OFFSET_CAPABILITIES);
+            int checksum = mBuffer.getInt(OFFSET_CHECKSUM);
+            if (checksum == checksum(before, type, subtype, flags, operator, plmn, capabilities)
+                    && mBuffer.getLong(OFFSET_SEQUENCE) == before) {
+                return new NetworkSnapshot(type, subtype, (flags & FLAG_CONNECTED) != 0,
+                        (flags & FLAG_AVAILABLE) != 0, operator, plmn, capabilities);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 序号与字段的32位校验和(MurmurHash3的混合步骤)，不分配内存
+     */
+    private static int checksum(long sequence, int type, int subtype, int flags, int operator, int plmn,
+                                 int capabilities) {
+        int hash = mix(0, (int) sequence);
+        hash = mix(hash, (int) (sequence >>> 32));
+        hash = mix(hash, type);
+        hash = mix(hash, subtype);
+        hash = mix(hash, flags);
+        hash = mix(hash, operator);
+        hash = mix(hash, plmn);
+        hash = mix(hash, capabilities);
+        hash ^= hash >>> 16;
+        hash *= 0x85ebca6b;
+        hash ^= hash >>> 13;
+        hash *= 0xc2b2ae35;
+        return hash ^ (hash >>> 16);
+    }
+
+    private static int mix(int hash, int value) {
+        value *= 0xcc9e2d51;
+        value = Integer.rotateLeft(value, 15);
+        value *= 0x1b873593;
+        hash ^= value;
+        hash = Integer.rotateLeft(hash, 13);
+        return hash * 5 + 0xe6546b64;
+    }
+
+    /**
+     * @return 写入的序号，每次写入加2
+     */
+    long sequence() {
+        return mBuffer.getLong(OFFSET_SEQUENCE);
+    }
+
+    @Override
+    public void close() throws IOException {
+        mFile.close();
+    }
+}
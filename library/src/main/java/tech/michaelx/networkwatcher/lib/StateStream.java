@@ -0,0 +1,183 @@
+package tech.michaelx.networkwatcher.lib;
+
+import java.util.Arrays;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 网络状态流，见{@link NetworkStateWatcher#states()}
+ * <p>订阅时立即收到最近的网络状态；订阅者处理不过来时只保留最新的状态(conflate)，中间状态被丢弃。
+ * 有订阅者时才会开始网络监听，最后一个订阅者取消且没有注册的观察者时停止</p>
+ * <p>可直接桥接到RxJava的{@code Flowable.create(..., BackpressureStrategy.LATEST)}或Kotlin的{@code callbackFlow}</p>
+ *
+ * @since 2026-10-17
+ */
+public final class StateStream {
+    private static final Subscription[] EMPTY = new Subscription[0];
+    private static final Executor DIRECT = new Executor() {
+        @Override
+        public void execute(Runnable command) {
+            command.run();
+        }
+    };
+
+    private final NetworkStateWatcher mWatcher;
+    private final Object mLock = new Object();
+    private volatile Subscription[] mSubscriptions = EMPTY;
+
+    StateStream(NetworkStateWatcher watcher) {
+        mWatcher = watcher;
+    }
+
+    /**
+     * 订阅网络状态，在网络变化的线程(通常是主线程)回调
+     *
+     * @param subscriber 订阅者
+     * @return 订阅，不再需要时调用{@link Subscription#cancel()}
+     */
+    public Subscription subscribe(Subscriber subscriber) {
+        return subscribe(subscriber, DIRECT);
+    }
+
+    /**
+     * 订阅网络状态，在executor上串行回调
+     *
+     * @param subscriber 订阅者
+     * @param executor   回调执行的线程
+     * @return 订阅，不再需要时调用{@link Subscription#cancel()}
+     */
+    public Subscription subscribe(Subscriber subscriber, Executor executor) {
+        if (subscriber == null || executor == null) {
+            throw new IllegalArgumentException("subscriber and executor must not be null!");
+        }
+        Subscription subscription = new Subscription(this, subscriber, executor);
+        boolean first;
+        synchronized (mLock) {
+            Subscription[] subscriptions = mSubscriptions;
+            first = subscriptions.length == 0;
+            subscriptions = Arrays.copyOf(subscriptions, subscriptions.length + 1);
+            subscriptions[subscriptions.length - 1] = subscription;
+            mSubscriptions = subscriptions;
+        }
+        if (first) {
+            mWatcher.onStreamActive();
+        }
+        mWatcher.replayTo(subscription);
+        return subscription;
+    }
+
+    boolean hasSubscribers() {
+        return mSubscriptions.length > 0;
+    }
+
+    void emit(NetworkSnapshot snapshot, long generation) {
+        Subscription[] subscriptions = mSubscriptions;
+        for (int i = 0; i < subscriptions.length; i++) {
+            subscriptions[i].offer(snapshot, generation);
+        }
+    }
+
+    private void remove(Subscription subscription) {
+        boolean last;
+        synchronized (mLock) {
+            Subscription[] subscriptions = mSubscriptions;
+            int index = -1;
+            for (int i = 0; i < subscriptions.length; i++) {
+                if (subscriptions[i] == subscription) {
+                    index = i;
+                    break;
+                }
+            }
+            if (index < 0) {
+                return;
+            }
+            Subscription[] remaining = new Subscription[subscriptions.length - 1];
+            System.arraycopy(subscriptions, 0, remaining, 0, index);
+            System.arraycopy(subscriptions, index + 1, remaining, index, remaining.length - index);
+            mSubscriptions = remaining.length == 0 ? EMPTY : remaining;
+            last = remaining.length == 0;
+        }
+        if (last) {
+            mWatcher.onStreamIdle();
+        }
+    }
+
+    public interface Subscriber {
+        /**
+         * @param snapshot 最新的网络状态
+         */
+        void onNext(NetworkSnapshot snapshot);
+    }
+
+    /**
+     * 一次订阅，待投递的状态只保留最新的一个
+     */
+    public static final class Subscription implements Runnable {
+        private final StateStream mStream;
+        private final Subscriber mSubscriber;
+        private final Executor mExecutor;
+        private final AtomicReference<NetworkSnapshot> mPending = new AtomicReference<>();
+        // 已接收的最新状态序号，保证不会回退到更早的状态
+        private final AtomicLong mGeneration = new AtomicLong(-1);
+        private final AtomicInteger mWip = new AtomicInteger();
+        private volatile boolean mCancelled;
+
+        Subscription(StateStream stream, Subscriber subscriber, Executor executor) {
+            mStream = stream;
+            mSubscriber = subscriber;
+            mExecutor = executor;
+        }
+
+        void offer(NetworkSnapshot snapshot, long generation) {
+            if (mCancelled) {
+                return;
+            }
+            for (; ; ) {
+                long current = mGeneration.get();
+                if (current >= generation) {
+                    return;
+                }
+                if (mGeneration.compareAndSet(current, generation)) {
+                    break;
+                }
+            }
+            mPending.set(snapshot);
+            if (mWip.getAndIncrement() == 0) {
+                mExecutor.execute(this);
+            }
+        }
+
+        @Override
+        public void run() {
+            int missed = 1;
+            for (; ; ) {
+                NetworkSnapshot snapshot = mPending.getAndSet(null);
+                if (snapshot != null && !mCancelled) {
+                    mSubscriber.onNext(snapshot);
+                }
+                missed = mWip.addAndGet(-missed);
+                if (missed == 0) {
+                    return;
+                }
+            }
+        }
+
+        /**
+         * 取消订阅，之后不再回调
+         */
+        public void cancel() {
+            if (mCancelled) {
+                return;
+            }
+            mCancelled = true;
+            mPending.set(null);
+            mStream.remove(this);
+        }
+
+        public boolean isCancelled() {
+            return mCancelled;
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package tech.michaelx.networkwatcher.lib;
+
+import tech.michaelx.networkwatcher.annotation.ThreadMode;
+
+/**
+ * 观察者中一个被注解的网络监听方法的描述信息
+ * <p>由注解处理器生成的{@link ObserverDispatcher}或反射解析得到，分发时不再读取注解</p>
+ *
+ * @since 2026-10-17
+ */
+public final class SubscriberMethod {
+    /**
+     * {@link tech.michaelx.networkwatcher.annotation.NetworkStateChanged}
+     */
+    public static final int KIND_STATE_CHANGED = 1;
+    /**
+     * {@link tech.michaelx.networkwatcher.annotation.OnNetworkTypeChangedTo}
+     */
+    public static final int KIND_TYPE_CHANGED_TO = 2;
+    /**
+     * {@link tech.michaelx.networkwatcher.annotation.OnConnectionQualityChanged}
+     */
+    public static final int KIND_QUALITY_CHANGED = 3;
+    /**
+     * {@link tech.michaelx.networkwatcher.annotation.OnTrafficThreshold}
+     */
+    public static final int KIND_TRAFFIC_THRESHOLD = 4;
+    /**
+     * {@link tech.michaelx.networkwatcher.annotation.OnNetworkTransition}
+     */
+    public static final int KIND_TRANSITION = 5;
+    /**
+     * {@link tech.michaelx.networkwatcher.annotation.OnReachabilityChanged}
+     */
+    public static final int KIND_REACHABILITY_CHANGED = 6;
+    /**
+     * {@link tech.michaelx.networkwatcher.annotation.OnCapabilitiesChanged}
+     */
+    public static final int KIND_CAPABILITIES_CHANGED = 7;
+
+    final int kind;
+    final int type;
+    final boolean notifyOnAppStart;
+    final ThreadMode threadMode;
+    final long threshold;
+    final int fromType;
+    // required | forbidden，与能力位按位与后等于required即满足条件
+    final int capabilityMask;
+    final int requiredCapabilities;
+
+    /**
+     * @param kind             方法类别，KIND_*
+     * @param type             监听的网络类型，仅{@link #KIND_TYPE_CHANGED_TO}和{@link #KIND_TRAFFIC_THRESHOLD}有效
+     * @param notifyOnAppStart 注册观察者时是否立即收到当前网络状态
+     * @param threadMode       方法的执行线程
+     */
+    public SubscriberMethod(int kind, int type, boolean notifyOnAppStart, ThreadMode threadMode) {
+        this(kind, type, notifyOnAppStart, threadMode, 0);
+    }
+
+    /**
+     * @param threshold 流量阈值，字节，仅{@link #KIND_TRAFFIC_THRESHOLD}有效
+     */
+    public SubscriberMethod(int kind, int type, boolean notifyOnAppStart, ThreadMode threadMode, long threshold) {
+        this(kind, type, notifyOnAppStart, threadMode, threshold, 0, 0, 0);
+    }
+
+    private SubscriberMethod(int kind, int type, boolean notifyOnAppStart, ThreadMode threadMode, long threshold,
+                             int fromType, int capabilityMask, int requiredCapabilities) {
+        this.kind = kind;
+        this.type = type;
+        this.notifyOnAppStart = notifyOnAppStart;
+        this.threadMode = threadMode;
+        this.threshold = threshold;
+        this.fromType = fromType;
+        this.capabilityMask = capabilityMask;
+        this.requiredCapabilities = requiredCapabilities;
+    }
+
+    /**
+     * @param fromType   切换前的网络类型
+     * @param toType     切换后的网络类型
+     * @param threadMode 方法的执行线程
+     * @return {@link #KIND_TRANSITION}方法的描述信息
+     */
+    public static SubscriberMethod transition(int fromType, int toType, ThreadMode threadMode) {
+        return new SubscriberMethod(KIND_TRANSITION, toType, false, threadMode, 0, fromType, 0, 0);
+    }
+
+    /**
+     * @param required         必须具备的能力位
+     * @param forbidden        必须不具备的能力位
+     * @param notifyOnAppStart 注册观察者时满足条件是否立即收到当前能力
+     * @param threadMode       方法的执行线程
+     * @return {@link #KIND_CAPABILITIES_CHANGED}方法的描述信息
+     */
+    public static SubscriberMethod capabilities(int required, int forbidden, boolean notifyOnAppStart,
+                                                ThreadMode threadMode) {
+        return new SubscriberMethod(KIND_CAPABILITIES_CHANGED, 0, notifyOnAppStart, threadMode, 0, 0,
+                required | forbidden, required);
+    }
+
+    /**
+     * @param capabilities 当前的能力位
+     * @return 是否满足{@link #KIND_CAPABILITIES_CHANGED}方法的条件
+     */
+    boolean matches(int capabilities) {
+        return (capabilities & capabilityMask) == requiredCapabilities;
+    }
+}
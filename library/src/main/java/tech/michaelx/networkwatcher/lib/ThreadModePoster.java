@@ -0,0 +1,131 @@
+package tech.michaelx.networkwatcher.lib;
+
+import android.os.Handler;
+import android.os.Looper;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 按{@link tech.michaelx.networkwatcher.annotation.ThreadMode}把监听方法的调用切换到对应线程
+ * <p>ASYNC方法先进入观察者自己的串行队列，每个观察者同时最多有一个任务在线程池队列中，因此线程池队列不设上限，
+ * 不会退回到分发线程执行。停止监听后关闭线程，再次使用时重新创建；POSTING方法不经过这里</p>
+ *
+ * @since 2026-10-17
+ */
+final class ThreadModePoster {
+    private static final int CPU_COUNT = Runtime.getRuntime().availableProcessors();
+    private static final int POOL_SIZE = Math.max(2, Math.min(CPU_COUNT - 1, 4));
+    private static final long KEEP_ALIVE_SECONDS = 30;
+
+    private Handler mMainHandler;
+    private ExecutorService mBackgroundExecutor;
+    private ThreadPoolExecutor mAsyncExecutor;
+    // 每次执行时取当前的线程池，关闭后重新创建的线程池对已有的观察者队列同样生效
+    private final Executor mAsync = new Executor() {
+        @Override
+        public void execute(Runnable task) {
+            synchronized (ThreadModePoster.this) {
+                asyncExecutor().execute(task);
+            }
+        }
+    };
+
+    /**
+     * 在主线程调用
+     */
+    void postMain(Runnable task) {
+        if (Looper.myLooper() == Looper.getMainLooper()) {
+            task.run();
+        } else {
+            mainHandler().post(task);
+        }
+    }
+
+    /**
+     * 在后台线程调用
+     */
+    void postBackground(Runnable task) {
+        if (Looper.myLooper() != Looper.getMainLooper()) {
+            task.run();
+        } else {
+            synchronized (this) {
+                backgroundExecutor().execute(task);
+            }
+        }
+    }
+
+    /**
+     * 在线程池中按观察者串行调用
+     */
+    void postAsync(ObserverRef ref, Runnable task) {
+        ref.executor(this).execute(task);
+    }
+
+    /**
+     * @return 观察者串行队列使用的执行器
+     */
+    Executor async() {
+        return mAsync;
+    }
+
+    /**
+     * 关闭后台线程和线程池，已提交的任务仍会执行完
+     */
+    synchronized void shutdown() {
+        if (mBackgroundExecutor != null) {
+            mBackgroundExecutor.shutdown();
+            mBackgroundExecutor = null;
+        }
+        if (mAsyncExecutor != null) {
+            mAsyncExecutor.shutdown();
+            mAsyncExecutor = null;
+        }
+    }
+
+    private synchronized Handler mainHandler() {
+        if (mMainHandler == null) {
+            mMainHandler = new Handler(Looper.getMainLooper());
+        }
+        return mMainHandler;
+    }
+
+    private synchronized ExecutorService backgroundExecutor() {
+        if (mBackgroundExecutor == null) {
+            mBackgroundExecutor = Executors.newSingleThreadExecutor(new NamedThreadFactory("NetworkWatcher-background"));
+        }
+        return mBackgroundExecutor;
+    }
+
+    private synchronized ThreadPoolExecutor asyncExecutor() {
+        if (mAsyncExecutor == null) {
+            // 提交与关闭都持有同一把锁，不会向已关闭的线程池提交
+            mAsyncExecutor = new ThreadPoolExecutor(POOL_SIZE, POOL_SIZE, KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+                    new LinkedBlockingQueue<Runnable>(), new NamedThreadFactory("NetworkWatcher-async"));
+            mAsyncExecutor.allowCoreThreadTimeOut(true);
+        }
+        return mAsyncExecutor;
+    }
+
+    private static final class NamedThreadFactory implements ThreadFactory {
+        private final AtomicInteger mCount = new AtomicInteger(1);
+        private final String mPrefix;
+
+        NamedThreadFactory(String prefix) {
+            mPrefix = prefix;
+        }
+
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread thread = new Thread(r, mPrefix + "-" + mCount.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
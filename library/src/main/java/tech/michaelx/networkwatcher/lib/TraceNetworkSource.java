@@ -0,0 +1,113 @@
+package tech.michaelx.networkwatcher.lib;
+
+import android.content.Context;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 回放{@link ConnectivityTrace}的网络变化来源，用于在JVM上做确定性的回归和压力测试
+ * <p>{@link #play(double)}在调用线程上按轨迹依次回调，因此POSTING方法也在调用线程执行，
+ * 回放结束时所有POSTING方法都已执行完。可配合{@link DeliveryRecorder}统计观察者收到的次数、顺序和延迟</p>
+ * <p>监听期间{@link NetworkStateWatcher}使用按轨迹时间前进的虚拟时钟，每一步回调前前进到这一步的轨迹时间，
+ * 因此停留时长、切换时间及合并窗口与回放速度无关，加速回放与原速回放的结果相同</p>
+ * <pre>
+ * watcher.setNetworkSource(source);
+ * watcher.registerObserver(observer, false);
+ * source.play(TraceNetworkSource.UNTHROTTLED);
+ * </pre>
+ *
+ * @since 2026-10-17
+ */
+public final class TraceNetworkSource implements NetworkSource {
+    /**
+     * 按原速回放
+     */
+    public static final double REALTIME = 1;
+    /**
+     * 不等待间隔，尽快回放
+     */
+    public static final double UNTHROTTLED = 0;
+
+    private final ConnectivityTrace mTrace;
+    private volatile Callback mCallback;
+    private volatile DeliveryRecorder mRecorder;
+    private final TraceClock mClock = new TraceClock();
+
+    public TraceNetworkSource(ConnectivityTrace trace) {
+        if (trace == null) {
+            throw new IllegalArgumentException("trace must not be null!");
+        }
+        mTrace = trace;
+    }
+
+    @Override
+    public void start(Context context, Callback callback) {
+        NetworkStateWatcher.getDefault().setClock(mClock);
+        mCallback = callback;
+    }
+
+    @Override
+    public void stop(Context context) {
+        mCallback = null;
+        NetworkStateWatcher.getDefault().setClock(Clock.SYSTEM);
+    }
+
+    /**
+     * @param recorder 回放开始及每一步回调前通知，用于核对投递顺序和计算延迟，null表示不统计
+     */
+    public void setRecorder(DeliveryRecorder recorder) {
+        mRecorder = recorder;
+    }
+
+    /**
+     * 在调用线程上回放轨迹，回放完或停止监听后返回
+     *
+     * @param speed 回放速度，{@link #REALTIME}为原速，10为10倍速，{@link #UNTHROTTLED}不等待
+     * @return 回放的步数
+     * @throws InterruptedException 等待间隔时被中断
+     */
+    public int play(double speed) throws InterruptedException {
+        if (speed < 0 || Double.isNaN(speed)) {
+            throw new IllegalArgumentException("speed must not be negative!");
+        }
+        DeliveryRecorder recorder = mRecorder;
+        if (recorder != null) {
+            recorder.onStart(mTrace);
+        }
+        long startNanos = System.nanoTime();
+        long elapsedMillis = 0;
+        for (int i = 0; i < mTrace.size(); i++) {
+            elapsedMillis += mTrace.mDelays[i];
+            if (speed > 0) {
+                long waitNanos = startNanos + (long) (TimeUnit.MILLISECONDS.toNanos(elapsedMillis) / speed)
+                        - System.nanoTime();
+                if (waitNanos > 0) {
+                    TimeUnit.NANOSECONDS.sleep(waitNanos);
+                }
+            }
+            Callback callback = mCallback;
+            if (callback == null) {
+                return i;
+            }
+            NetworkSnapshot snapshot = mTrace.mSnapshots[i];
+            mClock.mNowMillis += mTrace.mDelays[i];
+            if (recorder != null) {
+                recorder.onEmitted(i);
+            }
+            callback.onNetworkChanged(snapshot);
+        }
+        return mTrace.size();
+    }
+
+    /**
+     * 轨迹时间，从开始监听时的0起只随回放前进
+     */
+    private static final class TraceClock extends Clock {
+        volatile long mNowMillis;
+
+        @Override
+        long elapsedRealtime() {
+            return mNowMillis;
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package tech.michaelx.networkwatcher.lib;
+
+/**
+ * 定长流量样本环形缓冲，按列存放在基本类型数组中，写入时不装箱也不分配
+ * <p>只在采样线程写入，读取方需自行同步</p>
+ *
+ * @since 2026-10-17
+ */
+final class TrafficRing {
+    private final long[] mTimes;
+    private final long[] mRxBytes;
+    private final long[] mTxBytes;
+    private final int[] mTypes;
+    private int mNext;
+    private int mCount;
+
+    TrafficRing(int capacity) {
+        mTimes = new long[capacity];
+        mRxBytes = new long[capacity];
+        mTxBytes = new long[capacity];
+        mTypes = new int[capacity];
+    }
+
+    /**
+     * @param time    采样时间，毫秒
+     * @param type    采样区间内的网络类型
+     * @param rxBytes 区间内下行字节数
+     * @param txBytes 区间内上行字节数
+     */
+    void add(long time, int type, long rxBytes, long txBytes) {
+        mTimes[mNext] = time;
+        mTypes[mNext] = type;
+        mRxBytes[mNext] = rxBytes;
+        mTxBytes[mNext] = txBytes;
+        mNext = (mNext + 1) % mTimes.length;
+        if (mCount < mTimes.length) {
+            mCount++;
+        }
+    }
+
+    /**
+     * 统计since之后某类网络上的字节数，type为NETWORK_MOBILE时统计所有移动网络，NETWORK_ANY时统计全部
+     *
+     * @param since 起始时间，毫秒
+     */
+    long sumSince(long since, int type) {
+        long sum = 0;
+        for (int i = 0, index = mNext - 1; i < mCount; i++, index--) {
+            if (index < 0) {
+                index = mTimes.length - 1;
+            }
+            if (mTimes[index] <= since) {
+                break;
+            }
+            if (TrafficSampler.matches(type, mTypes[index])) {
+                sum += mRxBytes[index] + mTxBytes[index];
+            }
+        }
+        return sum;
+    }
+
+    void clear() {
+        mNext = 0;
+        mCount = 0;
+    }
+}
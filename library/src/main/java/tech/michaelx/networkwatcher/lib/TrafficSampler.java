@@ -0,0 +1,259 @@
+package tech.michaelx.networkwatcher.lib;
+
+import android.content.Context;
+import android.net.TrafficStats;
+import android.os.Process;
+import android.os.SystemClock;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import static tech.michaelx.networkwatcher.annotation.constant.NetworkTypeEnum.NETWORK_5G;
+import static tech.michaelx.networkwatcher.annotation.constant.NetworkTypeEnum.NETWORK_ANY;
+import static tech.michaelx.networkwatcher.annotation.constant.NetworkTypeEnum.NETWORK_MOBILE;
+import static tech.michaelx.networkwatcher.annotation.constant.NetworkTypeEnum.NETWORK_NO;
+
+/**
+ * 应用流量采样
+ * <p>在后台线程按固定间隔读取{@link TrafficStats}中本应用UID的收发字节数，把增量计入当时的网络类型，
+ * 样本存放在定长的{@link TrafficRing}中。网络变化时立即补采一次，使切换前的流量计入旧网络</p>
+ * <p>累计流量跨过阈值时通知{@link tech.michaelx.networkwatcher.annotation.OnTrafficThreshold}方法</p>
+ *
+ * @since 2026-10-17
+ */
+public final class TrafficSampler {
+    /**
+     * 默认采样间隔，毫秒
+     */
+    public static final long DEFAULT_INTERVAL_MILLIS = 5000;
+    /**
+     * 保留的样本数，默认间隔下约为1小时
+     */
+    private static final int CAPACITY = 720;
+    // 网络类型NETWORK_NO~NETWORK_5G，下标为type - NETWORK_NO
+    private static final int TYPE_SLOTS = NETWORK_5G - NETWORK_NO + 1;
+
+    private static final TrafficSampler sSampler = new TrafficSampler();
+
+    private final TrafficRing mRing = new TrafficRing(CAPACITY);
+    private final long[] mRxTotals = new long[TYPE_SLOTS];
+    private final long[] mTxTotals = new long[TYPE_SLOTS];
+    private ScheduledExecutorService mExecutor;
+    private ScheduledFuture<?> mTask;
+    private Context mContext;
+    private int mUid;
+    // 以下只在采样线程读写
+    private long mLastRxBytes = -1;
+    private long mLastTxBytes = -1;
+    private int mType = NETWORK_NO;
+    private volatile Listener mListener;
+
+    private final Runnable mSampleTask = new Runnable() {
+        @Override
+        public void run() {
+            sample();
+            mType = NetworkStateCache.getDefault().get(mContext).getType();
+        }
+    };
+
+    private TrafficSampler() {
+    }
+
+    public static TrafficSampler getDefault() {
+        return sSampler;
+    }
+
+    /**
+     * 以默认间隔开始采样
+     *
+     * @param context 上下文
+     */
+    public void start(Context context) {
+        start(context, DEFAULT_INTERVAL_MILLIS);
+    }
+
+    /**
+     * 开始采样，已在采样时按新的间隔重新开始
+     *
+     * @param context        上下文
+     * @param intervalMillis 采样间隔，毫秒
+     */
+    public synchronized void start(Context context, long intervalMillis) {
+        if (context == null) {
+            throw new IllegalArgumentException("context must not be null!");
+        }
+        if (intervalMillis <= 0) {
+            throw new IllegalArgumentException("intervalMillis must be positive!");
+        }
+        if (mTask != null) {
+            mTask.cancel(false);
+        }
+        mContext = context.getApplicationContext();
+        mUid = Process.myUid();
+        if (mExecutor == null) {
+            mExecutor = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+                @Override
+                public Thread newThread(Runnable r) {
+                    Thread thread = new Thread(r, "NetworkWatcher-traffic");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+        }
+        mTask = mExecutor.scheduleWithFixedDelay(mSampleTask, 0, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 停止采样，已统计的流量保留
+     */
+    public synchronized void stop() {
+        if (mTask == null) {
+            return;
+        }
+        mTask.cancel(false);
+        mTask = null;
+        // 下次开始时重新取基准值，停止期间的流量不计入
+        mExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                mLastRxBytes = -1;
+                mLastTxBytes = -1;
+            }
+        });
+    }
+
+    public synchronized boolean isRunning() {
+        return mTask != null;
+    }
+
+    /**
+     * 网络类型变化，先把之前的流量计入旧网络
+     */
+    synchronized void onNetworkChanged(final int type) {
+        if (mTask == null) {
+            return;
+        }
+        mExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                sample();
+                mType = type;
+            }
+        });
+    }
+
+    void setListener(Listener listener) {
+        mListener = listener;
+    }
+
+    private void sample() {
+        long rxBytes = TrafficStats.getUidRxBytes(mUid);
+        long txBytes = TrafficStats.getUidTxBytes(mUid);
+        if (rxBytes == TrafficStats.UNSUPPORTED || txBytes == TrafficStats.UNSUPPORTED) {
+            return;
+        }
+        long rxDelta = mLastRxBytes < 0 ? 0 : rxBytes - mLastRxBytes;
+        long txDelta = mLastTxBytes < 0 ? 0 : txBytes - mLastTxBytes;
+        mLastRxBytes = rxBytes;
+        mLastTxBytes = txBytes;
+        // 计数器被重置时重新取基准值
+        if (rxDelta < 0 || txDelta < 0 || rxDelta + txDelta == 0) {
+            return;
+        }
+        int type = mType;
+        synchronized (this) {
+            int slot = type - NETWORK_NO;
+            mRxTotals[slot] += rxDelta;
+            mTxTotals[slot] += txDelta;
+            mRing.add(SystemClock.elapsedRealtime(), type, rxDelta, txDelta);
+        }
+        Listener listener = mListener;
+        if (listener != null) {
+            listener.onTrafficSampled(type, rxDelta + txDelta);
+        }
+    }
+
+    /**
+     * @param type 网络类型，NETWORK_MOBILE表示所有移动网络，NETWORK_ANY表示全部
+     * @return 开始采样以来该网络上的下行字节数
+     */
+    public synchronized long getRxBytes(int type) {
+        return sum(mRxTotals, type);
+    }
+
+    /**
+     * @param type 网络类型，NETWORK_MOBILE表示所有移动网络，NETWORK_ANY表示全部
+     * @return 开始采样以来该网络上的上行字节数
+     */
+    public synchronized long getTxBytes(int type) {
+        return sum(mTxTotals, type);
+    }
+
+    /**
+     * @param type 网络类型，NETWORK_MOBILE表示所有移动网络，NETWORK_ANY表示全部
+     * @return 开始采样以来该网络上的总字节数
+     */
+    public synchronized long getTotalBytes(int type) {
+        return sum(mRxTotals, type) + sum(mTxTotals, type);
+    }
+
+    /**
+     * 最近一段时间内某种网络上的平均速率，最长回溯{@link #CAPACITY}个样本
+     *
+     * @param type         网络类型，NETWORK_MOBILE表示所有移动网络，NETWORK_ANY表示全部
+     * @param windowMillis 统计窗口，毫秒
+     * @return 字节/秒
+     */
+    public synchronized long getBytesPerSecond(int type, long windowMillis) {
+        if (windowMillis <= 0) {
+            return 0;
+        }
+        long bytes = mRing.sumSince(SystemClock.elapsedRealtime() - windowMillis, type);
+        return bytes * 1000 / windowMillis;
+    }
+
+    /**
+     * 清空统计
+     */
+    public synchronized void reset() {
+        for (int i = 0; i < TYPE_SLOTS; i++) {
+            mRxTotals[i] = 0;
+            mTxTotals[i] = 0;
+        }
+        mRing.clear();
+    }
+
+    private static long sum(long[] totals, int type) {
+        long sum = 0;
+        for (int i = 0; i < TYPE_SLOTS; i++) {
+            if (matches(type, i + NETWORK_NO)) {
+                sum += totals[i];
+            }
+        }
+        return sum;
+    }
+
+    /**
+     * @param type       查询或监听的网络类型，NETWORK_MOBILE表示所有移动网络，NETWORK_ANY表示全部
+     * @param sampleType 样本所属的网络类型
+     */
+    static boolean matches(int type, int sampleType) {
+        if (type == NETWORK_ANY) {
+            return true;
+        }
+        return type == NETWORK_MOBILE ? NetworkSnapshot.isMobileType(sampleType) : type == sampleType;
+    }
+
+    interface Listener {
+        /**
+         * 在采样线程回调
+         *
+         * @param type  本次增量计入的网络类型
+         * @param bytes 本次增量，字节
+         */
+        void onTrafficSampled(int type, long bytes);
+    }
+}
@@ -0,0 +1,153 @@
+package tech.michaelx.networkwatcher.lib;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * {@link AppendOnlyLog}在写入中途被杀及压缩后的恢复
+ *
+ * @since 2026-10-17
+ */
+public class AppendOnlyLogTest {
+    // op(1) | id(8) | length(4) | payload | crc32(4)
+    private static final int RECORD_OVERHEAD = 1 + 8 + 4 + 4;
+    private static final byte[] PAYLOAD = "payload".getBytes();
+
+    private File mFile;
+    private AppendOnlyLog mLog;
+
+    @Before
+    public void setUp() throws IOException {
+        mFile = File.createTempFile("offline", ".log");
+        assertTrue(mFile.delete());
+        mLog = new AppendOnlyLog(mFile);
+        mLog.load();
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        mLog.close();
+        mFile.delete();
+        new File(mFile.getPath() + ".tmp").delete();
+    }
+
+    @Test
+    public void tornTailIsTruncatedOnLoad() throws IOException {
+        for (long id = 0; id < 3; id++) {
+            mLog.add(id, PAYLOAD);
+        }
+        mLog.close();
+        // 最后一条记录只写了一部分
+        setLength(mFile.length() - 3);
+
+        LinkedHashMap<Long, byte[]> live = mLog.load();
+
+        assertEquals(Arrays.asList(0L, 1L), new ArrayList<>(live.keySet()));
+        assertEquals(2 * (RECORD_OVERHEAD + PAYLOAD.length), mFile.length());
+
+        // 截断后追加的记录能正常恢复
+        mLog.add(3, PAYLOAD);
+        mLog.close();
+        assertEquals(Arrays.asList(0L, 1L, 3L), new ArrayList<>(mLog.load().keySet()));
+    }
+
+    @Test
+    public void corruptedTailIsDropped() throws IOException {
+        mLog.add(0, PAYLOAD);
+        mLog.add(1, PAYLOAD);
+        mLog.close();
+        // 改坏最后一条记录的payload，校验和不符
+        RandomAccessFile file = new RandomAccessFile(mFile, "rw");
+        try {
+            file.seek(mFile.length() - 4 - 1);
+            file.write('x');
+        } finally {
+            file.close();
+        }
+
+        assertEquals(Arrays.asList(0L), new ArrayList<>(mLog.load().keySet()));
+        assertEquals(RECORD_OVERHEAD + PAYLOAD.length, mFile.length());
+    }
+
+    @Test
+    public void ackedRecordsAreCompacted() throws IOException {
+        LinkedHashMap<Long, byte[]> live = new LinkedHashMap<>();
+        for (long id = 0; id < 100; id++) {
+            byte[] payload = ("request-" + id).getBytes();
+            mLog.add(id, payload);
+            live.put(id, payload);
+        }
+        for (long id = 0; id < 90; id++) {
+            mLog.ack(id);
+            live.remove(id);
+        }
+        long before = mFile.length();
+
+        mLog.compactIfNeeded(live);
+
+        assertTrue(mFile.length() < before);
+        assertTrue(!new File(mFile.getPath() + ".tmp").exists());
+        mLog.add(100, PAYLOAD);
+        mLog.close();
+        LinkedHashMap<Long, byte[]> loaded = mLog.load();
+        assertEquals(11, loaded.size());
+        for (long id = 90; id < 100; id++) {
+            assertArrayEquals(live.get(id), loaded.get(id));
+        }
+        assertArrayEquals(PAYLOAD, loaded.get(100L));
+    }
+
+    @Test
+    public void fewRecordsAreNotCompacted() throws IOException {
+        LinkedHashMap<Long, byte[]> live = new LinkedHashMap<>();
+        for (long id = 0; id < 10; id++) {
+            mLog.add(id, PAYLOAD);
+            mLog.ack(id);
+        }
+        long before = mFile.length();
+
+        mLog.compactIfNeeded(live);
+
+        assertEquals(before, mFile.length());
+    }
+
+    @Test
+    public void closedLogIsNotWrittenOrCompacted() throws IOException {
+        for (long id = 0; id < 100; id++) {
+            mLog.add(id, PAYLOAD);
+        }
+        for (long id = 0; id < 90; id++) {
+            mLog.ack(id);
+        }
+        mLog.close();
+        long before = mFile.length();
+
+        // 停止后迟到的完成记录与压缩
+        mLog.ack(90);
+        mLog.compactIfNeeded(new LinkedHashMap<Long, byte[]>());
+
+        assertEquals(before, mFile.length());
+        assertEquals(10, mLog.load().size());
+    }
+
+    private void setLength(long length) throws IOException {
+        RandomAccessFile file = new RandomAccessFile(mFile, "rw");
+        try {
+            file.setLength(length);
+        } finally {
+            file.close();
+        }
+    }
+}
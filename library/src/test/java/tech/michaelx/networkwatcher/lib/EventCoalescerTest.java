@@ -0,0 +1,53 @@
+package tech.michaelx.networkwatcher.lib;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static tech.michaelx.networkwatcher.annotation.constant.CapabilityEnum.CAPABILITY_METERED;
+import static tech.michaelx.networkwatcher.annotation.constant.CapabilityEnum.CAPABILITY_VALIDATED;
+import static tech.michaelx.networkwatcher.annotation.constant.NetworkTypeEnum.NETWORK_WIFI;
+
+/**
+ * {@link EventCoalescer}丢弃重复网络时不吞掉能力变化
+ *
+ * @since 2026-10-17
+ */
+public class EventCoalescerTest {
+    private final List<NetworkSnapshot> mDelivered = new ArrayList<>();
+    private EventCoalescer mCoalescer;
+
+    @Before
+    public void setUp() {
+        mCoalescer = new EventCoalescer(new EventCoalescer.Callback() {
+            @Override
+            public void onCoalesced(NetworkSnapshot snapshot, int absorbedCount) {
+                mDelivered.add(snapshot);
+            }
+        });
+        mCoalescer.setPolicy(new CoalescePolicy(0, 0, true));
+    }
+
+    @Test
+    public void capabilityChangesAreNotDropped() {
+        NetworkSnapshot wifi = new NetworkSnapshot(NETWORK_WIFI, 0, true, true, 0, 0, 0);
+        mCoalescer.offer(wifi);
+        mCoalescer.offer(wifi.withCapabilities(CAPABILITY_VALIDATED));
+        mCoalescer.offer(wifi.withCapabilities(CAPABILITY_VALIDATED | CAPABILITY_METERED));
+
+        assertEquals(3, mDelivered.size());
+        assertEquals(CAPABILITY_VALIDATED | CAPABILITY_METERED, mDelivered.get(2).getCapabilities());
+    }
+
+    @Test
+    public void duplicatesAreDropped() {
+        NetworkSnapshot wifi = new NetworkSnapshot(NETWORK_WIFI, 0, true, true, 0, 0, CAPABILITY_VALIDATED);
+        mCoalescer.offer(wifi);
+        mCoalescer.offer(new NetworkSnapshot(NETWORK_WIFI, 0, true, true, 0, 0, CAPABILITY_VALIDATED));
+
+        assertEquals(1, mDelivered.size());
+    }
+}
@@ -0,0 +1,137 @@
+package tech.michaelx.networkwatcher.lib;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static tech.michaelx.networkwatcher.annotation.constant.NetworkTypeEnum.NETWORK_4G;
+import static tech.michaelx.networkwatcher.annotation.constant.NetworkTypeEnum.NETWORK_ANY;
+import static tech.michaelx.networkwatcher.annotation.constant.NetworkTypeEnum.NETWORK_WIFI;
+
+/**
+ * {@link NetworkHistory}在停止记录或进程被杀后不把空白时段算给最后一条记录
+ *
+ * @since 2026-10-17
+ */
+public class NetworkHistoryTest {
+    private static final NetworkSnapshot WIFI = new NetworkSnapshot(NETWORK_WIFI, 0, true, true, 0);
+    private static final NetworkSnapshot LTE = new NetworkSnapshot(NETWORK_4G, 13, true, true, 1);
+
+    private File mFile;
+    private NetworkHistory mHistory;
+
+    @Before
+    public void setUp() throws IOException {
+        mFile = File.createTempFile("history", ".bin");
+        mHistory = new NetworkHistory();
+        mHistory.open(mFile, 16);
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        mHistory.close();
+        mFile.delete();
+    }
+
+    @Test
+    public void lastRecordEndsWhenProcessDied() throws IOException {
+        mHistory.record(WIFI, 1000);
+        mHistory.record(LTE, 3000);
+        // 网络不再变化，只有心跳
+        mHistory.heartbeat(8000);
+        // 进程被杀，没有调用stop()
+        mHistory.close();
+
+        mHistory.open(mFile, 16);
+        mHistory.record(WIFI, 60000);
+
+        assertEquals(2000, mHistory.getDwellMillis(NETWORK_WIFI, 0, 60000));
+        // 4G持续到最后一次心跳
+        assertEquals(5000, mHistory.getDwellMillis(NETWORK_4G, 0, Long.MAX_VALUE));
+    }
+
+    @Test
+    public void stopMarkersAreNotVisited() throws IOException {
+        mHistory.record(WIFI, 1000);
+        mHistory.record(LTE, 3000);
+        mHistory.close();
+        mHistory.open(mFile, 16);
+        mHistory.record(WIFI, 60000);
+
+        final List<long[]> records = new ArrayList<>();
+        int visited = mHistory.query(0, Long.MAX_VALUE, new NetworkHistory.Visitor() {
+            @Override
+            public void onRecord(long startMillis, long endMillis, int type, int subtype, int operator,
+                                 boolean connected) {
+                records.add(new long[]{startMillis, endMillis, type});
+            }
+        });
+
+        assertEquals(3, visited);
+        assertEquals(NETWORK_4G, records.get(1)[2]);
+        // 4G持续到上次最后活跃的时间，而不是下次打开后的第一条记录
+        assertEquals(3000, records.get(1)[1]);
+        assertEquals(60000, records.get(2)[0]);
+        assertEquals(2000, mHistory.getDwellMillis(NETWORK_ANY, 0, 10000));
+    }
+
+    @Test
+    public void exportKeepsGapAfterProcessDied() throws IOException {
+        mHistory.record(WIFI, 1000);
+        mHistory.record(LTE, 3000);
+        mHistory.close();
+        mHistory.open(mFile, 16);
+        mHistory.record(WIFI, 60000);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        assertEquals(3, mHistory.export(0, Long.MAX_VALUE, out));
+
+        InputStream in = new ByteArrayInputStream(out.toByteArray());
+        assertEquals(2, in.read());
+        assertEquals(3, readVarint(in));
+        long start = 0;
+        long[] starts = new long[3];
+        long[] durations = new long[3];
+        for (int i = 0; i < 3; i++) {
+            start += unzigzag(readVarint(in));
+            starts[i] = start;
+            durations[i] = unzigzag(readVarint(in));
+            // 网络类型、子类型、运营商、是否连接
+            readVarint(in);
+            readVarint(in);
+            readVarint(in);
+            in.read();
+        }
+        assertEquals(-1, in.read());
+        assertEquals(1000, starts[0]);
+        assertEquals(2000, durations[0]);
+        // 4G在进程被杀时结束，与下一条之间的空白不计入
+        assertEquals(3000, starts[1]);
+        assertEquals(0, durations[1]);
+        assertEquals(60000, starts[2]);
+    }
+
+    private static long readVarint(InputStream in) throws IOException {
+        long value = 0;
+        for (int shift = 0; ; shift += 7) {
+            int b = in.read();
+            value |= (long) (b & 0x7f) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+    }
+
+    private static long unzigzag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+}
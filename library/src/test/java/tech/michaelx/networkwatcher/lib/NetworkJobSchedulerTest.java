@@ -0,0 +1,210 @@
+package tech.michaelx.networkwatcher.lib;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static tech.michaelx.networkwatcher.annotation.constant.NetworkTypeEnum.NETWORK_4G;
+import static tech.michaelx.networkwatcher.annotation.constant.NetworkTypeEnum.NETWORK_WIFI;
+
+/**
+ * {@link NetworkJobScheduler}在网络切换时的中断、重新排队和并发计数
+ *
+ * @since 2026-10-17
+ */
+public class NetworkJobSchedulerTest {
+    private static final NetworkSnapshot WIFI = new NetworkSnapshot(NETWORK_WIFI, 0, true, true, 0);
+    private static final NetworkSnapshot LTE = new NetworkSnapshot(NETWORK_4G, 0, true, true, 0);
+    private static final long WAIT_MILLIS = 5000;
+
+    private NetworkJobScheduler mScheduler;
+    private final List<String> mStarts = new ArrayList<>();
+    private final List<NetworkJobScheduler.Job> mJobs = new ArrayList<>();
+
+    @Before
+    public void setUp() {
+        mScheduler = new NetworkJobScheduler(null);
+    }
+
+    @After
+    public void tearDown() {
+        for (NetworkJobScheduler.Job job : mJobs) {
+            job.cancel();
+        }
+    }
+
+    @Test
+    public void runningJobIsPreemptedOnDowngrade() throws Exception {
+        BlockingTask task = new BlockingTask("a", 0);
+        NetworkJobScheduler.Job job = schedule(task, NETWORK_WIFI);
+        mScheduler.onNetworkChanged(WIFI);
+        assertTrue(task.awaitStarted());
+
+        mScheduler.onNetworkChanged(LTE);
+        assertTrue(awaitCounts(0, 1));
+        assertEquals(1, job.getPreemptions());
+
+        task.reset();
+        mScheduler.onNetworkChanged(WIFI);
+        assertTrue(task.awaitStarted());
+        assertEquals(1, mScheduler.getRunningCount());
+        assertEquals(0, mScheduler.getPendingCount());
+    }
+
+    @Test
+    public void preemptedJobsKeepSubmissionOrder() throws Exception {
+        // b在a之后才结束，不能因此排到a前面
+        BlockingTask a = new BlockingTask("a", 0);
+        BlockingTask b = new BlockingTask("b", 200);
+        BlockingTask c = new BlockingTask("c", 0);
+        schedule(a, NETWORK_WIFI);
+        schedule(b, NETWORK_WIFI);
+        schedule(c, NETWORK_WIFI);
+        mScheduler.onNetworkChanged(WIFI);
+        assertTrue(a.awaitStarted());
+        assertTrue(b.awaitStarted());
+        assertEquals(1, mScheduler.getPendingCount());
+
+        mScheduler.onNetworkChanged(LTE);
+        assertTrue(awaitCounts(0, 3));
+
+        synchronized (mStarts) {
+            mStarts.clear();
+        }
+        a.reset();
+        mScheduler.setMaxConcurrency(NETWORK_WIFI, 1);
+        mScheduler.onNetworkChanged(WIFI);
+        assertTrue(a.awaitStarted());
+        b.reset();
+        a.release();
+        assertTrue(b.awaitStarted());
+        c.reset();
+        b.release();
+        assertTrue(c.awaitStarted());
+        synchronized (mStarts) {
+            assertEquals(Arrays.asList("a", "b", "c"), mStarts);
+        }
+    }
+
+    @Test
+    public void surplusJobsArePreemptedLatestFirst() throws Exception {
+        mScheduler.setMaxConcurrency(NETWORK_WIFI, 3);
+        mScheduler.setMaxConcurrency(NETWORK_4G, 1);
+        BlockingTask a = new BlockingTask("a", 0);
+        BlockingTask b = new BlockingTask("b", 0);
+        BlockingTask c = new BlockingTask("c", 0);
+        NetworkJobScheduler.Job jobA = schedule(a, NETWORK_WIFI, NETWORK_4G);
+        NetworkJobScheduler.Job jobB = schedule(b, NETWORK_WIFI, NETWORK_4G);
+        NetworkJobScheduler.Job jobC = schedule(c, NETWORK_WIFI, NETWORK_4G);
+        mScheduler.onNetworkChanged(WIFI);
+        assertTrue(a.awaitStarted());
+        assertTrue(b.awaitStarted());
+        assertTrue(c.awaitStarted());
+
+        mScheduler.onNetworkChanged(LTE);
+        assertTrue(awaitCounts(1, 2));
+        assertEquals(0, jobA.getPreemptions());
+        assertEquals(1, jobB.getPreemptions());
+        assertEquals(1, jobC.getPreemptions());
+    }
+
+    @Test
+    public void continuingJobIsCountedOnNewNetwork() throws Exception {
+        mScheduler.setMaxConcurrency(NETWORK_WIFI, 1);
+        mScheduler.setMaxConcurrency(NETWORK_4G, 1);
+        BlockingTask a = new BlockingTask("a", 0);
+        BlockingTask b = new BlockingTask("b", 0);
+        schedule(a, NETWORK_WIFI, NETWORK_4G);
+        schedule(b, NETWORK_WIFI, NETWORK_4G);
+        mScheduler.onNetworkChanged(WIFI);
+        assertTrue(a.awaitStarted());
+
+        // a改记到4G上，4G的并发数已满，b继续等待
+        mScheduler.onNetworkChanged(LTE);
+        Thread.sleep(100);
+        assertEquals(1, mScheduler.getRunningCount());
+        assertEquals(1, mScheduler.getPendingCount());
+
+        // a结束后释放4G的并发数
+        a.release();
+        assertTrue(b.awaitStarted());
+
+        // b回到WiFi上继续运行，结束后WiFi的并发数恢复
+        mScheduler.onNetworkChanged(WIFI);
+        b.release();
+        assertTrue(awaitCounts(0, 0));
+        BlockingTask c = new BlockingTask("c", 0);
+        schedule(c, NETWORK_WIFI);
+        assertTrue(c.awaitStarted());
+    }
+
+    private NetworkJobScheduler.Job schedule(Runnable task, int... allowedTypes) {
+        NetworkJobScheduler.Job job = mScheduler.schedule(task, allowedTypes);
+        mJobs.add(job);
+        return job;
+    }
+
+    private boolean awaitCounts(int running, int pending) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + WAIT_MILLIS;
+        while (mScheduler.getRunningCount() != running || mScheduler.getPendingCount() != pending) {
+            if (System.currentTimeMillis() > deadline) {
+                return false;
+            }
+            Thread.sleep(10);
+        }
+        return true;
+    }
+
+    /**
+     * 一直运行到被中断或放行，被中断后可再等待一段时间才结束
+     */
+    private final class BlockingTask implements Runnable {
+        private final String mName;
+        private final long mExitDelayMillis;
+        private volatile CountDownLatch mStarted = new CountDownLatch(1);
+        private volatile CountDownLatch mRelease = new CountDownLatch(1);
+
+        BlockingTask(String name, long exitDelayMillis) {
+            mName = name;
+            mExitDelayMillis = exitDelayMillis;
+        }
+
+        @Override
+        public void run() {
+            synchronized (mStarts) {
+                mStarts.add(mName);
+            }
+            mStarted.countDown();
+            try {
+                mRelease.await();
+            } catch (InterruptedException e) {
+                try {
+                    Thread.sleep(mExitDelayMillis);
+                } catch (InterruptedException ignored) {
+                    // 已在退出
+                }
+            }
+        }
+
+        boolean awaitStarted() throws InterruptedException {
+            return mStarted.await(WAIT_MILLIS, TimeUnit.MILLISECONDS);
+        }
+
+        void release() {
+            mRelease.countDown();
+        }
+
+        void reset() {
+            mStarted = new CountDownLatch(1);
+            mRelease = new CountDownLatch(1);
+        }
+    }
+}
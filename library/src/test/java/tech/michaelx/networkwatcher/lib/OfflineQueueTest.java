@@ -0,0 +1,111 @@
+package tech.michaelx.networkwatcher.lib;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static tech.michaelx.networkwatcher.annotation.constant.NetworkTypeEnum.NETWORK_WIFI;
+
+/**
+ * {@link OfflineQueue}在网络一直可用时的失败重试
+ *
+ * @since 2026-10-17
+ */
+public class OfflineQueueTest {
+    private static final NetworkSnapshot WIFI = new NetworkSnapshot(NETWORK_WIFI, 0, true, true, 0);
+    private static final long WAIT_MILLIS = 5000;
+
+    private File mFile;
+    private OfflineQueue mQueue;
+    private final AtomicInteger mAttempts = new AtomicInteger();
+    private volatile int mFailures;
+    private volatile CountDownLatch mStarted;
+    private volatile CountDownLatch mRelease;
+
+    @Before
+    public void setUp() throws IOException {
+        mFile = File.createTempFile("offline", ".log");
+        mQueue = new OfflineQueue(mFile, new OfflineQueue.RequestHandler() {
+            @Override
+            public boolean handle(byte[] payload) throws InterruptedException {
+                if (mRelease != null) {
+                    mStarted.countDown();
+                    mRelease.await();
+                }
+                return mAttempts.incrementAndGet() > mFailures;
+            }
+        });
+        mQueue.setRetryBackoff(20, 80);
+        mQueue.open();
+    }
+
+    @After
+    public void tearDown() {
+        mQueue.stop();
+        mFile.delete();
+    }
+
+    @Test
+    public void failedRequestIsRetriedWhileNetworkIsStable() throws Exception {
+        mFailures = 3;
+        mQueue.onNetworkChanged(WIFI);
+        mQueue.enqueue(new byte[]{1});
+
+        assertTrue(awaitEmpty());
+        assertEquals(4, mAttempts.get());
+    }
+
+    @Test
+    public void successfulRequestIsNotRetried() throws Exception {
+        mQueue.onNetworkChanged(WIFI);
+        mQueue.enqueue(new byte[]{1});
+
+        assertTrue(awaitEmpty());
+        Thread.sleep(100);
+        assertEquals(1, mAttempts.get());
+    }
+
+    @Test
+    public void stopWaitsForInFlightRequest() throws Exception {
+        mStarted = new CountDownLatch(1);
+        mRelease = new CountDownLatch(1);
+        mQueue.onNetworkChanged(WIFI);
+        mQueue.enqueue(new byte[]{1});
+        assertTrue(mStarted.await(WAIT_MILLIS, TimeUnit.MILLISECONDS));
+
+        new Thread() {
+            @Override
+            public void run() {
+                try {
+                    Thread.sleep(100);
+                } catch (InterruptedException e) {
+                    // 立即放行
+                }
+                mRelease.countDown();
+            }
+        }.start();
+        mQueue.stop();
+
+        // stop返回时请求已执行完，完成记录写在关闭日志之前
+        assertEquals(1, mAttempts.get());
+        assertEquals(0, mQueue.size());
+        mQueue.open();
+        assertEquals(0, mQueue.size());
+    }
+
+    private boolean awaitEmpty() throws InterruptedException {
+        long deadline = System.currentTimeMillis() + WAIT_MILLIS;
+        while (mQueue.size() > 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        return mQueue.size() == 0;
+    }
+}
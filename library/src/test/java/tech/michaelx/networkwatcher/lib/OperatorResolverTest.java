@@ -0,0 +1,57 @@
+package tech.michaelx.networkwatcher.lib;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * {@link OperatorResolver}的MCC/MNC编码和查表
+ *
+ * @since 2026-10-17
+ */
+public class OperatorResolverTest {
+
+    @Test
+    public void mncDigitsAreKept() {
+        int threeDigit = OperatorResolver.parsePlmn("310030");
+        int twoDigit = OperatorResolver.parsePlmn("31030");
+        assertNotEquals(twoDigit, threeDigit);
+        assertEquals(OperatorResolver.plmn(310, 30, true), threeDigit);
+        assertEquals(OperatorResolver.plmn(310, 30, false), twoDigit);
+
+        OperatorResolver.Subscription subscription = new OperatorResolver.Subscription(0, -1, threeDigit, true);
+        assertEquals(310, subscription.getMcc());
+        assertEquals(30, subscription.getMnc());
+        assertTrue(subscription.isThreeDigitMnc());
+        assertFalse(new OperatorResolver.Subscription(0, -1, twoDigit, true).isThreeDigitMnc());
+    }
+
+    @Test
+    public void malformedOperatorIsRejected() {
+        assertEquals(0, OperatorResolver.parsePlmn(null));
+        assertEquals(0, OperatorResolver.parsePlmn("4600"));
+        assertEquals(0, OperatorResolver.parsePlmn("4600001"));
+        assertEquals(0, OperatorResolver.parsePlmn("46a00"));
+        assertEquals(OperatorResolver.OPERATOR_UNKNOWN, OperatorResolver.resolve(0));
+    }
+
+    @Test
+    public void chinaOperatorsAreResolved() {
+        assertEquals(OperatorResolver.OPERATOR_CHINA_MOBILE, resolve("46000"));
+        assertEquals(OperatorResolver.OPERATOR_CHINA_MOBILE, resolve("46004"));
+        assertEquals(OperatorResolver.OPERATOR_CHINA_MOBILE, resolve("46020"));
+        assertEquals(OperatorResolver.OPERATOR_CHINA_UNICOM, resolve("46001"));
+        assertEquals(OperatorResolver.OPERATOR_CHINA_TELECOM, resolve("46011"));
+        assertEquals(OperatorResolver.OPERATOR_CHINA_BROADNET, resolve("46015"));
+        assertEquals(OperatorResolver.OPERATOR_OTHER, resolve("310030"));
+        // 3位MNC不与表中的2位MNC混淆
+        assertEquals(OperatorResolver.OPERATOR_OTHER, resolve("460000"));
+    }
+
+    private static int resolve(String operator) {
+        return OperatorResolver.resolve(OperatorResolver.parsePlmn(operator));
+    }
+}
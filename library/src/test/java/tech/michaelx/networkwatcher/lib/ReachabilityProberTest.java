@@ -0,0 +1,296 @@
+package tech.michaelx.networkwatcher.lib;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static tech.michaelx.networkwatcher.annotation.constant.NetworkTypeEnum.NETWORK_4G;
+import static tech.michaelx.networkwatcher.annotation.constant.NetworkTypeEnum.NETWORK_WIFI;
+import static tech.michaelx.networkwatcher.annotation.constant.ReachabilityEnum.REACHABILITY_CAPTIVE_PORTAL;
+import static tech.michaelx.networkwatcher.annotation.constant.ReachabilityEnum.REACHABILITY_UNKNOWN;
+import static tech.michaelx.networkwatcher.annotation.constant.ReachabilityEnum.REACHABILITY_UNREACHABLE;
+import static tech.michaelx.networkwatcher.annotation.constant.ReachabilityEnum.REACHABILITY_VALIDATED;
+
+/**
+ * {@link ReachabilityProber}针对本机回环地址上的探测服务测试
+ *
+ * @since 2026-10-17
+ */
+public class ReachabilityProberTest {
+    private static final NetworkSnapshot WIFI = new NetworkSnapshot(NETWORK_WIFI, 0, true, true, 0);
+    private static final NetworkSnapshot LTE = new NetworkSnapshot(NETWORK_4G, 13, true, true, 1);
+    private static final long WAIT_MILLIS = 5000;
+
+    private LoopbackServer mServer;
+    private FakeClock mClock;
+    private ExecutorService mExecutor;
+    private ReachabilityProber mProber;
+    private final List<Integer> mPublished = new ArrayList<>();
+
+    @Before
+    public void setUp() throws IOException {
+        mServer = new LoopbackServer();
+        mClock = new FakeClock();
+        mExecutor = Executors.newCachedThreadPool();
+        mProber = new ReachabilityProber(mClock, mExecutor);
+        mProber.setPolicy(new ProbePolicy(mServer.url(), 204, 500, 1000, 4000, 60 * 1000));
+        mProber.setListener(new ReachabilityProber.Listener() {
+            @Override
+            public void onReachabilityChanged(int reachability) {
+                synchronized (mPublished) {
+                    mPublished.add(reachability);
+                }
+            }
+        });
+        mProber.onNetworkChanged(WIFI);
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        mServer.close();
+        mExecutor.shutdownNow();
+    }
+
+    @Test
+    public void validatedWhenEndpointReturnsExpectedStatus() {
+        assertEquals(REACHABILITY_VALIDATED, mProber.probe(WAIT_MILLIS));
+        assertTrue(mProber.isValidated());
+        assertEquals(1, mServer.requests.get());
+    }
+
+    @Test
+    public void captivePortalWhenEndpointIsHijacked() {
+        mServer.status = 302;
+        assertEquals(REACHABILITY_CAPTIVE_PORTAL, mProber.probe(WAIT_MILLIS));
+        mServer.status = 200;
+        mClock.now += 1000;
+        assertEquals(REACHABILITY_CAPTIVE_PORTAL, mProber.probe(WAIT_MILLIS));
+    }
+
+    @Test
+    public void captivePortalWhenHttpsHandshakeIsIntercepted() {
+        mServer.plaintext = true;
+        mProber.setPolicy(new ProbePolicy(mServer.httpsUrl(), 204, 500, 1000, 4000, 60 * 1000));
+        assertEquals(REACHABILITY_CAPTIVE_PORTAL, mProber.probe(WAIT_MILLIS));
+    }
+
+    @Test
+    public void defaultPolicyProbesOverHttps() {
+        ProbePolicy policy = ProbePolicy.DEFAULT;
+        assertEquals(ProbePolicy.DEFAULT_URL, policy.url);
+        assertTrue(policy.url.startsWith("https://"));
+        assertEquals(204, policy.expectedStatus);
+        assertEquals(5000, policy.timeoutMillis);
+        assertEquals(1000, policy.backoffMillis(1));
+        assertEquals(2000, policy.backoffMillis(2));
+        assertEquals(60 * 1000, policy.backoffMillis(100));
+        assertEquals(60 * 1000, policy.cacheMillis);
+    }
+
+    @Test
+    public void unreachableWhenEndpointTimesOut() {
+        mServer.delayMillis = 2000;
+        assertEquals(REACHABILITY_UNREACHABLE, mProber.probe(WAIT_MILLIS));
+    }
+
+    @Test
+    public void unreachableWithoutProbingWhenDisconnected() {
+        mProber.onNetworkChanged(NetworkSnapshot.NONE);
+        assertEquals(REACHABILITY_UNREACHABLE, mProber.probe(WAIT_MILLIS));
+        assertEquals(0, mServer.requests.get());
+    }
+
+    @Test
+    public void concurrentProbesShareOneRequest() throws Exception {
+        mServer.delayMillis = 200;
+        List<Future<Integer>> results = new ArrayList<>();
+        ExecutorService callers = Executors.newFixedThreadPool(8);
+        try {
+            for (int i = 0; i < 8; i++) {
+                results.add(callers.submit(new Callable<Integer>() {
+                    @Override
+                    public Integer call() {
+                        return mProber.probe(WAIT_MILLIS);
+                    }
+                }));
+            }
+            for (Future<Integer> result : results) {
+                assertEquals(REACHABILITY_VALIDATED, (int) result.get());
+            }
+        } finally {
+            callers.shutdownNow();
+        }
+        assertEquals(1, mServer.requests.get());
+    }
+
+    @Test
+    public void failuresBackOffExponentially() {
+        mServer.status = 503;
+        assertEquals(REACHABILITY_UNREACHABLE, mProber.probe(WAIT_MILLIS));
+        assertEquals(1, mServer.requests.get());
+
+        // 第一次失败后退避1秒
+        mClock.now += 999;
+        assertEquals(REACHABILITY_UNREACHABLE, mProber.probe(WAIT_MILLIS));
+        assertEquals(1, mServer.requests.get());
+        mClock.now += 1;
+        mProber.probe(WAIT_MILLIS);
+        assertEquals(2, mServer.requests.get());
+
+        // 第二次失败后退避2秒
+        mClock.now += 1999;
+        mProber.probe(WAIT_MILLIS);
+        assertEquals(2, mServer.requests.get());
+        mClock.now += 1;
+        mProber.probe(WAIT_MILLIS);
+        assertEquals(3, mServer.requests.get());
+
+        // 成功后重置
+        mServer.status = 204;
+        mClock.now += 4000;
+        assertEquals(REACHABILITY_VALIDATED, mProber.probe(WAIT_MILLIS));
+    }
+
+    @Test
+    public void cacheIsKeptPerNetworkAndInvalidatedOnChange() {
+        assertEquals(REACHABILITY_VALIDATED, mProber.probe(WAIT_MILLIS));
+        mProber.probe(WAIT_MILLIS);
+        assertEquals(1, mServer.requests.get());
+
+        mProber.onNetworkChanged(LTE);
+        assertEquals(REACHABILITY_UNKNOWN, mProber.getReachability());
+        assertEquals(REACHABILITY_VALIDATED, mProber.probe(WAIT_MILLIS));
+        assertEquals(2, mServer.requests.get());
+
+        // 回到之前的网络时重新探测
+        mProber.onNetworkChanged(WIFI);
+        assertEquals(REACHABILITY_UNKNOWN, mProber.getReachability());
+        mProber.probe(WAIT_MILLIS);
+        assertEquals(3, mServer.requests.get());
+
+        synchronized (mPublished) {
+            assertEquals(5, mPublished.size());
+            assertEquals(REACHABILITY_VALIDATED, (int) mPublished.get(0));
+            assertEquals(REACHABILITY_UNKNOWN, (int) mPublished.get(1));
+            assertEquals(REACHABILITY_VALIDATED, (int) mPublished.get(2));
+        }
+    }
+
+    @Test
+    public void validatedResultExpires() {
+        mProber.probe(WAIT_MILLIS);
+        mClock.now += 60 * 1000;
+        assertEquals(REACHABILITY_UNKNOWN, mProber.getReachability());
+        mProber.probe(WAIT_MILLIS);
+        assertEquals(2, mServer.requests.get());
+    }
+
+    private static final class FakeClock extends Clock {
+        volatile long now = 1000;
+
+        @Override
+        long elapsedRealtime() {
+            return now;
+        }
+    }
+
+    /**
+     * 本机回环地址上的探测服务替身，按设置的状态码应答
+     */
+    private static final class LoopbackServer implements Closeable, Runnable {
+        final AtomicInteger requests = new AtomicInteger();
+        volatile int status = 204;
+        volatile long delayMillis;
+        // 不读请求直接回明文，模拟劫持HTTPS连接的认证网关
+        volatile boolean plaintext;
+        private final ServerSocket mServerSocket;
+
+        LoopbackServer() throws IOException {
+            mServerSocket = new ServerSocket(0, 50, InetAddress.getByName("127.0.0.1"));
+            Thread thread = new Thread(this, "LoopbackServer");
+            thread.setDaemon(true);
+            thread.start();
+        }
+
+        String url() {
+            return "http://127.0.0.1:" + mServerSocket.getLocalPort() + "/generate_204";
+        }
+
+        String httpsUrl() {
+            return "https://127.0.0.1:" + mServerSocket.getLocalPort() + "/generate_204";
+        }
+
+        @Override
+        public void run() {
+            while (!mServerSocket.isClosed()) {
+                final Socket socket;
+                try {
+                    socket = mServerSocket.accept();
+                } catch (IOException e) {
+                    return;
+                }
+                Thread handler = new Thread(new Runnable() {
+                    @Override
+                    public void run() {
+                        respond(socket);
+                    }
+                });
+                handler.setDaemon(true);
+                handler.start();
+            }
+        }
+
+        private void respond(Socket socket) {
+            try {
+                if (!plaintext) {
+                    BufferedReader reader = new BufferedReader(
+                            new InputStreamReader(socket.getInputStream(), "UTF-8"));
+                    String line;
+                    do {
+                        line = reader.readLine();
+                    } while (line != null && !line.isEmpty());
+                }
+                requests.incrementAndGet();
+                if (delayMillis > 0) {
+                    Thread.sleep(delayMillis);
+                }
+                OutputStream out = socket.getOutputStream();
+                out.write(("HTTP/1.1 " + status + " Probe\r\nContent-Length: 0\r\nConnection: close\r\n\r\n")
+                        .getBytes("UTF-8"));
+                out.flush();
+            } catch (IOException e) {
+                // 客户端超时断开
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                try {
+                    socket.close();
+                } catch (IOException ignored) {
+                }
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            mServerSocket.close();
+        }
+    }
+}
@@ -0,0 +1,221 @@
+package tech.michaelx.networkwatcher.lib;
+
+import android.content.Context;
+import android.content.ContextWrapper;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import tech.michaelx.networkwatcher.annotation.NetworkStateChanged;
+import tech.michaelx.networkwatcher.annotation.OnNetworkTransition;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static tech.michaelx.networkwatcher.annotation.constant.NetworkTypeEnum.NETWORK_4G;
+import static tech.michaelx.networkwatcher.annotation.constant.NetworkTypeEnum.NETWORK_NO;
+import static tech.michaelx.networkwatcher.annotation.constant.NetworkTypeEnum.NETWORK_WIFI;
+
+/**
+ * 在JVM上用{@link TraceNetworkSource}回放网络变化轨迹，检查分发给大量观察者的次数与顺序
+ *
+ * @since 2026-10-17
+ */
+public class TraceReplayTest {
+    private static final int OBSERVERS = 2000;
+
+    private NetworkStateWatcher mWatcher;
+    private DeliveryRecorder mRecorder;
+    private CountingObserver[] mObservers;
+
+    @Before
+    public void setUp() {
+        mWatcher = NetworkStateWatcher.getDefault();
+        mWatcher.init(new ContextWrapper(null) {
+            @Override
+            public Context getApplicationContext() {
+                return this;
+            }
+        });
+        mWatcher.setClock(new Clock() {
+            @Override
+            long elapsedRealtime() {
+                return System.nanoTime() / 1000000;
+            }
+        });
+        mRecorder = new DeliveryRecorder(OBSERVERS);
+        mObservers = new CountingObserver[OBSERVERS];
+        for (int i = 0; i < OBSERVERS; i++) {
+            mObservers[i] = new CountingObserver(i, mRecorder);
+        }
+    }
+
+    @After
+    public void tearDown() {
+        for (CountingObserver observer : mObservers) {
+            mWatcher.unRegisterObserver(observer);
+        }
+        mWatcher.setClock(Clock.SYSTEM);
+    }
+
+    @Test
+    public void everyObserverReceivesEveryChangeInOrder() throws InterruptedException {
+        ConnectivityTrace trace = ConnectivityTrace.subway();
+        TraceNetworkSource source = start(trace);
+
+        assertEquals(trace.size(), source.play(TraceNetworkSource.UNTHROTTLED));
+
+        assertEquals(trace.size(), mRecorder.getEmittedCount());
+        for (int i = 0; i < OBSERVERS; i++) {
+            assertEquals(trace.getChangeCount(), mRecorder.getDeliveredCount(i));
+        }
+        assertEquals(0, mRecorder.getOutOfOrderCount());
+        assertEquals(0, mRecorder.getDuplicateCount());
+        assertEquals(0, mRecorder.getMissedCount());
+        assertEquals((long) OBSERVERS * trace.getChangeCount(), mRecorder.getLatency().getCount());
+    }
+
+    @Test
+    public void recorderDetectsReorderedDelivery() {
+        ConnectivityTrace trace = new ConnectivityTrace.Builder()
+                .then(0, NETWORK_WIFI)
+                .then(10, NETWORK_NO)
+                .then(10, NETWORK_4G)
+                .build();
+        DeliveryRecorder recorder = new DeliveryRecorder(1);
+        recorder.onStart(trace);
+        for (int i = 0; i < trace.size(); i++) {
+            recorder.onEmitted(i);
+        }
+
+        recorder.onDelivered(0, NETWORK_WIFI);
+        recorder.onDelivered(0, NETWORK_4G);
+        recorder.onDelivered(0, NETWORK_NO);
+        recorder.onDelivered(0, NETWORK_NO);
+
+        assertEquals(1, recorder.getMissedCount());
+        assertEquals(2, recorder.getOutOfOrderCount());
+        assertEquals(0, recorder.getDuplicateCount());
+        assertEquals(2, recorder.getLatency().getCount());
+    }
+
+    @Test
+    public void repeatedStateIsDeliveredOnce() throws InterruptedException {
+        ConnectivityTrace trace = new ConnectivityTrace.Builder()
+                .then(0, NETWORK_WIFI)
+                .then(10, NETWORK_WIFI)
+                .then(10, NETWORK_NO)
+                .then(10, NETWORK_NO)
+                .then(10, NETWORK_4G)
+                .build();
+        start(trace).play(TraceNetworkSource.UNTHROTTLED);
+
+        assertEquals(3, trace.getChangeCount());
+        assertEquals((long) OBSERVERS * 3, mRecorder.getTotalDeliveredCount());
+        assertEquals(NETWORK_4G, mObservers[OBSERVERS - 1].lastType);
+    }
+
+    @Test
+    public void acceleratedReplayKeepsRelativeTiming() throws InterruptedException {
+        ConnectivityTrace trace = ConnectivityTrace.elevator();
+        TraceNetworkSource source = start(trace);
+        double speed = 500;
+
+        long start = System.nanoTime();
+        source.play(speed);
+        long elapsedMillis = (System.nanoTime() - start) / 1000000;
+
+        assertTrue(elapsedMillis >= (long) (trace.getDurationMillis() / speed));
+        assertEquals((long) OBSERVERS * trace.getChangeCount(), mRecorder.getTotalDeliveredCount());
+    }
+
+    @Test
+    public void acceleratedReplayUsesTraceTimeForDwell() throws InterruptedException {
+        ConnectivityTrace trace = new ConnectivityTrace.Builder()
+                .then(0, NETWORK_WIFI)
+                .then(4000, NETWORK_NO)
+                .then(6000, NETWORK_4G)
+                .build();
+        TransitionObserver observer = new TransitionObserver();
+        TraceNetworkSource source = start(trace);
+        mWatcher.registerObserver(observer, false);
+        try {
+            source.play(500);
+        } finally {
+            mWatcher.unRegisterObserver(observer);
+        }
+
+        // 500倍速只用了20毫秒，停留时长仍按轨迹时间计算
+        assertEquals(2, observer.dwellMillis.size());
+        assertEquals(4000L, (long) observer.dwellMillis.get(0));
+        assertEquals(6000L, (long) observer.dwellMillis.get(1));
+    }
+
+    @Test
+    public void recordedHistoryReplaysAsTrace() throws IOException, InterruptedException {
+        ConnectivityTrace original = ConnectivityTrace.wifiHandover();
+        File file = File.createTempFile("history", ".bin");
+        NetworkHistory history = new NetworkHistory();
+        try {
+            history.open(file, NetworkHistory.DEFAULT_CAPACITY);
+            long time = 1000000;
+            for (int i = 0; i < original.size(); i++) {
+                time += original.mDelays[i];
+                history.record(original.mSnapshots[i], time);
+            }
+            ConnectivityTrace replayed = ConnectivityTrace.fromHistory(history, 0, Long.MAX_VALUE);
+
+            assertEquals(original.size(), replayed.size());
+            assertEquals(original.getDurationMillis(), replayed.getDurationMillis());
+            for (int i = 0; i < original.size(); i++) {
+                assertEquals(original.getType(i), replayed.getType(i));
+            }
+            start(replayed).play(TraceNetworkSource.UNTHROTTLED);
+            assertEquals((long) OBSERVERS * original.getChangeCount(), mRecorder.getTotalDeliveredCount());
+        } finally {
+            history.close();
+            assertTrue(file.delete());
+        }
+    }
+
+    private TraceNetworkSource start(ConnectivityTrace trace) {
+        TraceNetworkSource source = new TraceNetworkSource(trace);
+        source.setRecorder(mRecorder);
+        mWatcher.setNetworkSource(source);
+        for (CountingObserver observer : mObservers) {
+            mWatcher.registerObserver(observer, false);
+        }
+        return source;
+    }
+
+    static final class TransitionObserver {
+        final List<Long> dwellMillis = new ArrayList<>();
+
+        @OnNetworkTransition
+        void onTransition(int from, int to, long dwell) {
+            dwellMillis.add(dwell);
+        }
+    }
+
+    static final class CountingObserver {
+        final int id;
+        final DeliveryRecorder recorder;
+        volatile int lastType;
+
+        CountingObserver(int id, DeliveryRecorder recorder) {
+            this.id = id;
+            this.recorder = recorder;
+        }
+
+        @NetworkStateChanged(notifyOnAppStart = false)
+        void onNetworkStateChanged(int type) {
+            lastType = type;
+            recorder.onDelivered(id, type);
+        }
+    }
+}
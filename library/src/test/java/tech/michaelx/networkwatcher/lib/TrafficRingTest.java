@@ -0,0 +1,37 @@
+package tech.michaelx.networkwatcher.lib;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static tech.michaelx.networkwatcher.annotation.constant.NetworkTypeEnum.NETWORK_4G;
+import static tech.michaelx.networkwatcher.annotation.constant.NetworkTypeEnum.NETWORK_ANY;
+import static tech.michaelx.networkwatcher.annotation.constant.NetworkTypeEnum.NETWORK_MOBILE;
+import static tech.michaelx.networkwatcher.annotation.constant.NetworkTypeEnum.NETWORK_WIFI;
+
+/**
+ * {@link TrafficRing}及{@link TrafficSampler#matches(int, int)}按网络类型统计，NETWORK_ANY统计全部
+ *
+ * @since 2026-10-17
+ */
+public class TrafficRingTest {
+
+    @Test
+    public void anyMatchesEveryType() {
+        assertTrue(TrafficSampler.matches(NETWORK_ANY, NETWORK_WIFI));
+        assertTrue(TrafficSampler.matches(NETWORK_ANY, NETWORK_4G));
+    }
+
+    @Test
+    public void sumByType() {
+        TrafficRing ring = new TrafficRing(8);
+        ring.add(100, NETWORK_WIFI, 1000, 100);
+        ring.add(200, NETWORK_4G, 500, 50);
+        ring.add(300, NETWORK_WIFI, 10, 1);
+
+        assertEquals(1111, ring.sumSince(0, NETWORK_WIFI));
+        assertEquals(550, ring.sumSince(0, NETWORK_MOBILE));
+        assertEquals(1661, ring.sumSince(0, NETWORK_ANY));
+        assertEquals(561, ring.sumSince(100, NETWORK_ANY));
+    }
+}